@@ -1,22 +1,90 @@
 package com.udacity.catpoint.app.application;
 
+import com.udacity.catpoint.image.frame.CameraFeed;
+import com.udacity.catpoint.image.frame.CameraSource;
+import com.udacity.catpoint.image.frame.DirectoryCameraSource;
+import com.udacity.catpoint.image.frame.FramePool;
+import com.udacity.catpoint.image.frame.MjpegCameraSource;
+import com.udacity.catpoint.image.frame.PacedCameraSource;
+import com.udacity.catpoint.image.metrics.MeterRegistry;
+import com.udacity.catpoint.image.metrics.MetricsExporter;
+import com.udacity.catpoint.image.metrics.SimpleMeterRegistry;
+import com.udacity.catpoint.image.service.CascadingImageService;
 import com.udacity.catpoint.image.service.FakeImageService;
+import com.udacity.catpoint.image.service.HogModel;
 import com.udacity.catpoint.image.service.ImageService;
+import com.udacity.catpoint.image.service.InstrumentedImageService;
+import com.udacity.catpoint.image.service.LocalImageService;
+import com.udacity.catpoint.image.service.MotionGatingImageService;
+import com.udacity.catpoint.security.data.Camera;
+import com.udacity.catpoint.security.data.InstrumentedSecurityRepository;
+import com.udacity.catpoint.security.data.LogStructuredSecurityRepositoryImpl;
 import com.udacity.catpoint.security.data.SecurityRepository;
 import com.udacity.catpoint.security.data.PretendDatabaseSecurityRepositoryImpl;
+import com.udacity.catpoint.security.journal.EventHistoryStore;
+import com.udacity.catpoint.security.journal.EventJournal;
+import com.udacity.catpoint.security.journal.JournalSink;
+import com.udacity.catpoint.security.journal.JsonLinesJournalSink;
+import com.udacity.catpoint.security.journal.Log4jJournalSink;
 import com.udacity.catpoint.security.service.SecurityService;
 import net.miginfocom.swing.MigLayout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.swing.*;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * This is the primary JFrame for the application that contains all the top-level JPanels.
  *
  * We're not using any dependency injection framework, so this class also handles constructing
  * all our dependencies and providing them to other classes as necessary.
+ *
+ * Metrics are collected if the {@value #METRICS_FILE_PROPERTY} system property names a file,
+ * and written to it when the application exits.
+ *
+ * The system state is kept in user preferences, unless the {@value #REPOSITORY_DIRECTORY_PROPERTY}
+ * system property names a directory, where it is kept in a {@link LogStructuredSecurityRepositoryImpl}.
+ *
+ * Sensor and alarm events are logged through log4j2, and also appended to a JSON-lines file if
+ * the {@value #JOURNAL_FILE_PROPERTY} system property names one. If the
+ * {@value #HISTORY_DIRECTORY_PROPERTY} system property names a directory, events are kept there
+ * in an {@link EventHistoryStore} that can be queried by time and sensor.
+ *
+ * If the {@value #LOCAL_MODEL_FILE_PROPERTY} system property names a model, frames are scored
+ * with it locally first and only those it is unsure about are sent to the image service; see
+ * {@link CascadingImageService}. A name starting with {@value #MODEL_RESOURCE_PREFIX} loads a
+ * model bundled with the image module instead of a file, such as the untrained sample
+ * {@value HogModel#SAMPLE_RESOURCE}.
+ *
+ * If the {@value #CAMERA_SOURCE_PROPERTY} system property names an MJPEG file, a directory of
+ * frames or an http URL serving MJPEG, its frames are scanned continuously as a camera of its
+ * own. Frames from files are sent at {@value #CAMERA_FPS_PROPERTY} frames per second, 10 by
+ * default.
  */
 public class CatpointGui extends JFrame {
 
+    public static final String METRICS_FILE_PROPERTY = "catpoint.metricsFile";
+    public static final String REPOSITORY_DIRECTORY_PROPERTY = "catpoint.repositoryDirectory";
+    public static final String JOURNAL_FILE_PROPERTY = "catpoint.journalFile";
+    public static final String HISTORY_DIRECTORY_PROPERTY = "catpoint.historyDirectory";
+    public static final String LOCAL_MODEL_FILE_PROPERTY = "catpoint.localModelFile";
+    public static final String MODEL_RESOURCE_PREFIX = "resource:";
+    public static final String CASCADE_REJECT_BELOW_PROPERTY = "catpoint.cascadeRejectBelow";
+    public static final String CASCADE_ACCEPT_FROM_PROPERTY = "catpoint.cascadeAcceptFrom";
+    public static final String CAMERA_SOURCE_PROPERTY = "catpoint.cameraSource";
+    public static final String CAMERA_FPS_PROPERTY = "catpoint.cameraFps";
+
+    private static final Logger log = LoggerFactory.getLogger(CatpointGui.class);
+
     public CatpointGui() {
         setLocation(100, 100);
         setSize(600, 850);
@@ -25,9 +93,11 @@ public class CatpointGui extends JFrame {
 
         JPanel mainPanel = new JPanel();
         mainPanel.setLayout(new MigLayout());
-        ImageService imageService = new FakeImageService();
-        SecurityRepository securityRepository = new PretendDatabaseSecurityRepositoryImpl();
-        SecurityService securityService = new SecurityService(securityRepository, imageService);
+        MeterRegistry meterRegistry = createMeterRegistry();
+        ImageService imageService = new MotionGatingImageService(createImageService(meterRegistry));
+        SecurityRepository securityRepository = new InstrumentedSecurityRepository(createRepository(), meterRegistry);
+        SecurityService securityService = new SecurityService(securityRepository, imageService, null, meterRegistry, createJournal());
+        startCameraFeed(securityService);
         DisplayPanel displayPanel = new DisplayPanel(securityService);
         mainPanel.add(displayPanel, "wrap");
         ImagePanel imagePanel = new ImagePanel(securityService);
@@ -40,4 +110,114 @@ public class CatpointGui extends JFrame {
         getContentPane().add(mainPanel);
 
     }
+
+    private static MeterRegistry createMeterRegistry() {
+        String metricsFile = System.getProperty(METRICS_FILE_PROPERTY);
+        if (metricsFile == null) {
+            return MeterRegistry.noop();
+        }
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Path file = Paths.get(metricsFile);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                new MetricsExporter(registry).writeTo(file);
+            } catch (IOException e) {
+                log.error("Unable to write metrics to " + file, e);
+            }
+        }, "metrics-export"));
+        return registry;
+    }
+
+    private static SecurityRepository createRepository() {
+        String repositoryDirectory = System.getProperty(REPOSITORY_DIRECTORY_PROPERTY);
+        if (repositoryDirectory == null) {
+            return new PretendDatabaseSecurityRepositoryImpl();
+        }
+        LogStructuredSecurityRepositoryImpl repository;
+        try {
+            repository = new LogStructuredSecurityRepositoryImpl(Paths.get(repositoryDirectory));
+        } catch (UncheckedIOException e) {
+            log.error("Unable to open repository in " + repositoryDirectory, e);
+            return new PretendDatabaseSecurityRepositoryImpl();
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                repository.close();
+            } catch (IOException e) {
+                log.error("Unable to close repository in " + repositoryDirectory, e);
+            }
+        }, "repository-close"));
+        return repository;
+    }
+
+    private static ImageService createImageService(MeterRegistry meterRegistry) {
+        ImageService imageService = new InstrumentedImageService(new FakeImageService(), meterRegistry);
+        String localModelFile = System.getProperty(LOCAL_MODEL_FILE_PROPERTY);
+        if (localModelFile == null) {
+            return imageService;
+        }
+        HogModel model;
+        try {
+            model = localModelFile.startsWith(MODEL_RESOURCE_PREFIX)
+                    ? HogModel.loadResource(localModelFile.substring(MODEL_RESOURCE_PREFIX.length()))
+                    : HogModel.load(Paths.get(localModelFile));
+        } catch (IOException e) {
+            log.error("Unable to load classifier model " + localModelFile, e);
+            return imageService;
+        }
+        float rejectBelow = Float.parseFloat(System.getProperty(CASCADE_REJECT_BELOW_PROPERTY,
+                String.valueOf(CascadingImageService.DEFAULT_REJECT_BELOW)));
+        float acceptFrom = Float.parseFloat(System.getProperty(CASCADE_ACCEPT_FROM_PROPERTY,
+                String.valueOf(CascadingImageService.DEFAULT_ACCEPT_FROM)));
+        return new CascadingImageService(new LocalImageService(model, ForkJoinPool.commonPool()), imageService,
+                rejectBelow, acceptFrom, meterRegistry);
+    }
+
+    private static void startCameraFeed(SecurityService securityService) {
+        String location = System.getProperty(CAMERA_SOURCE_PROPERTY);
+        if (location == null) {
+            return;
+        }
+        FramePool framePool = new FramePool();
+        CameraSource source;
+        try {
+            if (location.startsWith("http://") || location.startsWith("https://")) {
+                source = new MjpegCameraSource(new URL(location).openStream(), framePool);
+            } else {
+                Path path = Paths.get(location);
+                CameraSource recorded = Files.isDirectory(path)
+                        ? new DirectoryCameraSource(path, framePool)
+                        : new MjpegCameraSource(path, framePool);
+                source = new PacedCameraSource(recorded, Double.parseDouble(System.getProperty(CAMERA_FPS_PROPERTY, "10")));
+            }
+        } catch (IOException e) {
+            log.error("Unable to open camera source " + location, e);
+            return;
+        }
+        Camera camera = new Camera("Stream");
+        securityService.addCamera(camera);
+        CameraFeed feed = new CameraFeed(source, image -> securityService.processImage(camera.getCameraId(), image), camera.getName());
+        feed.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(feed::close, "camera-feed-close"));
+    }
+
+    private static EventJournal createJournal() {
+        List<JournalSink> sinks = new ArrayList<>();
+        sinks.add(new Log4jJournalSink());
+        String journalFile = System.getProperty(JOURNAL_FILE_PROPERTY);
+        if (journalFile != null) {
+            try {
+                sinks.add(new JsonLinesJournalSink(Paths.get(journalFile)));
+            } catch (IOException e) {
+                log.error("Unable to open journal " + journalFile, e);
+            }
+        }
+        String historyDirectory = System.getProperty(HISTORY_DIRECTORY_PROPERTY);
+        if (historyDirectory != null) {
+            sinks.add(new EventHistoryStore(Paths.get(historyDirectory)));
+        }
+        EventJournal journal = new EventJournal(sinks.toArray(new JournalSink[0]));
+        Runtime.getRuntime().addShutdownHook(new Thread(journal::close, "journal-close"));
+        return journal;
+    }
 }
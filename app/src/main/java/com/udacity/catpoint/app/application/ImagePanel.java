@@ -1,6 +1,8 @@
 package com.udacity.catpoint.app.application;
 
 
+import com.udacity.catpoint.image.frame.FramePool;
+import com.udacity.catpoint.image.frame.PooledFrame;
 import com.udacity.catpoint.security.application.StatusListener;
 import com.udacity.catpoint.security.data.AlarmStatus;
 import com.udacity.catpoint.security.service.SecurityService;
@@ -8,25 +10,52 @@ import com.udacity.catpoint.app.service.StyleService;
 import net.miginfocom.swing.MigLayout;
 
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.event.IIOReadProgressListener;
+import javax.imageio.stream.ImageInputStream;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 
 /** Panel containing the 'camera' output. Allows users to 'refresh' the camera
  * by uploading their own picture, and 'scan' the picture, sending it for image analysis
+ *
+ * Pictures are decoded and scaled on a background worker, and scans run asynchronously, so the
+ * window stays responsive however large the picture. A progress bar shows while either is
+ * running, and a scan can be cancelled. Pictures are decoded into frames from a pool, and a
+ * picture's frame goes back to the pool once it is no longer shown. A scan classifies its own
+ * copy of the picture, as a cancelled scan may still be reading it after the scan has ended.
  */
 public class ImagePanel extends JPanel implements StatusListener {
     private SecurityService securityService;
 
     private JLabel cameraHeader;
     private JLabel cameraLabel;
-    private BufferedImage currentCameraImage;
+    private JProgressBar progressBar;
+    private JButton addPictureButton;
+    private JButton scanPictureButton;
+    private final FramePool framePool = new FramePool();
+    private PooledFrame currentFrame;
+
+    private ImageLoadWorker imageLoad;
+    private CompletableFuture<Boolean> scan;
 
     private int IMAGE_WIDTH = 300;
     private int IMAGE_HEIGHT = 225;
 
+    /**
+     * Longest side of a picture after decoding. Larger pictures are subsampled while they are
+     * read, as the image service scales them down further anyway.
+     */
+    private static final int MAX_DECODED_DIMENSION = 1280;
+
     public ImagePanel(SecurityService securityService) {
         super();
         setLayout(new MigLayout());
@@ -41,8 +70,12 @@ public class ImagePanel extends JPanel implements StatusListener {
         cameraLabel.setPreferredSize(new Dimension(IMAGE_WIDTH, IMAGE_HEIGHT));
         cameraLabel.setBorder(BorderFactory.createLineBorder(Color.DARK_GRAY));
 
+        progressBar = new JProgressBar(0, 100);
+        progressBar.setStringPainted(true);
+        progressBar.setVisible(false);
+
         //button allowing users to select a file to be the current camera image
-        JButton addPictureButton = new JButton("Refresh Camera");
+        addPictureButton = new JButton("Refresh Camera");
         addPictureButton.addActionListener(e -> {
             JFileChooser chooser = new JFileChooser();
             chooser.setCurrentDirectory(new File("."));
@@ -51,28 +84,217 @@ public class ImagePanel extends JPanel implements StatusListener {
             if(chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
                 return;
             }
-            try {
-                currentCameraImage = ImageIO.read(chooser.getSelectedFile());
-                Image tmp = new ImageIcon(currentCameraImage).getImage();
-                cameraLabel.setIcon(new ImageIcon(tmp.getScaledInstance(IMAGE_WIDTH, IMAGE_HEIGHT, Image.SCALE_SMOOTH)));
-            } catch (IOException |NullPointerException ioe) {
-                JOptionPane.showMessageDialog(null, "Invalid image selected.");
-            }
-            repaint();
+            loadPicture(chooser.getSelectedFile());
         });
 
-        //button that sends the image to the image service
-        JButton scanPictureButton = new JButton("Scan Picture");
+        //button that sends the image to the image service, or cancels the scan in progress
+        scanPictureButton = new JButton("Scan Picture");
         scanPictureButton.addActionListener(e -> {
-            securityService.processImage(currentCameraImage);
+            if (scan != null) {
+                scan.cancel(true);
+            } else {
+                scanPicture();
+            }
         });
 
         add(cameraHeader, "span 3, wrap");
         add(cameraLabel, "span 3, wrap");
+        add(progressBar, "span 3, growx, wrap");
         add(addPictureButton);
         add(scanPictureButton);
     }
 
+    /**
+     * Starts reading the picture in the background, abandoning any picture still being read.
+     */
+    private void loadPicture(File file) {
+        if (imageLoad != null) {
+            imageLoad.cancel(true);
+        }
+        imageLoad = new ImageLoadWorker(file);
+        imageLoad.addPropertyChangeListener(e -> {
+            if ("progress".equals(e.getPropertyName())) {
+                progressBar.setValue((Integer) e.getNewValue());
+            }
+        });
+        showProgress("Loading picture", false);
+        imageLoad.execute();
+    }
+
+    private void scanPicture() {
+        if (currentFrame == null) {
+            JOptionPane.showMessageDialog(null, "Select a picture to scan first.");
+            return;
+        }
+        CompletableFuture<Boolean> request = securityService.processImageAsync(copyOf(currentFrame.getImage()));
+        scan = request;
+        scanPictureButton.setText("Cancel Scan");
+        addPictureButton.setEnabled(false);
+        showProgress("Scanning picture", true);
+        request.whenComplete((cat, e) -> SwingUtilities.invokeLater(() -> {
+            scan = null;
+            scanPictureButton.setText("Scan Picture");
+            addPictureButton.setEnabled(true);
+            hideProgress();
+            Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+            if (cause != null && !(cause instanceof CancellationException)) {
+                JOptionPane.showMessageDialog(null, "Unable to scan picture: " + cause.getMessage());
+            }
+        }));
+    }
+
+    private void showProgress(String description, boolean indeterminate) {
+        progressBar.setIndeterminate(indeterminate);
+        progressBar.setValue(0);
+        progressBar.setString(description);
+        progressBar.setVisible(true);
+        revalidate();
+    }
+
+    private void hideProgress() {
+        progressBar.setVisible(false);
+        revalidate();
+    }
+
+    private static BufferedImage copyOf(BufferedImage image) {
+        ColorModel colorModel = image.getColorModel();
+        return new BufferedImage(colorModel, image.copyData(null), colorModel.isAlphaPremultiplied(), null);
+    }
+
+    /**
+     * Scales the picture to the size of the camera view. Large reductions are done in steps of
+     * halving, which with bilinear interpolation looks as smooth as area averaging at a fraction
+     * of the cost.
+     */
+    private static BufferedImage scale(BufferedImage image, int width, int height) {
+        BufferedImage current = image;
+        int currentWidth = image.getWidth();
+        int currentHeight = image.getHeight();
+        do {
+            currentWidth = Math.max(width, currentWidth / 2);
+            currentHeight = Math.max(height, currentHeight / 2);
+            if (currentWidth < width * 2 && currentHeight < height * 2) {
+                currentWidth = width;
+                currentHeight = height;
+            }
+            BufferedImage step = new BufferedImage(currentWidth, currentHeight, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = step.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+            } finally {
+                g.dispose();
+            }
+            current = step;
+        } while (currentWidth != width || currentHeight != height);
+        return current;
+    }
+
+    /**
+     * Decodes and scales a picture off the event dispatch thread, then shows it.
+     */
+    private class ImageLoadWorker extends SwingWorker<BufferedImage, Void> {
+        private final File file;
+        private volatile PooledFrame frame;
+
+        ImageLoadWorker(File file) {
+            this.file = file;
+        }
+
+        @Override
+        protected BufferedImage doInBackground() throws IOException {
+            try (ImageInputStream input = ImageIO.createImageInputStream(file)) {
+                frame = framePool.read(input, MAX_DECODED_DIMENSION, new ProgressListener());
+            }
+            //done() may have run already if the worker was cancelled while decoding
+            if (isCancelled()) {
+                frame.close();
+                return null;
+            }
+            return scale(frame.getImage(), IMAGE_WIDTH, IMAGE_HEIGHT);
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled() && frame != null) {
+                frame.close();
+            }
+            if (imageLoad != this) {
+                return; //a later picture was chosen
+            }
+            imageLoad = null;
+            hideProgress();
+            if (isCancelled()) {
+                return;
+            }
+            try {
+                BufferedImage scaled = get();
+                PooledFrame previous = currentFrame;
+                currentFrame = frame;
+                if (previous != null) {
+                    previous.release();
+                }
+                cameraLabel.setIcon(new ImageIcon(scaled));
+            } catch (ExecutionException e) {
+                if (frame != null) {
+                    frame.close();
+                }
+                JOptionPane.showMessageDialog(null, "Invalid image selected.");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            repaint();
+        }
+
+        /**
+         * Reports how much of the picture has been decoded, and stops decoding once the worker
+         * is cancelled.
+         */
+        private class ProgressListener implements IIOReadProgressListener {
+            @Override
+            public void imageProgress(ImageReader source, float percentageDone) {
+                if (isCancelled()) {
+                    source.abort();
+                } else {
+                    setProgress(Math.min(100, Math.round(percentageDone)));
+                }
+            }
+
+            @Override
+            public void imageComplete(ImageReader source) {
+                setProgress(100);
+            }
+
+            @Override
+            public void sequenceStarted(ImageReader source, int minIndex) {
+            }
+
+            @Override
+            public void sequenceComplete(ImageReader source) {
+            }
+
+            @Override
+            public void imageStarted(ImageReader source, int imageIndex) {
+            }
+
+            @Override
+            public void thumbnailStarted(ImageReader source, int imageIndex, int thumbnailIndex) {
+            }
+
+            @Override
+            public void thumbnailProgress(ImageReader source, float percentageDone) {
+            }
+
+            @Override
+            public void thumbnailComplete(ImageReader source) {
+            }
+
+            @Override
+            public void readAborted(ImageReader source) {
+            }
+        }
+    }
+
     @Override
     public void notify(AlarmStatus status) {
         //no behavior necessary
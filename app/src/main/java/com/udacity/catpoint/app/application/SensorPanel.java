@@ -1,5 +1,8 @@
 package com.udacity.catpoint.app.application;
 
+import com.udacity.catpoint.security.application.SensorChangeType;
+import com.udacity.catpoint.security.application.StatusListener;
+import com.udacity.catpoint.security.data.AlarmStatus;
 import com.udacity.catpoint.security.service.SecurityService;
 import com.udacity.catpoint.security.data.SensorType;
 import com.udacity.catpoint.security.data.Sensor;
@@ -7,14 +10,27 @@ import com.udacity.catpoint.app.service.StyleService;
 import net.miginfocom.swing.MigLayout;
 
 import javax.swing.*;
+import javax.swing.table.TableCellRenderer;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
 
 /**
  * Panel that allows users to add sensors to their system. Sensors may be
  * manually set to "active" and "inactive" to test the system.
+ *
+ * Sensors are listed in a table that only renders the rows in view, and each change to a sensor
+ * updates just its row, so the panel stays responsive with many thousands of sensors.
  */
-public class SensorPanel extends JPanel {
+public class SensorPanel extends JPanel implements StatusListener {
+
+    /**
+     * System property setting how many sensors may be added. Defaults to 4.
+     */
+    public static final String MAX_SENSORS_PROPERTY = "catpoint.maxSensors";
 
     private SecurityService securityService;
+    private final int maxSensors = Integer.getInteger(MAX_SENSORS_PROPERTY, 4);
 
     private JLabel panelLabel = new JLabel("Sensor Management");
     private JLabel newSensorName = new JLabel("Name:");
@@ -23,7 +39,8 @@ public class SensorPanel extends JPanel {
     private JComboBox newSensorTypeDropdown = new JComboBox(SensorType.values());
     private JButton addNewSensorButton = new JButton("Add New Sensor");
 
-    private JPanel sensorListPanel;
+    private SensorTableModel sensorTableModel = new SensorTableModel();
+    private JTable sensorTable;
     private JPanel newSensorPanel;
 
     public SensorPanel(SecurityService securityService) {
@@ -37,14 +54,15 @@ public class SensorPanel extends JPanel {
                         SensorType.valueOf(newSensorTypeDropdown.getSelectedItem().toString()))));
 
         newSensorPanel = buildAddSensorPanel();
-        sensorListPanel = new JPanel();
-        sensorListPanel.setLayout(new MigLayout());
+        sensorTable = buildSensorTable();
 
-        updateSensorList(sensorListPanel);
+        //listen before loading, so a sensor added in between is not missed
+        securityService.addStatusListener(this);
+        sensorTableModel.setSensors(securityService.getSensors());
 
         add(panelLabel, "wrap");
         add(newSensorPanel, "span");
-        add(sensorListPanel, "span");
+        add(new JScrollPane(sensorTable), "span, width 500:500:500, height 150:200:400");
     }
 
     /**
@@ -62,59 +80,103 @@ public class SensorPanel extends JPanel {
     }
 
     /**
-     * Requests the current list of sensors and updates the provided panel to display them. Sensors
-     * will display in the order that they are created.
-     * @param p The Panel to populate with the current list of sensors
+     * Builds the table listing the sensors, with buttons to toggle and remove each one. The
+     * buttons are only drawn by the table, so clicks on them are picked up by the table itself.
      */
-    private void updateSensorList(JPanel p) {
-        p.removeAll();
-        securityService.getSensors().stream().sorted().forEach(s -> {
-            JLabel sensorLabel = new JLabel(String.format("%s(%s): %s", s.getName(),  s.getSensorType().toString(),(s.getActive() ? "Active" : "Inactive")));
-            JButton sensorToggleButton = new JButton((s.getActive() ? "Deactivate" : "Activate"));
-            JButton sensorRemoveButton = new JButton("Remove Sensor");
-
-            sensorToggleButton.addActionListener(e -> setSensorActivity(s, !s.getActive()) );
-            sensorRemoveButton.addActionListener(e -> removeSensor(s));
-
-            //hard code some sizes, tsk tsk
-            p.add(sensorLabel, "width 300:300:300");
-            p.add(sensorToggleButton, "width 100:100:100");
-            p.add(sensorRemoveButton, "wrap");
+    private JTable buildSensorTable() {
+        JTable table = new JTable(sensorTableModel);
+        table.setFillsViewportHeight(true);
+        table.setRowSelectionAllowed(false);
+        table.setTableHeader(null);
+        table.setRowHeight(new JButton("Activate").getPreferredSize().height);
+
+        ButtonRenderer buttonRenderer = new ButtonRenderer();
+        table.getColumnModel().getColumn(SensorTableModel.TOGGLE_COLUMN).setCellRenderer(buttonRenderer);
+        table.getColumnModel().getColumn(SensorTableModel.REMOVE_COLUMN).setCellRenderer(buttonRenderer);
+        //hard code some sizes, tsk tsk
+        table.getColumnModel().getColumn(SensorTableModel.SENSOR_COLUMN).setPreferredWidth(200);
+        table.getColumnModel().getColumn(SensorTableModel.STATUS_COLUMN).setPreferredWidth(70);
+        table.getColumnModel().getColumn(SensorTableModel.TOGGLE_COLUMN).setPreferredWidth(100);
+        table.getColumnModel().getColumn(SensorTableModel.REMOVE_COLUMN).setPreferredWidth(130);
+
+        table.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int row = table.rowAtPoint(e.getPoint());
+                int column = table.columnAtPoint(e.getPoint());
+                if (row < 0) {
+                    return;
+                }
+                Sensor sensor = sensorTableModel.getSensor(table.convertRowIndexToModel(row));
+                if (column == SensorTableModel.TOGGLE_COLUMN) {
+                    setSensorActivity(sensor, !sensor.getActive());
+                } else if (column == SensorTableModel.REMOVE_COLUMN) {
+                    removeSensor(sensor);
+                }
+            }
         });
-
-        repaint();
-        revalidate();
+        return table;
     }
 
     /**
-     * Asks the securityService to change a sensor activation status and then rebuilds the current sensor list
+     * Asks the securityService to change a sensor activation status. Its row is updated when the
+     * service reports the change.
      * @param sensor The sensor to update
      * @param isActive The sensor's activation status
      */
     private void setSensorActivity(Sensor sensor, Boolean isActive) {
         securityService.changeSensorActivationStatus(sensor, isActive);
-        updateSensorList(sensorListPanel);
     }
 
     /**
-     * Adds a sensor to the securityService and then rebuilds the sensor list
+     * Adds a sensor to the securityService, unless the maximum number of sensors has been reached
      * @param sensor The sensor to add
      */
     private void addSensor(Sensor sensor) {
-        if(securityService.getSensors().size() < 4) {
+        if(securityService.getSensorCount() < maxSensors) {
             securityService.addSensor(sensor);
-            updateSensorList(sensorListPanel);
         } else {
-            JOptionPane.showMessageDialog(null, "To add more than 4 sensors, please subscribe to our Premium Membership!");
+            JOptionPane.showMessageDialog(null, "To add more than " + maxSensors + " sensors, please subscribe to our Premium Membership!");
         }
     }
 
     /**
-     * Remove a sensor from the securityService and then rebuild the sensor list
+     * Remove a sensor from the securityService
      * @param sensor The sensor to remove
      */
     private void removeSensor(Sensor sensor) {
         securityService.removeSensor(sensor);
-        updateSensorList(sensorListPanel);
+    }
+
+    @Override
+    public void notify(AlarmStatus status) {
+        //no behavior necessary
+    }
+
+    @Override
+    public void catDetected(boolean catDetected) {
+        //no behavior necessary
+    }
+
+    @Override
+    public void sensorStatusChanged() {
+        //no behavior necessary
+    }
+
+    @Override
+    public void sensorChanged(Sensor sensor, SensorChangeType changeType) {
+        sensorTableModel.sensorChanged(sensor, changeType);
+    }
+
+    /**
+     * Draws a cell as a button labelled with the cell's value.
+     */
+    private static class ButtonRenderer extends JButton implements TableCellRenderer {
+        @Override
+        public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected,
+                                                       boolean hasFocus, int row, int column) {
+            setText(value.toString());
+            return this;
+        }
     }
 }
@@ -0,0 +1,90 @@
+package com.udacity.catpoint.app.application;
+
+import com.udacity.catpoint.security.application.SensorChangeType;
+import com.udacity.catpoint.security.data.Sensor;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Table model holding the sensors in their natural order. Changes are applied one sensor at a
+ * time, finding its row by binary search and telling the table about just that row, so only
+ * that row is redrawn. Adding or removing a row shifts the rows after it along the list, which
+ * grows with the number of sensors but is a single array copy, far cheaper than rebuilding the
+ * table.
+ */
+public class SensorTableModel extends AbstractTableModel {
+
+    static final int SENSOR_COLUMN = 0;
+    static final int STATUS_COLUMN = 1;
+    static final int TOGGLE_COLUMN = 2;
+    static final int REMOVE_COLUMN = 3;
+
+    private static final String[] COLUMN_NAMES = {"Sensor", "Status", "", ""};
+
+    private final List<Sensor> sensors = new ArrayList<>();
+
+    /**
+     * Replaces all the rows with the given sensors.
+     */
+    public void setSensors(Collection<Sensor> newSensors) {
+        sensors.clear();
+        sensors.addAll(newSensors);
+        Collections.sort(sensors);
+        fireTableDataChanged();
+    }
+
+    public void sensorChanged(Sensor sensor, SensorChangeType changeType) {
+        int row = Collections.binarySearch(sensors, sensor);
+        if (changeType == SensorChangeType.REMOVED) {
+            if (row >= 0) {
+                sensors.remove(row);
+                fireTableRowsDeleted(row, row);
+            }
+        } else if (row >= 0) {
+            sensors.set(row, sensor);
+            fireTableRowsUpdated(row, row);
+        } else {
+            row = -row - 1;
+            sensors.add(row, sensor);
+            fireTableRowsInserted(row, row);
+        }
+    }
+
+    public Sensor getSensor(int row) {
+        return sensors.get(row);
+    }
+
+    @Override
+    public int getRowCount() {
+        return sensors.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Sensor sensor = sensors.get(row);
+        switch (column) {
+            case SENSOR_COLUMN:
+                return String.format("%s(%s)", sensor.getName(), sensor.getSensorType().toString());
+            case STATUS_COLUMN:
+                return sensor.getActive() ? "Active" : "Inactive";
+            case TOGGLE_COLUMN:
+                return sensor.getActive() ? "Deactivate" : "Activate";
+            default:
+                return "Remove Sensor";
+        }
+    }
+}
@@ -3,4 +3,6 @@ module com.udacity.catpoint.app {
     requires com.udacity.catpoint.security;
     requires java.desktop;
     requires miglayout;
+    requires org.apache.logging.log4j;
+    requires slf4j.api;
 }
\ No newline at end of file
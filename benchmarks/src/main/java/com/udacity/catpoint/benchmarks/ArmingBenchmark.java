@@ -0,0 +1,67 @@
+package com.udacity.catpoint.benchmarks;
+
+import com.udacity.catpoint.security.data.ArmingStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of arming the system, which deactivates every active sensor. Each call arms the system,
+ * then disarms it and reactivates the sensors for the next call, so the time measured is that of
+ * the whole cycle. Reactivating is a single batch change of as many sensors as arming deactivates,
+ * so arming accounts for about half of it. Preparing each call in an invocation-level setup
+ * instead would time and synchronize every call separately, which costs more than arming a small
+ * system does.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ArmingBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    int sensorCount;
+
+    /**
+     * Share of the sensors that are active when the system is armed.
+     */
+    @Param({"0.1", "0.5"})
+    double activationRate;
+
+    @Param({"LOG_STRUCTURED"})
+    RepositoryImplementation repository;
+
+    private ServiceFixture fixture;
+
+    @Setup
+    public void setUp() throws IOException {
+        fixture = new ServiceFixture(repository, sensorCount, (image, confidenceThreshhold) -> false);
+        fixture.activate(activationRate);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        fixture.close();
+    }
+
+    @Benchmark
+    public void armThenReactivate() {
+        fixture.service.setArmingStatus(ArmingStatus.ARMED_HOME);
+        fixture.service.setArmingStatus(ArmingStatus.DISARMED);
+        fixture.activate(activationRate);
+    }
+}
@@ -0,0 +1,62 @@
+package com.udacity.catpoint.benchmarks;
+
+import com.udacity.catpoint.security.data.LogStructuredSecurityRepositoryImpl;
+import com.udacity.catpoint.security.data.PretendDatabaseSecurityRepositoryImpl;
+import com.udacity.catpoint.security.data.SecurityRepository;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.prefs.BackingStoreException;
+import java.util.prefs.Preferences;
+
+/**
+ * The repository implementations a benchmark can run against, chosen with the repository parameter.
+ */
+public enum RepositoryImplementation {
+    LOG_STRUCTURED {
+        @Override
+        SecurityRepository open(Path directory) {
+            return new LogStructuredSecurityRepositoryImpl(directory);
+        }
+    },
+    /**
+     * Stores everything in a preferences node of its own, named after the scratch directory and
+     * removed when the fixture is closed, so the application's stored sensors are left alone. It
+     * fails once the sensors no longer fit in a single preference value (around 50 sensors), so
+     * only select it explicitly, with a small sensor count.
+     */
+    PRETEND_DATABASE {
+        @Override
+        SecurityRepository open(Path directory) {
+            return new ScratchPreferencesRepository(Preferences.userNodeForPackage(RepositoryImplementation.class)
+                    .node(directory.getFileName().toString()));
+        }
+    };
+
+    /**
+     * @param directory Empty directory the repository may keep its files in
+     */
+    abstract SecurityRepository open(Path directory);
+
+    /**
+     * Preferences-backed repository that deletes its node when closed.
+     */
+    private static class ScratchPreferencesRepository extends PretendDatabaseSecurityRepositoryImpl implements Closeable {
+        private final Preferences node;
+
+        ScratchPreferencesRepository(Preferences node) {
+            super(node);
+            this.node = node;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                node.removeNode();
+            } catch (BackingStoreException e) {
+                throw new IOException("Unable to remove preferences node " + node.absolutePath(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.udacity.catpoint.benchmarks;
+
+import com.udacity.catpoint.security.data.ArmingStatus;
+import com.udacity.catpoint.security.data.Sensor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Steady-state cost of the calls made for every sensor event and camera frame, on an armed system.
+ * Throughput gives operations per second and SampleTime gives the latency percentiles.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SecurityServiceBenchmark {
+
+    private static final int TARGETS = 4096;
+
+    @Param({"10", "1000", "100000"})
+    int sensorCount;
+
+    /**
+     * Share of sensor events that activate a sensor rather than deactivate it, which is also
+     * roughly the share of sensors active at any time.
+     */
+    @Param({"0.1", "0.5"})
+    double activationRate;
+
+    @Param({"LOG_STRUCTURED"})
+    RepositoryImplementation repository;
+
+    private ServiceFixture fixture;
+    private final boolean[] targets = new boolean[TARGETS];
+    private final BufferedImage frame = new BufferedImage(64, 48, BufferedImage.TYPE_INT_RGB);
+    private int nextEvent;
+    private int frames;
+
+    @Setup
+    public void setUp() throws IOException {
+        //every other frame shows a cat, so each frame changes the verdict
+        fixture = new ServiceFixture(repository, sensorCount, (image, confidenceThreshhold) -> (++frames & 1) == 0);
+        fixture.service.setArmingStatus(ArmingStatus.ARMED_HOME);
+        fixture.activate(activationRate);
+
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < TARGETS; i++) {
+            targets[i] = random.nextDouble() < activationRate;
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        fixture.close();
+    }
+
+    @Benchmark
+    public void changeSensorActivationStatus() {
+        int event = nextEvent++;
+        Sensor sensor = fixture.sensors[Math.floorMod(event, sensorCount)];
+        fixture.service.changeSensorActivationStatus(sensor, targets[event & (TARGETS - 1)]);
+    }
+
+    @Benchmark
+    public void processImage() {
+        fixture.service.processImage(frame);
+    }
+}
@@ -0,0 +1,63 @@
+package com.udacity.catpoint.benchmarks;
+
+import com.udacity.catpoint.image.service.ImageService;
+import com.udacity.catpoint.security.data.SecurityRepository;
+import com.udacity.catpoint.security.data.Sensor;
+import com.udacity.catpoint.security.data.SensorChange;
+import com.udacity.catpoint.security.data.SensorType;
+import com.udacity.catpoint.security.service.SecurityService;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * A security service with a repository of the requested kind in a scratch directory, populated
+ * with sensors.
+ */
+class ServiceFixture implements Closeable {
+
+    final SecurityRepository repository;
+    final SecurityService service;
+    final Sensor[] sensors;
+    private final Path directory;
+
+    ServiceFixture(RepositoryImplementation implementation, int sensorCount, ImageService imageService) throws IOException {
+        directory = Files.createTempDirectory("catpoint-benchmark");
+        repository = implementation.open(directory);
+        service = new SecurityService(repository, imageService, Runnable::run);
+        sensors = new Sensor[sensorCount];
+        for (int i = 0; i < sensorCount; i++) {
+            sensors[i] = new Sensor("sensor" + i, SensorType.values()[i % SensorType.values().length]);
+            service.addSensor(sensors[i]);
+        }
+    }
+
+    /**
+     * Activates the given share of the sensors, spread evenly, and deactivates the rest.
+     */
+    void activate(double activeRatio) {
+        List<SensorChange> changes = new ArrayList<>(sensors.length);
+        for (int i = 0; i < sensors.length; i++) {
+            changes.add(new SensorChange(sensors[i], (int) ((i + 1) * activeRatio) > (int) (i * activeRatio)));
+        }
+        service.applySensorChanges(changes);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (repository instanceof Closeable) {
+            ((Closeable) repository).close();
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.udacity.catpoint.image.frame;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Passes a camera's frames to a consumer, such as a classifier, that may take longer per frame
+ * than the camera. One thread reads frames as they arrive and another hands them to the
+ * consumer. Only the newest frame waits: if another arrives first, the waiting frame is dropped.
+ * A slow consumer then always sees a recent frame, and the delay before it sees something
+ * happen is bounded by the time it takes per frame, instead of growing with a queue.
+ *
+ * The consumer must not keep the image once it returns, as the frame goes back to its pool.
+ */
+public class CameraFeed implements AutoCloseable {
+
+    private final Logger log = LoggerFactory.getLogger(CameraFeed.class);
+
+    private final CameraSource source;
+    private final Consumer<BufferedImage> consumer;
+    private final Thread reader;
+    private final Thread processor;
+
+    private final Object lock = new Object();
+    private PooledFrame latest; //guarded by lock
+    private boolean ended; //guarded by lock
+    private volatile boolean closed;
+
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * @param name Name of the camera, used to name the feed's threads
+     */
+    public CameraFeed(CameraSource source, Consumer<BufferedImage> consumer, String name) {
+        this.source = source;
+        this.consumer = consumer;
+        this.reader = new Thread(this::readFrames, "camera-feed-" + name);
+        this.processor = new Thread(this::processFrames, "camera-processor-" + name);
+        reader.setDaemon(true);
+        processor.setDaemon(true);
+    }
+
+    public void start() {
+        reader.start();
+        processor.start();
+    }
+
+    private void readFrames() {
+        try {
+            PooledFrame frame;
+            while (!closed && (frame = source.nextFrame()) != null) {
+                received.incrementAndGet();
+                PooledFrame stale;
+                synchronized (lock) {
+                    if (closed) {
+                        frame.release();
+                        return;
+                    }
+                    stale = latest;
+                    latest = frame;
+                    lock.notifyAll();
+                }
+                if (stale != null) {
+                    stale.release();
+                    dropped.incrementAndGet();
+                }
+            }
+        } catch (IOException e) {
+            if (!closed) {
+                log.warn("Camera feed {} stopped", reader.getName(), e);
+            }
+        } finally {
+            synchronized (lock) {
+                ended = true;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    private void processFrames() {
+        while (true) {
+            PooledFrame frame;
+            synchronized (lock) {
+                while (latest == null && !ended && !closed) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (closed || latest == null) {
+                    return;
+                }
+                frame = latest;
+                latest = null;
+            }
+            try {
+                consumer.accept(frame.getImage());
+                processed.incrementAndGet();
+            } catch (RuntimeException e) {
+                log.warn("Unable to process frame from {}", reader.getName(), e);
+            } finally {
+                frame.release();
+            }
+        }
+    }
+
+    /**
+     * Waits until every frame from the source has been processed or dropped.
+     */
+    public void awaitEnd() throws InterruptedException {
+        reader.join();
+        processor.join();
+    }
+
+    /**
+     * @return Number of frames read from the source
+     */
+    public long getReceivedCount() {
+        return received.get();
+    }
+
+    /**
+     * @return Number of frames given to the consumer
+     */
+    public long getProcessedCount() {
+        return processed.get();
+    }
+
+    /**
+     * @return Number of frames dropped because a newer one arrived before they were processed
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Stops reading frames and closes the source. A frame being processed is finished first.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            source.close();
+        } catch (IOException e) {
+            log.warn("Unable to close camera source", e);
+        }
+        reader.interrupt();
+        PooledFrame waiting;
+        synchronized (lock) {
+            waiting = latest;
+            latest = null;
+            lock.notifyAll();
+        }
+        if (waiting != null) {
+            waiting.release();
+        }
+    }
+}
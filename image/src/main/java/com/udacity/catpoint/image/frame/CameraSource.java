@@ -0,0 +1,17 @@
+package com.udacity.catpoint.image.frame;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * A camera's frames, one after another. Closing the source stops it and unblocks a thread
+ * waiting for the next frame.
+ */
+public interface CameraSource extends Closeable {
+
+    /**
+     * Waits for the next frame and decodes it. The caller releases the frame when done with it.
+     * @return The next frame, or null once the source has no more
+     */
+    PooledFrame nextFrame() throws IOException;
+}
@@ -0,0 +1,73 @@
+package com.udacity.catpoint.image.frame;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.ImageIO;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Reads the images in a directory as frames, in order of their file names, as saved by cameras
+ * that write a file per frame. Files that aren't images are skipped, as are images that can't be
+ * read, such as one a camera was still writing, so a single bad file doesn't end the feed.
+ */
+public class DirectoryCameraSource implements CameraSource {
+
+    private final Logger log = LoggerFactory.getLogger(DirectoryCameraSource.class);
+
+    private final Iterator<Path> files;
+    private final AtomicLong skipped = new AtomicLong();
+    private final FramePool framePool;
+    private volatile boolean closed;
+
+    public DirectoryCameraSource(Path directory, FramePool framePool) throws IOException {
+        List<Path> images;
+        try (Stream<Path> listing = Files.list(directory)) {
+            images = listing.filter(DirectoryCameraSource::isImage).sorted().collect(Collectors.toList());
+        }
+        this.files = images.iterator();
+        this.framePool = framePool;
+    }
+
+    private static boolean isImage(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        return Files.isRegularFile(file) && (name.endsWith(".jpg") || name.endsWith(".jpeg")
+                || name.endsWith(".png") || name.endsWith(".bmp") || name.endsWith(".gif"));
+    }
+
+    @Override
+    public PooledFrame nextFrame() {
+        while (!closed && files.hasNext()) {
+            Path file = files.next();
+            try (ImageInputStream input = ImageIO.createImageInputStream(file.toFile())) {
+                return framePool.read(input);
+            } catch (IOException | RuntimeException e) {
+                //decoders throw runtime exceptions on some malformed images too
+                skipped.incrementAndGet();
+                log.warn("Skipping unreadable frame {}", file, e);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return Number of image files that couldn't be read
+     */
+    public long getSkippedCount() {
+        return skipped.get();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+    }
+}
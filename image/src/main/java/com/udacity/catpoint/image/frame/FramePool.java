@@ -0,0 +1,236 @@
+package com.udacity.catpoint.image.frame;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.imageio.IIOException;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.event.IIOReadProgressListener;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.io.IOException;
+import java.lang.ref.Cleaner;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps camera frames for reuse, so a stream of frames doesn't allocate a new image for each.
+ * Cameras send frames of a fixed size and type, so frames are pooled by their exact width,
+ * height and image type, and decoders can read straight into a frame taken from the pool.
+ *
+ * At most a fixed number of bytes are kept in idle frames; frames released beyond that are left
+ * to the garbage collector. In debug mode every frame remembers where it was acquired, and a
+ * frame collected without being released is logged with that stack trace and counted as leaked.
+ */
+public class FramePool {
+
+    /**
+     * System property turning on leak detection for pools created with defaults.
+     */
+    public static final String DEBUG_PROPERTY = "catpoint.framePoolDebug";
+    public static final long DEFAULT_MAX_POOLED_BYTES = 64L * 1024 * 1024;
+
+    private final Logger log = LoggerFactory.getLogger(FramePool.class);
+
+    private final long maxPooledBytes;
+    private final boolean debug;
+
+    //guarded by this
+    private final Map<FrameKey, ArrayDeque<BufferedImage>> idle = new HashMap<>();
+    private long pooledBytes;
+    private long allocated;
+    private long reused;
+
+    private final AtomicLong leaked = new AtomicLong();
+
+    /**
+     * Creates a pool keeping up to {@value #DEFAULT_MAX_POOLED_BYTES} bytes, with leak detection
+     * if the {@value #DEBUG_PROPERTY} system property is true.
+     */
+    public FramePool() {
+        this(DEFAULT_MAX_POOLED_BYTES, Boolean.getBoolean(DEBUG_PROPERTY));
+    }
+
+    /**
+     * @param maxPooledBytes Most bytes of image data to keep in idle frames
+     * @param debug Whether to report frames that are never released
+     */
+    public FramePool(long maxPooledBytes, boolean debug) {
+        this.maxPooledBytes = maxPooledBytes;
+        this.debug = debug;
+    }
+
+    /**
+     * Lends out an image of the given size and type. A reused image still holds the pixels it
+     * was last given, so draw into it with {@link java.awt.AlphaComposite#Src} or clear it first.
+     * @param imageType One of the BufferedImage TYPE_ constants, other than TYPE_CUSTOM
+     */
+    public PooledFrame acquire(int width, int height, int imageType) {
+        if (imageType == BufferedImage.TYPE_CUSTOM) {
+            throw new IllegalArgumentException("Images of a custom type can't be pooled");
+        }
+        BufferedImage image = take(new FrameKey(width, height, imageType));
+        if (image == null) {
+            image = new BufferedImage(width, height, imageType);
+        }
+        return lend(image);
+    }
+
+    /**
+     * Decodes the first image in the input into a frame from the pool.
+     */
+    public PooledFrame read(ImageInputStream input) throws IOException {
+        return read(input, Integer.MAX_VALUE, null);
+    }
+
+    /**
+     * Decodes the first image in the input into a frame from the pool, keeping only every nth
+     * pixel and row of images larger than needed.
+     * @param maxDimension Longest side wanted. Larger images are subsampled by the whole number
+     *                     that brings them closest to it without going under.
+     * @param progressListener Listener told how far decoding has got, or null
+     */
+    public PooledFrame read(ImageInputStream input, int maxDimension, IIOReadProgressListener progressListener) throws IOException {
+        Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+        if (readers == null || !readers.hasNext()) {
+            throw new IIOException("Unsupported image format");
+        }
+        ImageReader reader = readers.next();
+        try {
+            reader.setInput(input, true, true);
+            int width = reader.getWidth(0);
+            int height = reader.getHeight(0);
+            int subsampling = Math.max(1, Math.max(width, height) / maxDimension);
+            width = (width + subsampling - 1) / subsampling;
+            height = (height + subsampling - 1) / subsampling;
+
+            ImageTypeSpecifier type = reader.getImageTypes(0).next();
+            boolean poolable = type.getBufferedImageType() != BufferedImage.TYPE_CUSTOM;
+            BufferedImage destination = poolable ? take(new FrameKey(width, height, type.getBufferedImageType())) : null;
+            if (destination == null) {
+                destination = type.createBufferedImage(width, height);
+            }
+
+            ImageReadParam param = reader.getDefaultReadParam();
+            param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+            param.setDestination(destination);
+            if (progressListener != null) {
+                reader.addIIOReadProgressListener(progressListener);
+            }
+            try {
+                reader.read(0, param);
+            } catch (IOException | RuntimeException e) {
+                if (poolable) {
+                    giveBack(destination);
+                }
+                throw e;
+            }
+            return poolable ? lend(destination) : new PooledFrame(null, destination, null);
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    private PooledFrame lend(BufferedImage image) {
+        return new PooledFrame(this, image, debug ? new PooledFrame.LeakCheck(this, image.getWidth(), image.getHeight()) : null);
+    }
+
+    private synchronized BufferedImage take(FrameKey key) {
+        ArrayDeque<BufferedImage> images = idle.get(key);
+        BufferedImage image = images == null ? null : images.pollFirst();
+        if (image == null) {
+            allocated++;
+            return null;
+        }
+        reused++;
+        pooledBytes -= sizeOf(image);
+        return image;
+    }
+
+    synchronized void giveBack(BufferedImage image) {
+        long size = sizeOf(image);
+        if (pooledBytes + size > maxPooledBytes) {
+            return;
+        }
+        idle.computeIfAbsent(new FrameKey(image.getWidth(), image.getHeight(), image.getType()), key -> new ArrayDeque<>())
+                .addFirst(image);
+        pooledBytes += size;
+    }
+
+    void leaked(int width, int height, Throwable acquiredAt) {
+        leaked.incrementAndGet();
+        log.warn("A {}x{} frame was never released", width, height, acquiredAt);
+    }
+
+    private static long sizeOf(BufferedImage image) {
+        DataBuffer buffer = image.getRaster().getDataBuffer();
+        return (long) buffer.getSize() * buffer.getNumBanks() * DataBuffer.getDataTypeSize(buffer.getDataType()) / 8;
+    }
+
+    /**
+     * @return Number of frames that had to be created because none of the right kind was idle
+     */
+    public synchronized long getAllocatedCount() {
+        return allocated;
+    }
+
+    /**
+     * @return Number of frames handed out again after being released
+     */
+    public synchronized long getReusedCount() {
+        return reused;
+    }
+
+    /**
+     * @return Bytes of image data held in idle frames
+     */
+    public synchronized long getPooledBytes() {
+        return pooledBytes;
+    }
+
+    /**
+     * @return Number of frames collected without being released. Only counted in debug mode.
+     */
+    public long getLeakedCount() {
+        return leaked.get();
+    }
+
+    /**
+     * Holds the cleaner, so its thread is only started once leak detection is used.
+     */
+    static final class CleanerHolder {
+        static final Cleaner CLEANER = Cleaner.create();
+    }
+
+    private static final class FrameKey {
+        private final int width;
+        private final int height;
+        private final int imageType;
+
+        FrameKey(int width, int height, int imageType) {
+            this.width = width;
+            this.height = height;
+            this.imageType = imageType;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            FrameKey frameKey = (FrameKey) o;
+            return width == frameKey.width && height == frameKey.height && imageType == frameKey.imageType;
+        }
+
+        @Override
+        public int hashCode() {
+            return (width * 31 + height) * 31 + imageType;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.udacity.catpoint.image.frame;
+
+import javax.imageio.IIOException;
+import javax.imageio.ImageIO;
+import javax.imageio.stream.ImageInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Reads Motion JPEG: a stream of JPEG images one after another, as saved by cameras or served
+ * over HTTP as a multipart response. Only the frame being read is held in memory, however long
+ * the stream.
+ *
+ * Anything between images, such as multipart boundaries and headers, is skipped. Each image's
+ * marker segments are followed by their lengths, so thumbnails embedded in metadata aren't
+ * mistaken for the end of the image.
+ */
+public class MjpegCameraSource implements CameraSource {
+
+    /**
+     * Largest image accepted, so a corrupt stream can't use up the heap.
+     */
+    public static final int MAX_FRAME_BYTES = 32 * 1024 * 1024;
+
+    private static final int SOI = 0xd8;
+    private static final int EOI = 0xd9;
+    private static final int SOS = 0xda;
+
+    private final InputStream in;
+    private final FramePool framePool;
+
+    private final byte[] chunk = new byte[64 * 1024];
+    private int chunkPosition;
+    private int chunkLimit;
+
+    private byte[] frame = new byte[256 * 1024];
+    private int frameLength;
+
+    public MjpegCameraSource(Path file, FramePool framePool) throws IOException {
+        this(Files.newInputStream(file), framePool);
+    }
+
+    public MjpegCameraSource(InputStream in, FramePool framePool) {
+        this.in = in;
+        this.framePool = framePool;
+    }
+
+    @Override
+    public PooledFrame nextFrame() throws IOException {
+        if (!readImage()) {
+            return null;
+        }
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(frame, 0, frameLength))) {
+            return framePool.read(input);
+        }
+    }
+
+    /**
+     * Copies the next image into the frame buffer.
+     * @return False if the stream ended before another image started
+     */
+    private boolean readImage() throws IOException {
+        frameLength = 0;
+        int previous = 0;
+        for (int b = read(); !(previous == 0xff && b == SOI); b = read()) {
+            if (b < 0) {
+                return false;
+            }
+            previous = b;
+        }
+        append(0xff);
+        append(SOI);
+
+        int marker = nextMarker();
+        while (marker != EOI) {
+            append(0xff);
+            append(marker);
+            if (isStandalone(marker)) {
+                marker = nextMarker();
+                continue;
+            }
+            int length = (readOrFail() << 8) | readOrFail();
+            append(length >> 8);
+            append(length & 0xff);
+            for (int i = 2; i < length; i++) {
+                append(readOrFail());
+            }
+            marker = marker == SOS ? skipScan() : nextMarker();
+        }
+        append(0xff);
+        append(EOI);
+        return true;
+    }
+
+    /**
+     * Copies the entropy coded data after a start of scan, in which a 0xff byte is either
+     * followed by 0 or is a restart marker.
+     * @return The marker that ends the scan
+     */
+    private int skipScan() throws IOException {
+        while (true) {
+            int b = readOrFail();
+            if (b != 0xff) {
+                append(b);
+                continue;
+            }
+            int next = readOrFail();
+            while (next == 0xff) {
+                next = readOrFail();
+            }
+            if (next == 0 || isRestart(next)) {
+                append(0xff);
+                append(next);
+            } else {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * @return The marker at the current position, skipping any fill bytes before it
+     */
+    private int nextMarker() throws IOException {
+        if (readOrFail() != 0xff) {
+            throw new IIOException("Expected a JPEG marker");
+        }
+        int marker = readOrFail();
+        while (marker == 0xff) {
+            marker = readOrFail();
+        }
+        return marker;
+    }
+
+    private static boolean isStandalone(int marker) {
+        return marker == 0x01 || isRestart(marker);
+    }
+
+    private static boolean isRestart(int marker) {
+        return marker >= 0xd0 && marker <= 0xd7;
+    }
+
+    private void append(int b) throws IOException {
+        if (frameLength == frame.length) {
+            if (frame.length >= MAX_FRAME_BYTES) {
+                throw new IIOException("JPEG image larger than " + MAX_FRAME_BYTES + " bytes");
+            }
+            frame = Arrays.copyOf(frame, Math.min(frame.length * 2, MAX_FRAME_BYTES));
+        }
+        frame[frameLength++] = (byte) b;
+    }
+
+    private int readOrFail() throws IOException {
+        int b = read();
+        if (b < 0) {
+            throw new IIOException("Stream ended in the middle of a JPEG image");
+        }
+        return b;
+    }
+
+    private int read() throws IOException {
+        if (chunkPosition == chunkLimit) {
+            int read = in.read(chunk);
+            if (read <= 0) {
+                return -1;
+            }
+            chunkPosition = 0;
+            chunkLimit = read;
+        }
+        return chunk[chunkPosition++] & 0xff;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
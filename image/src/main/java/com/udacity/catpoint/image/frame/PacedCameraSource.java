@@ -0,0 +1,43 @@
+package com.udacity.catpoint.image.frame;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands out another source's frames no faster than a camera would send them. Recorded streams
+ * and directories of frames can otherwise be read as fast as they decode.
+ */
+public class PacedCameraSource implements CameraSource {
+
+    private final CameraSource source;
+    private final long frameIntervalNanos;
+    private long nextFrameNanos;
+
+    public PacedCameraSource(CameraSource source, double framesPerSecond) {
+        this.source = source;
+        this.frameIntervalNanos = (long) (1e9 / framesPerSecond);
+        this.nextFrameNanos = System.nanoTime();
+    }
+
+    @Override
+    public PooledFrame nextFrame() throws IOException {
+        long wait = nextFrameNanos - System.nanoTime();
+        if (wait > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting for the next frame");
+            }
+        }
+        //a source that fell behind doesn't catch up with a burst of frames
+        nextFrameNanos = Math.max(nextFrameNanos, System.nanoTime() - frameIntervalNanos) + frameIntervalNanos;
+        return source.nextFrame();
+    }
+
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+}
@@ -0,0 +1,99 @@
+package com.udacity.catpoint.image.frame;
+
+import java.awt.image.BufferedImage;
+import java.lang.ref.Cleaner;
+
+/**
+ * An image lent out by a {@link FramePool}. Release it once nothing uses the image any more, so
+ * the pool can hand the image out again; the image must not be used after that.
+ */
+public final class PooledFrame implements AutoCloseable {
+
+    private final FramePool pool;
+    private final LeakCheck leakCheck;
+    private final Cleaner.Cleanable cleanable;
+    private BufferedImage image;
+
+    /**
+     * @param pool Pool to return the image to, or null if it is not pooled
+     * @param leakCheck Check to run if this frame is collected without being released, or null
+     */
+    PooledFrame(FramePool pool, BufferedImage image, LeakCheck leakCheck) {
+        this.pool = pool;
+        this.image = image;
+        this.leakCheck = leakCheck;
+        this.cleanable = leakCheck == null ? null : FramePool.CleanerHolder.CLEANER.register(this, leakCheck);
+    }
+
+    /**
+     * @throws IllegalStateException If the frame has been released
+     */
+    public synchronized BufferedImage getImage() {
+        if (image == null) {
+            throw new IllegalStateException("Frame has been released");
+        }
+        return image;
+    }
+
+    /**
+     * Returns the image to the pool.
+     * @throws IllegalStateException If the frame has already been released
+     */
+    public void release() {
+        BufferedImage released;
+        synchronized (this) {
+            released = getImage();
+            image = null;
+        }
+        if (cleanable != null) {
+            leakCheck.released = true;
+            cleanable.clean();
+        }
+        if (pool != null) {
+            pool.giveBack(released);
+        }
+    }
+
+    /**
+     * Releases the frame unless it has been released already.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (image == null) {
+                return;
+            }
+        }
+        try {
+            release();
+        } catch (IllegalStateException e) {
+            //released by another thread in the meantime
+        }
+    }
+
+    /**
+     * Reports a frame that was never released. Holds no reference to the frame itself, which
+     * would keep it from being collected.
+     */
+    static final class LeakCheck implements Runnable {
+        private final FramePool pool;
+        private final int width;
+        private final int height;
+        private final Throwable acquiredAt;
+        volatile boolean released;
+
+        LeakCheck(FramePool pool, int width, int height) {
+            this.pool = pool;
+            this.width = width;
+            this.height = height;
+            this.acquiredAt = new Throwable("Frame acquired here");
+        }
+
+        @Override
+        public void run() {
+            if (!released) {
+                pool.leaked(width, height, acquiredAt);
+            }
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.udacity.catpoint.image.metrics;
+
+/**
+ * Count of events that only ever goes up.
+ */
+public interface Counter {
+    void increment();
+
+    long getCount();
+}
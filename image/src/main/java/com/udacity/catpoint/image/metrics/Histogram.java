@@ -0,0 +1,10 @@
+package com.udacity.catpoint.image.metrics;
+
+/**
+ * Distribution of recorded values. Durations are recorded in nanoseconds.
+ */
+public interface Histogram {
+    void record(long value);
+
+    long getCount();
+}
@@ -0,0 +1,68 @@
+package com.udacity.catpoint.image.metrics;
+
+import java.util.Arrays;
+
+/**
+ * Name and tags identifying a meter.
+ */
+final class MeterId implements Comparable<MeterId> {
+    private final String name;
+    private final String[] tags;
+
+    MeterId(String name, String[] tags) {
+        if (tags.length % 2 != 0) {
+            throw new IllegalArgumentException("Tags must be pairs of keys and values: " + Arrays.toString(tags));
+        }
+        this.name = name;
+        this.tags = tags.clone();
+    }
+
+    String getName() {
+        return name;
+    }
+
+    int getTagCount() {
+        return tags.length / 2;
+    }
+
+    String getTagKey(int index) {
+        return tags[index * 2];
+    }
+
+    String getTagValue(int index) {
+        return tags[index * 2 + 1];
+    }
+
+    @Override
+    public int compareTo(MeterId o) {
+        return toString().compareTo(o.toString());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        MeterId meterId = (MeterId) o;
+        return name.equals(meterId.name) && Arrays.equals(tags, meterId.tags);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * name.hashCode() + Arrays.hashCode(tags);
+    }
+
+    @Override
+    public String toString() {
+        if (tags.length == 0) {
+            return name;
+        }
+        StringBuilder sb = new StringBuilder(name).append('{');
+        for (int i = 0; i < getTagCount(); i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(getTagKey(i)).append('=').append(getTagValue(i));
+        }
+        return sb.append('}').toString();
+    }
+}
@@ -0,0 +1,22 @@
+package com.udacity.catpoint.image.metrics;
+
+/**
+ * Creates the counters and histograms that components report to. Asking twice for the same
+ * name and tags gives the same meter, so components look their meters up once and keep them.
+ *
+ * Tags are given as alternating keys and values, for example
+ * {@code counter("catpoint.alarm.transitions", "from", "NO_ALARM", "to", "PENDING_ALARM")}.
+ */
+public interface MeterRegistry {
+
+    Counter counter(String name, String... tags);
+
+    Histogram histogram(String name, String... tags);
+
+    /**
+     * @return Registry whose meters record nothing, for when metrics aren't wanted
+     */
+    static MeterRegistry noop() {
+        return NoopMeterRegistry.INSTANCE;
+    }
+}
@@ -0,0 +1,110 @@
+package com.udacity.catpoint.image.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Writes the meters of a {@link SimpleMeterRegistry} as plain text, one meter per line, or as
+ * a JSON document. Histograms are summarised by their count, mean, maximum and 50th, 95th and
+ * 99th percentiles.
+ */
+public class MetricsExporter {
+
+    private static final double[] PERCENTILES = {50, 95, 99};
+
+    private final SimpleMeterRegistry registry;
+
+    public MetricsExporter(SimpleMeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public void writeText(Writer writer) throws IOException {
+        for (Map.Entry<MeterId, SimpleMeterRegistry.SimpleCounter> counter : registry.getCounters().entrySet()) {
+            writer.write(counter.getKey() + " count=" + counter.getValue().getCount() + "\n");
+        }
+        for (Map.Entry<MeterId, SimpleHistogram> entry : registry.getHistograms().entrySet()) {
+            SimpleHistogram histogram = entry.getValue();
+            writer.write(entry.getKey() + " count=" + histogram.getCount()
+                    + " mean=" + String.format(Locale.ROOT, "%.1f", mean(histogram))
+                    + " max=" + histogram.getMax());
+            for (double percentile : PERCENTILES) {
+                writer.write(" p" + (int) percentile + "=" + histogram.getPercentile(percentile));
+            }
+            writer.write("\n");
+        }
+        writer.flush();
+    }
+
+    public void writeJson(Writer writer) throws IOException {
+        writer.write("{\"counters\":[");
+        boolean first = true;
+        for (Map.Entry<MeterId, SimpleMeterRegistry.SimpleCounter> counter : registry.getCounters().entrySet()) {
+            writer.write(first ? "" : ",");
+            first = false;
+            writeId(writer, counter.getKey());
+            writer.write(",\"count\":" + counter.getValue().getCount() + "}");
+        }
+        writer.write("],\"histograms\":[");
+        first = true;
+        for (Map.Entry<MeterId, SimpleHistogram> entry : registry.getHistograms().entrySet()) {
+            SimpleHistogram histogram = entry.getValue();
+            writer.write(first ? "" : ",");
+            first = false;
+            writeId(writer, entry.getKey());
+            writer.write(",\"count\":" + histogram.getCount()
+                    + ",\"mean\":" + String.format(Locale.ROOT, "%.1f", mean(histogram))
+                    + ",\"max\":" + histogram.getMax());
+            for (double percentile : PERCENTILES) {
+                writer.write(",\"p" + (int) percentile + "\":" + histogram.getPercentile(percentile));
+            }
+            writer.write("}");
+        }
+        writer.write("]}\n");
+        writer.flush();
+    }
+
+    /**
+     * Writes the meters to a file, as JSON if its name ends in .json and as text otherwise.
+     */
+    public void writeTo(Path file) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            if (file.getFileName().toString().endsWith(".json")) {
+                writeJson(writer);
+            } else {
+                writeText(writer);
+            }
+        }
+    }
+
+    private static double mean(SimpleHistogram histogram) {
+        long count = histogram.getCount();
+        return count == 0 ? 0 : (double) histogram.getSum() / count;
+    }
+
+    private static void writeId(Writer writer, MeterId id) throws IOException {
+        writer.write("{\"name\":" + quote(id.getName()) + ",\"tags\":{");
+        for (int i = 0; i < id.getTagCount(); i++) {
+            writer.write((i > 0 ? "," : "") + quote(id.getTagKey(i)) + ":" + quote(id.getTagValue(i)));
+        }
+        writer.write("}");
+    }
+
+    private static String quote(String value) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
@@ -0,0 +1,44 @@
+package com.udacity.catpoint.image.metrics;
+
+/**
+ * Registry handing out meters with empty methods, which the JIT compiler removes entirely.
+ */
+final class NoopMeterRegistry implements MeterRegistry {
+
+    static final NoopMeterRegistry INSTANCE = new NoopMeterRegistry();
+
+    private static final Counter COUNTER = new Counter() {
+        @Override
+        public void increment() {
+        }
+
+        @Override
+        public long getCount() {
+            return 0;
+        }
+    };
+
+    private static final Histogram HISTOGRAM = new Histogram() {
+        @Override
+        public void record(long value) {
+        }
+
+        @Override
+        public long getCount() {
+            return 0;
+        }
+    };
+
+    private NoopMeterRegistry() {
+    }
+
+    @Override
+    public Counter counter(String name, String... tags) {
+        return COUNTER;
+    }
+
+    @Override
+    public Histogram histogram(String name, String... tags) {
+        return HISTOGRAM;
+    }
+}
@@ -0,0 +1,89 @@
+package com.udacity.catpoint.image.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram counting values in buckets that grow exponentially, four to every power of two, so
+ * percentiles are accurate to within about 25% of the value whatever its size. Recording a value
+ * never allocates or locks.
+ */
+class SimpleHistogram implements Histogram {
+
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = bucketOf(Long.MAX_VALUE) + 1;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    @Override
+    public void record(long value) {
+        value = Math.max(0, value);
+        buckets.incrementAndGet(bucketOf(value));
+        count.increment();
+        sum.add(value);
+        long currentMax;
+        while (value > (currentMax = max.get()) && !max.compareAndSet(currentMax, value)) {
+            //another thread raised the maximum first, try again against it
+        }
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+
+    long getSum() {
+        return sum.sum();
+    }
+
+    long getMax() {
+        return max.get();
+    }
+
+    /**
+     * @param percentile Between 0 and 100
+     * @return Upper bound of the bucket holding the value at the percentile, or 0 if nothing has
+     * been recorded
+     */
+    long getPercentile(double percentile) {
+        long total = 0;
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = buckets.get(i);
+            total += snapshot[i];
+        }
+        long rank = (long) Math.ceil(total * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank && snapshot[i] > 0) {
+                return Math.min(upperBound(i), getMax());
+            }
+        }
+        return 0;
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (magnitude - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (magnitude - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int magnitude = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int subBucket = bucket % SUB_BUCKETS;
+        long lower = (long) (SUB_BUCKETS + subBucket) << (magnitude - SUB_BUCKET_BITS);
+        return lower + (1L << (magnitude - SUB_BUCKET_BITS)) - 1;
+    }
+}
@@ -0,0 +1,54 @@
+package com.udacity.catpoint.image.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registry keeping its meters in memory, to be written out by a {@link MetricsExporter}.
+ * Meters can be updated from any number of threads without contending with each other.
+ */
+public class SimpleMeterRegistry implements MeterRegistry {
+
+    private final Map<MeterId, SimpleCounter> counters = new ConcurrentHashMap<>();
+    private final Map<MeterId, SimpleHistogram> histograms = new ConcurrentHashMap<>();
+
+    @Override
+    public Counter counter(String name, String... tags) {
+        return counters.computeIfAbsent(new MeterId(name, tags), id -> new SimpleCounter());
+    }
+
+    @Override
+    public Histogram histogram(String name, String... tags) {
+        return histograms.computeIfAbsent(new MeterId(name, tags), id -> new SimpleHistogram());
+    }
+
+    /**
+     * @return The counters, sorted by name and tags
+     */
+    Map<MeterId, SimpleCounter> getCounters() {
+        return new TreeMap<>(counters);
+    }
+
+    /**
+     * @return The histograms, sorted by name and tags
+     */
+    Map<MeterId, SimpleHistogram> getHistograms() {
+        return new TreeMap<>(histograms);
+    }
+
+    static class SimpleCounter implements Counter {
+        private final LongAdder count = new LongAdder();
+
+        @Override
+        public void increment() {
+            count.increment();
+        }
+
+        @Override
+        public long getCount() {
+            return count.sum();
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.udacity.catpoint.image.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.image.BufferedImage;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Classifies images on a bounded pool of threads, so callers can have several frames classified
+ * at once without waiting for each. At most a fixed number of images are classified concurrently
+ * and a limited number wait for a thread; anything more is rejected rather than queued without
+ * limit.
+ *
+ * Each request completes exceptionally with a TimeoutException if it takes too long. Cancelling
+ * a request, or a request timing out, interrupts the classification if it has started.
+ */
+public class AsyncImageClassifier implements AutoCloseable {
+
+    /**
+     * How classification requests are given threads.
+     */
+    public enum ExecutionMode {
+        /** A fixed pool with a thread for each image classified at the same time. */
+        PLATFORM_POOL,
+        /**
+         * A new virtual thread for every request, with a semaphore limiting how many classify at
+         * once. Threads blocked on a remote classifier then cost next to nothing, so the limit can
+         * be far higher than a platform pool could afford. Falls back to {@link #PLATFORM_POOL}
+         * on Java versions without virtual threads, so waiting requests never hold a thread.
+         */
+        VIRTUAL_THREADS
+    }
+
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(30);
+    public static final int DEFAULT_QUEUE_CAPACITY = 64;
+
+    /**
+     * System property choosing the {@link ExecutionMode} of classifiers created with defaults.
+     */
+    public static final String EXECUTION_MODE_PROPERTY = "catpoint.imageExecutionMode";
+
+    private final Logger log = LoggerFactory.getLogger(AsyncImageClassifier.class);
+
+    private final ImageService imageService;
+    private final ExecutionMode executionMode;
+    private final ExecutorService executor;
+    private final long timeoutMillis;
+    private final int concurrency;
+    private final int capacity;
+
+    //only used for virtual threads, where the executor itself doesn't limit anything
+    private final Semaphore admitted;
+    private final Semaphore running;
+
+    /**
+     * Creates a classifier using a thread per processor, the default queue and timeout, and the
+     * execution mode named by the {@value #EXECUTION_MODE_PROPERTY} system property.
+     */
+    public AsyncImageClassifier(ImageService imageService) {
+        this(imageService, ExecutionMode.valueOf(System.getProperty(EXECUTION_MODE_PROPERTY, ExecutionMode.PLATFORM_POOL.name())),
+                Runtime.getRuntime().availableProcessors(), DEFAULT_QUEUE_CAPACITY, DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * Creates a classifier with a fixed pool of platform threads.
+     * @param concurrency Maximum number of images classified at the same time
+     * @param queueCapacity Maximum number of images waiting for a thread
+     * @param timeout Time allowed for each request, including the time spent waiting
+     */
+    public AsyncImageClassifier(ImageService imageService, int concurrency, int queueCapacity, Duration timeout) {
+        this(imageService, ExecutionMode.PLATFORM_POOL, concurrency, queueCapacity, timeout);
+    }
+
+    /**
+     * @param concurrency Maximum number of images classified at the same time
+     * @param queueCapacity Maximum number of images waiting to be classified
+     * @param timeout Time allowed for each request, including the time spent waiting
+     */
+    public AsyncImageClassifier(ImageService imageService, ExecutionMode executionMode, int concurrency, int queueCapacity, Duration timeout) {
+        this.imageService = imageService;
+        this.timeoutMillis = timeout.toMillis();
+        this.concurrency = concurrency;
+        this.capacity = concurrency + queueCapacity;
+        ExecutorService virtualThreads = executionMode == ExecutionMode.VIRTUAL_THREADS ? newVirtualThreadPerTaskExecutor() : null;
+        if (virtualThreads != null) {
+            this.executionMode = ExecutionMode.VIRTUAL_THREADS;
+            this.executor = virtualThreads;
+            this.admitted = new Semaphore(capacity);
+            this.running = new Semaphore(concurrency);
+        } else {
+            this.executionMode = ExecutionMode.PLATFORM_POOL;
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(concurrency, concurrency, 30, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                        Thread thread = new Thread(runnable, "image-classifier");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            pool.allowCoreThreadTimeOut(true);
+            this.executor = pool;
+            this.admitted = null;
+            this.running = null;
+        }
+    }
+
+    /**
+     * @return Whether the image contains a cat, or a future that completes exceptionally with a
+     * RejectedExecutionException if too many images are waiting
+     */
+    public CompletableFuture<Boolean> classifyAsync(BufferedImage image, float confidenceThreshhold) {
+        return classifyAsync(imageService, image, confidenceThreshhold);
+    }
+
+    /**
+     * Classifies the image with another image service, such as the view a
+     * {@link CameraScopedImageService} keeps for the camera the image came from, within the
+     * limits of this classifier.
+     * @return Whether the image contains a cat, or a future that completes exceptionally with a
+     * RejectedExecutionException if too many images are waiting
+     */
+    public CompletableFuture<Boolean> classifyAsync(ImageService imageService, BufferedImage image, float confidenceThreshhold) {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        if (admitted != null && !admitted.tryAcquire()) {
+            result.completeExceptionally(new RejectedExecutionException("Too many images waiting to be classified"));
+            return result;
+        }
+        Future<?> task;
+        try {
+            task = executor.submit(() -> classify(imageService, image, confidenceThreshhold, result));
+        } catch (RejectedExecutionException e) {
+            if (admitted != null) {
+                admitted.release();
+            }
+            result.completeExceptionally(e);
+            return result;
+        }
+        result.whenComplete((containsCat, e) -> {
+            if (admitted != null) {
+                admitted.release();
+            }
+            //stop the classification if nobody is waiting for it any more
+            if (e != null) {
+                task.cancel(true);
+            }
+        });
+        return result.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void classify(ImageService imageService, BufferedImage image, float confidenceThreshhold, CompletableFuture<Boolean> result) {
+        if (running == null) {
+            completeWith(imageService, image, confidenceThreshhold, result);
+            return;
+        }
+        try {
+            running.acquire();
+            try {
+                //the request may have timed out while waiting for its turn
+                if (!result.isDone()) {
+                    completeWith(imageService, image, confidenceThreshhold, result);
+                }
+            } finally {
+                running.release();
+            }
+        } catch (InterruptedException ie) {
+            result.cancel(false);
+        }
+    }
+
+    private void completeWith(ImageService imageService, BufferedImage image, float confidenceThreshhold, CompletableFuture<Boolean> result) {
+        try {
+            result.complete(imageService.imageContainsCat(image, confidenceThreshhold));
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Classifies all the images concurrently, within the limits of this classifier. Cancelling the
+     * returned future cancels the images not classified yet.
+     * @return Whether each image contains a cat, in the order of the images
+     */
+    public CompletableFuture<List<Boolean>> classifyBatch(List<BufferedImage> images, float confidenceThreshhold) {
+        List<CompletableFuture<Boolean>> requests = new ArrayList<>(images.size());
+        for (BufferedImage image : images) {
+            requests.add(classifyAsync(image, confidenceThreshhold));
+        }
+
+        CompletableFuture<List<Boolean>> batch = CompletableFuture.allOf(requests.toArray(new CompletableFuture<?>[0]))
+                .thenApply(done -> {
+                    List<Boolean> results = new ArrayList<>(requests.size());
+                    requests.forEach(request -> results.add(request.join()));
+                    return results;
+                });
+        batch.whenComplete((results, e) -> {
+            if (e != null) {
+                requests.forEach(request -> request.cancel(true));
+            }
+        });
+        return batch;
+    }
+
+    /**
+     * @return The execution mode in use, which is {@link ExecutionMode#PLATFORM_POOL} if virtual
+     * threads were asked for on a Java version without them
+     */
+    public ExecutionMode getExecutionMode() {
+        return executionMode;
+    }
+
+    /**
+     * @return Number of images waiting for a thread
+     */
+    public int getQueueDepth() {
+        if (admitted == null) {
+            return ((ThreadPoolExecutor) executor).getQueue().size();
+        }
+        int inFlight = capacity - admitted.availablePermits();
+        int classifying = concurrency - running.availablePermits();
+        return Math.max(0, inFlight - classifying);
+    }
+
+    /**
+     * Stops accepting images and cancels those still being classified.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Looks up the virtual thread executor reflectively, as this code is compiled for a Java
+     * version that predates it.
+     * @return The executor, or null if this Java version has no virtual threads
+     */
+    private ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            log.warn("Virtual threads are not available on Java {}, using a pool of {} platform threads instead",
+                    Runtime.version().feature(), concurrency);
+            return null;
+        }
+    }
+}
@@ -12,9 +12,7 @@ import software.amazon.awssdk.services.rekognition.model.DetectLabelsRequest;
 import software.amazon.awssdk.services.rekognition.model.DetectLabelsResponse;
 import software.amazon.awssdk.services.rekognition.model.Image;
 
-import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Properties;
@@ -40,6 +38,8 @@ public class AwsImageService implements ImageService {
     //aws recommendation is to maintain only a single instance of client objects
     private static RekognitionClient rekognitionClient;
 
+    private final JpegFrameEncoder frameEncoder = new JpegFrameEncoder();
+
     public AwsImageService() {
         Properties props = new Properties();
         try (InputStream is = getClass().getClassLoader().getResourceAsStream("config.properties")) {
@@ -69,9 +69,9 @@ public class AwsImageService implements ImageService {
     @Override
     public boolean imageContainsCat(BufferedImage image, float confidenceThreshhold) {
         Image awsImage = null;
-        try (ByteArrayOutputStream os = new ByteArrayOutputStream()) {
-            ImageIO.write(image, "jpg", os);
-            awsImage = Image.builder().bytes(SdkBytes.fromByteArray(os.toByteArray())).build();
+        try {
+            //the encoded array is never touched again, so the SDK can take it without a copy
+            awsImage = Image.builder().bytes(SdkBytes.fromByteArrayUnsafe(frameEncoder.encode(image))).build();
         } catch (IOException ioe) {
             log.error("Error building image byte array", ioe);
             return false;
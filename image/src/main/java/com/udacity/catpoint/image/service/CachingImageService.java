@@ -0,0 +1,170 @@
+package com.udacity.catpoint.image.service;
+
+import java.awt.image.BufferedImage;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Image service that remembers the verdicts of another image service. Frames are keyed by a
+ * perceptual hash rather than their pixels, so a camera sending the same scene again, with
+ * a little sensor noise or different compression, gets the earlier verdict without the wrapped
+ * service being asked.
+ *
+ * Verdicts are kept per confidence threshold, for a limited time and up to a maximum number,
+ * dropping the least recently used first.
+ */
+public class CachingImageService implements ImageService {
+
+    private final ImageService delegate;
+    private final int maxEntries;
+    private final long timeToLiveMillis;
+    private final int maxHashDistance;
+    private final Clock clock;
+
+    private final LinkedHashMap<CacheKey, CacheEntry> cache;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Creates a cache that only reuses a verdict for frames with the same hash.
+     * @param maxEntries Maximum number of verdicts to keep
+     * @param timeToLive How long a verdict may be reused
+     */
+    public CachingImageService(ImageService delegate, int maxEntries, Duration timeToLive) {
+        this(delegate, maxEntries, timeToLive, 0, Clock.systemUTC());
+    }
+
+    /**
+     * @param maxEntries Maximum number of verdicts to keep
+     * @param timeToLive How long a verdict may be reused
+     * @param maxHashDistance Number of hash bits a frame may differ by and still reuse a verdict.
+     *                        Anything above 0 compares against every cached hash on a miss.
+     * @param clock Clock used to expire verdicts
+     */
+    public CachingImageService(ImageService delegate, int maxEntries, Duration timeToLive, int maxHashDistance, Clock clock) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Cache must hold at least one entry");
+        }
+        this.delegate = delegate;
+        this.maxEntries = maxEntries;
+        this.timeToLiveMillis = timeToLive.toMillis();
+        this.maxHashDistance = maxHashDistance;
+        this.clock = clock;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheKey, CacheEntry> eldest) {
+                if (size() > CachingImageService.this.maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public boolean imageContainsCat(BufferedImage image, float confidenceThreshhold) {
+        CacheKey key = new CacheKey(ImageSampling.differenceHash(image), confidenceThreshhold);
+        long now = clock.millis();
+        synchronized (this) {
+            CacheEntry entry = find(key, now);
+            if (entry != null) {
+                hits++;
+                return entry.containsCat;
+            }
+            misses++;
+        }
+
+        //the wrapped service can be slow, so it is called without holding the lock
+        boolean containsCat = delegate.imageContainsCat(image, confidenceThreshhold);
+        synchronized (this) {
+            cache.put(key, new CacheEntry(containsCat, now + timeToLiveMillis));
+        }
+        return containsCat;
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    /**
+     * @return Number of verdicts dropped to stay within the size limit or because they expired
+     */
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    private CacheEntry find(CacheKey key, long now) {
+        CacheEntry entry = cache.get(key);
+        if (entry != null && entry.expiresAtMillis <= now) {
+            cache.remove(key);
+            evictions++;
+            entry = null;
+        }
+        if (entry != null || maxHashDistance == 0) {
+            return entry;
+        }
+
+        for (Iterator<Map.Entry<CacheKey, CacheEntry>> it = cache.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<CacheKey, CacheEntry> cached = it.next();
+            if (cached.getValue().expiresAtMillis <= now) {
+                it.remove();
+                evictions++;
+            } else if (cached.getKey().threshold == key.threshold
+                    && Long.bitCount(cached.getKey().hash ^ key.hash) <= maxHashDistance) {
+                return cache.get(cached.getKey()); //marks it as recently used
+            }
+        }
+        return null;
+    }
+
+    private static class CacheKey {
+        private final long hash;
+        private final float threshold;
+
+        CacheKey(long hash, float threshold) {
+            this.hash = hash;
+            this.threshold = threshold;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            CacheKey cacheKey = (CacheKey) o;
+            return hash == cacheKey.hash && Float.compare(threshold, cacheKey.threshold) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Long.hashCode(hash) + Float.hashCode(threshold);
+        }
+    }
+
+    private static class CacheEntry {
+        private final boolean containsCat;
+        private final long expiresAtMillis;
+
+        CacheEntry(boolean containsCat, long expiresAtMillis) {
+            this.containsCat = containsCat;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.udacity.catpoint.image.service;
+
+/**
+ * Image service that keeps state between the frames it is shown, such as the last frame it
+ * classified, and so must keep that state for each camera separately. Frames from a camera are
+ * classified with the service returned for that camera.
+ */
+public interface CameraScopedImageService extends ImageService {
+
+    /**
+     * @return Service to classify the frames of the given camera with, created the first time the camera is seen
+     */
+    ImageService forCamera(Object camera);
+
+    /**
+     * Forgets the state kept for the camera.
+     */
+    void removeCamera(Object camera);
+}
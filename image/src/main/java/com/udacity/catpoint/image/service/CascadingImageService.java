@@ -0,0 +1,76 @@
+package com.udacity.catpoint.image.service;
+
+import com.udacity.catpoint.image.metrics.Counter;
+import com.udacity.catpoint.image.metrics.MeterRegistry;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Image service that asks a cheap {@link CatScorer} first and only passes the images it is unsure
+ * about to an expensive image service. Images the scorer is confident contain no cat, or
+ * confident contain one, are answered straight away.
+ *
+ * The two thresholds are on the scorer's scale and apply whatever confidence threshold the
+ * caller asks for; that threshold is only passed on to the expensive service. Each image counts
+ * towards {@code catpoint.image.cascade} with an {@code outcome} of rejected, accepted or
+ * escalated, from which the share of images reaching the expensive service follows.
+ */
+public class CascadingImageService implements ImageService {
+
+    /**
+     * Score below which an image is taken not to contain a cat. Kept low, as a cat missed here
+     * is never seen by the expensive service.
+     */
+    public static final float DEFAULT_REJECT_BELOW = 10.0f;
+    /**
+     * Score from which an image is taken to contain a cat.
+     */
+    public static final float DEFAULT_ACCEPT_FROM = 95.0f;
+
+    private final CatScorer scorer;
+    private final ImageService expensiveService;
+    private final float rejectBelow;
+    private final float acceptFrom;
+    private final Counter rejected;
+    private final Counter accepted;
+    private final Counter escalated;
+
+    public CascadingImageService(CatScorer scorer, ImageService expensiveService, MeterRegistry meterRegistry) {
+        this(scorer, expensiveService, DEFAULT_REJECT_BELOW, DEFAULT_ACCEPT_FROM, meterRegistry);
+    }
+
+    /**
+     * @param rejectBelow Score below which an image is answered as containing no cat
+     * @param acceptFrom Score from which an image is answered as containing a cat
+     * @throws IllegalArgumentException If rejectBelow is greater than acceptFrom
+     */
+    public CascadingImageService(CatScorer scorer, ImageService expensiveService, float rejectBelow, float acceptFrom,
+                                 MeterRegistry meterRegistry) {
+        if (rejectBelow > acceptFrom) {
+            throw new IllegalArgumentException("Images scoring below " + rejectBelow
+                    + " can't be rejected if those from " + acceptFrom + " are accepted");
+        }
+        this.scorer = scorer;
+        this.expensiveService = expensiveService;
+        this.rejectBelow = rejectBelow;
+        this.acceptFrom = acceptFrom;
+        this.rejected = meterRegistry.counter("catpoint.image.cascade", "outcome", "rejected");
+        this.accepted = meterRegistry.counter("catpoint.image.cascade", "outcome", "accepted");
+        this.escalated = meterRegistry.counter("catpoint.image.cascade", "outcome", "escalated");
+    }
+
+    @Override
+    public boolean imageContainsCat(BufferedImage image, float confidenceThreshhold) {
+        float confidence = scorer.catConfidence(image);
+        if (confidence < rejectBelow) {
+            rejected.increment();
+            return false;
+        }
+        if (confidence >= acceptFrom) {
+            accepted.increment();
+            return true;
+        }
+        escalated.increment();
+        return expensiveService.imageContainsCat(image, confidenceThreshhold);
+    }
+}
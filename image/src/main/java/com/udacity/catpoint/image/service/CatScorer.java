@@ -0,0 +1,15 @@
+package com.udacity.catpoint.image.service;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Quick estimate of whether an image contains a cat, used to decide whether a more thorough
+ * image service needs to look at it.
+ */
+public interface CatScorer {
+
+    /**
+     * @return How sure the scorer is that the image contains a cat, from 0 to 100
+     */
+    float catConfidence(BufferedImage image);
+}
@@ -0,0 +1,144 @@
+package com.udacity.catpoint.image.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Weights of the linear classifier used by {@link LocalImageService}. The classifier looks at a
+ * window of the frame described by histograms of oriented gradients (HOG): the window is divided
+ * into cells of 8x8 pixels, each cell has a histogram of its gradient directions in 9 bins, and
+ * each block of 2x2 neighbouring cells is normalized. A window's score is the bias plus the
+ * weighted sum of its block features.
+ *
+ * Models are text files: a {@code window} line giving the width and height of the window in
+ * cells, a {@code bias} line, then {@code weights} followed by the weights of each block, block
+ * rows top to bottom, blocks left to right, cells in the order top left, top right, bottom left,
+ * bottom right. Anything after a # is a comment.
+ *
+ * The module ships a single model, {@value #SAMPLE_RESOURCE}, which is a sample only: its
+ * weights are set by hand to favour strong vertical edges and were never trained on cats. It is
+ * there to try the local classifier out and to measure its speed. Real weights have to be
+ * trained on labelled frames.
+ */
+public final class HogModel {
+
+    /**
+     * Resource name of the sample model bundled with this module, for {@link #loadResource}.
+     */
+    public static final String SAMPLE_RESOURCE = "sample-vertical-edges.model";
+
+    static final int CELL_SIZE = 8;
+    static final int BINS = 9;
+    static final int BLOCK_FEATURES = 4 * BINS;
+
+    private final int windowCellsX;
+    private final int windowCellsY;
+    private final float bias;
+    private final float[] weights;
+
+    HogModel(int windowCellsX, int windowCellsY, float bias, float[] weights) {
+        if (windowCellsX < 2 || windowCellsY < 2) {
+            throw new IllegalArgumentException("A window must be at least 2x2 cells");
+        }
+        int expected = (windowCellsX - 1) * (windowCellsY - 1) * BLOCK_FEATURES;
+        if (weights.length != expected) {
+            throw new IllegalArgumentException("Expected " + expected + " weights for a window of "
+                    + windowCellsX + "x" + windowCellsY + " cells but found " + weights.length);
+        }
+        this.windowCellsX = windowCellsX;
+        this.windowCellsY = windowCellsY;
+        this.bias = bias;
+        this.weights = weights;
+    }
+
+    public static HogModel load(Path file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return read(reader);
+        }
+    }
+
+    /**
+     * Loads a model bundled with this module, such as {@value #SAMPLE_RESOURCE}.
+     * @throws IOException If there is no such model, or it can't be read
+     */
+    public static HogModel loadResource(String name) throws IOException {
+        InputStream input = HogModel.class.getResourceAsStream(name);
+        if (input == null) {
+            throw new IOException("No model resource named " + name);
+        }
+        try (Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8)) {
+            return read(reader);
+        }
+    }
+
+    public static HogModel read(Reader reader) throws IOException {
+        List<String> tokens = new ArrayList<>();
+        BufferedReader lines = new BufferedReader(reader);
+        for (String line = lines.readLine(); line != null; line = lines.readLine()) {
+            int comment = line.indexOf('#');
+            for (String token : (comment < 0 ? line : line.substring(0, comment)).trim().split("\\s+")) {
+                if (!token.isEmpty()) {
+                    tokens.add(token);
+                }
+            }
+        }
+
+        int windowCellsX = 0;
+        int windowCellsY = 0;
+        float bias = 0;
+        float[] weights = null;
+        try {
+            for (int i = 0; i < tokens.size() && weights == null; i++) {
+                switch (tokens.get(i)) {
+                    case "window":
+                        windowCellsX = Integer.parseInt(tokens.get(++i));
+                        windowCellsY = Integer.parseInt(tokens.get(++i));
+                        break;
+                    case "bias":
+                        bias = Float.parseFloat(tokens.get(++i));
+                        break;
+                    case "weights":
+                        weights = new float[tokens.size() - i - 1];
+                        for (int w = 0; w < weights.length; w++) {
+                            weights[w] = Float.parseFloat(tokens.get(i + 1 + w));
+                        }
+                        break;
+                    default:
+                        throw new IOException("Unexpected '" + tokens.get(i) + "' in model");
+                }
+            }
+            if (weights == null) {
+                throw new IOException("Model has no weights");
+            }
+            return new HogModel(windowCellsX, windowCellsY, bias, weights);
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Model ends unexpectedly", e);
+        } catch (IllegalArgumentException e) { //includes NumberFormatException
+            throw new IOException("Invalid model: " + e.getMessage(), e);
+        }
+    }
+
+    int getWindowCellsX() {
+        return windowCellsX;
+    }
+
+    int getWindowCellsY() {
+        return windowCellsY;
+    }
+
+    float getBias() {
+        return bias;
+    }
+
+    float[] getWeights() {
+        return weights;
+    }
+}
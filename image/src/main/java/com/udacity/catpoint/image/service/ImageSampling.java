@@ -0,0 +1,66 @@
+package com.udacity.catpoint.image.service;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Cheap reductions of camera frames, used to decide whether a frame is worth sending to a
+ * classifier at all.
+ */
+final class ImageSampling {
+
+    //samples taken along each axis of a cell, so the cost doesn't grow with the frame size
+    private static final int SAMPLES_PER_CELL = 4;
+
+    private ImageSampling() {
+    }
+
+    /**
+     * Shrinks the image to a grid of gray levels. Each cell is the average luminance of a few
+     * pixels spread evenly over the area of the image it covers.
+     * @param gray Array of at least width * height entries to fill, row by row, with levels from 0 to 255
+     */
+    static void downscaleGray(BufferedImage image, int width, int height, int[] gray) {
+        int imageWidth = image.getWidth();
+        int imageHeight = image.getHeight();
+        for (int cy = 0; cy < height; cy++) {
+            for (int cx = 0; cx < width; cx++) {
+                int sum = 0;
+                for (int sy = 0; sy < SAMPLES_PER_CELL; sy++) {
+                    int y = (int) (((cy * SAMPLES_PER_CELL + sy) * 2L + 1) * imageHeight / (2L * height * SAMPLES_PER_CELL));
+                    for (int sx = 0; sx < SAMPLES_PER_CELL; sx++) {
+                        int x = (int) (((cx * SAMPLES_PER_CELL + sx) * 2L + 1) * imageWidth / (2L * width * SAMPLES_PER_CELL));
+                        sum += luminance(image.getRGB(x, y));
+                    }
+                }
+                gray[cy * width + cx] = sum / (SAMPLES_PER_CELL * SAMPLES_PER_CELL);
+            }
+        }
+    }
+
+    /**
+     * Difference hash of the image: it is shrunk to 9x8 gray levels and each bit records whether a
+     * cell is brighter than its right-hand neighbour. Frames that look alike get hashes that differ
+     * in only a few bits, whatever their size or compression.
+     */
+    static long differenceHash(BufferedImage image) {
+        int[] gray = new int[9 * 8];
+        downscaleGray(image, 9, 8, gray);
+        long hash = 0;
+        for (int y = 0; y < 8; y++) {
+            for (int x = 0; x < 8; x++) {
+                hash <<= 1;
+                if (gray[y * 9 + x] > gray[y * 9 + x + 1]) {
+                    hash |= 1;
+                }
+            }
+        }
+        return hash;
+    }
+
+    private static int luminance(int rgb) {
+        int r = (rgb >> 16) & 0xff;
+        int g = (rgb >> 8) & 0xff;
+        int b = rgb & 0xff;
+        return (r * 77 + g * 150 + b * 29) >> 8;
+    }
+}
@@ -0,0 +1,38 @@
+package com.udacity.catpoint.image.service;
+
+import com.udacity.catpoint.image.metrics.Counter;
+import com.udacity.catpoint.image.metrics.Histogram;
+import com.udacity.catpoint.image.metrics.MeterRegistry;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Image service that records how long another image service takes to classify each image, as
+ * the {@code catpoint.image.classification} histogram, and how many classifications failed.
+ */
+public class InstrumentedImageService implements ImageService {
+
+    private final ImageService delegate;
+    private final Histogram classificationTime;
+    private final Counter failures;
+
+    public InstrumentedImageService(ImageService delegate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        String service = delegate.getClass().getSimpleName();
+        this.classificationTime = meterRegistry.histogram("catpoint.image.classification", "service", service);
+        this.failures = meterRegistry.counter("catpoint.image.classification.failures", "service", service);
+    }
+
+    @Override
+    public boolean imageContainsCat(BufferedImage image, float confidenceThreshhold) {
+        long start = System.nanoTime();
+        try {
+            return delegate.imageContainsCat(image, confidenceThreshhold);
+        } catch (RuntimeException e) {
+            failures.increment();
+            throw e;
+        } finally {
+            classificationTime.record(System.nanoTime() - start);
+        }
+    }
+}
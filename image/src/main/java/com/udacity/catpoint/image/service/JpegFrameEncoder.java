@@ -0,0 +1,218 @@
+package com.udacity.catpoint.image.service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStreamImpl;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Encodes camera frames as JPEG for sending to a remote classifier. A JPEG writer, output buffer
+ * and scaling canvas are taken from a pool for each frame and returned afterwards, so they aren't
+ * created again for every frame, whichever thread encodes it. The pool keeps a bounded number of
+ * idle sets; a set that doesn't fit is disposed of straight away, as is one whose encoding failed.
+ * Frames larger than the classifier can make use of are scaled down first, which makes the
+ * encoding itself cheaper and the encoded frame smaller.
+ */
+public class JpegFrameEncoder {
+
+    /**
+     * Longest side, in pixels, that is worth sending to a label detection service.
+     */
+    public static final int DEFAULT_MAX_DIMENSION = 640;
+    public static final float DEFAULT_QUALITY = 0.8f;
+    public static final int DEFAULT_MAX_IDLE = Runtime.getRuntime().availableProcessors();
+
+    private final int maxDimension;
+    private final float quality;
+    private final BlockingQueue<EncoderState> idle;
+    private final AtomicLong created = new AtomicLong();
+
+    public JpegFrameEncoder() {
+        this(DEFAULT_MAX_DIMENSION, DEFAULT_QUALITY);
+    }
+
+    /**
+     * @param maxDimension Longest side of the encoded image. Larger frames are scaled down to fit.
+     * @param quality JPEG quality between 0 and 1
+     */
+    public JpegFrameEncoder(int maxDimension, float quality) {
+        this(maxDimension, quality, DEFAULT_MAX_IDLE);
+    }
+
+    /**
+     * @param maxIdle Most writers to keep between frames, usually the number of frames encoded at once
+     */
+    public JpegFrameEncoder(int maxDimension, float quality, int maxIdle) {
+        if (maxIdle < 1) {
+            throw new IllegalArgumentException("Must keep at least one idle writer");
+        }
+        this.maxDimension = maxDimension;
+        this.quality = quality;
+        this.idle = new ArrayBlockingQueue<>(maxIdle);
+    }
+
+    /**
+     * @return The encoded image. The array is exactly as long as the encoding, so it can be
+     * handed to the AWS SDK without being copied again.
+     */
+    public byte[] encode(BufferedImage image) throws IOException {
+        EncoderState state = idle.poll();
+        if (state == null) {
+            state = new EncoderState();
+            created.incrementAndGet();
+        }
+        byte[] encoded;
+        try {
+            BufferedImage frame = state.fit(image);
+            state.output.rewind();
+            state.writer.setOutput(state.output);
+            state.param.setCompressionQuality(quality);
+            state.writer.write(null, new IIOImage(frame, null, null), state.param);
+            state.output.flush();
+            encoded = state.output.toByteArray();
+        } catch (IOException | RuntimeException e) {
+            //the writer may be left part way through an image
+            state.writer.dispose();
+            throw e;
+        }
+        if (!idle.offer(state)) {
+            state.writer.dispose();
+        }
+        return encoded;
+    }
+
+    /**
+     * @return Number of writers created so far, which stays at the number of frames encoded at
+     * once while writers are being reused
+     */
+    public long getCreatedCount() {
+        return created.get();
+    }
+
+    /**
+     * @return Number of writers kept for the next frames
+     */
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    /**
+     * Resources reused from one frame to the next, used by one thread at a time.
+     */
+    private class EncoderState {
+        private final ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg").next();
+        private final ImageWriteParam param = writer.getDefaultWriteParam();
+        private final ByteArrayImageOutputStream output = new ByteArrayImageOutputStream();
+        private BufferedImage canvas;
+
+        EncoderState() {
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        }
+
+        /**
+         * @return The image scaled to fit the maximum dimension, in a layout the JPEG writer
+         * handles without converting it first
+         */
+        BufferedImage fit(BufferedImage image) {
+            int width = image.getWidth();
+            int height = image.getHeight();
+            int longest = Math.max(width, height);
+            if (longest > maxDimension) {
+                width = Math.max(1, width * maxDimension / longest);
+                height = Math.max(1, height * maxDimension / longest);
+            } else if (image.getType() == BufferedImage.TYPE_3BYTE_BGR) {
+                return image;
+            }
+
+            if (canvas == null || canvas.getWidth() != width || canvas.getHeight() != height) {
+                canvas = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+            }
+            Graphics2D g = canvas.createGraphics();
+            try {
+                //replace the previous frame's pixels rather than blend over them
+                g.setComposite(AlphaComposite.Src);
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.drawImage(image, 0, 0, width, height, null);
+            } finally {
+                g.dispose();
+            }
+            return canvas;
+        }
+    }
+
+    /**
+     * Image output stream writing into a byte array that grows as needed and is reused.
+     */
+    private static class ByteArrayImageOutputStream extends ImageOutputStreamImpl {
+        private byte[] buffer = new byte[64 * 1024];
+        private int length;
+
+        void rewind() {
+            streamPos = 0;
+            flushedPos = 0;
+            bitOffset = 0;
+            length = 0;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, length);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            flushBits();
+            ensureCapacity(streamPos + 1);
+            buffer[(int) streamPos++] = (byte) b;
+            length = Math.max(length, (int) streamPos);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            flushBits();
+            ensureCapacity(streamPos + len);
+            System.arraycopy(b, off, buffer, (int) streamPos, len);
+            streamPos += len;
+            length = Math.max(length, (int) streamPos);
+        }
+
+        @Override
+        public int read() {
+            if (streamPos >= length) {
+                return -1;
+            }
+            bitOffset = 0;
+            return buffer[(int) streamPos++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (streamPos >= length) {
+                return -1;
+            }
+            bitOffset = 0;
+            int count = Math.min(len, length - (int) streamPos);
+            System.arraycopy(buffer, (int) streamPos, b, off, count);
+            streamPos += count;
+            return count;
+        }
+
+        @Override
+        public long length() {
+            return length;
+        }
+
+        private void ensureCapacity(long capacity) {
+            if (capacity > buffer.length) {
+                buffer = Arrays.copyOf(buffer, (int) Math.max(capacity, buffer.length * 2L));
+            }
+        }
+    }
+}
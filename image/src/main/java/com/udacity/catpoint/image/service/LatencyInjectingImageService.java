@@ -0,0 +1,33 @@
+package com.udacity.catpoint.image.service;
+
+import java.awt.image.BufferedImage;
+import java.time.Duration;
+
+/**
+ * Image service that takes a fixed time to answer before asking another image service, to
+ * stand in for a remote classifier when measuring throughput without calling AWS.
+ */
+public class LatencyInjectingImageService implements ImageService {
+
+    private final ImageService delegate;
+    private final long latencyMillis;
+
+    public LatencyInjectingImageService(ImageService delegate, Duration latency) {
+        this.delegate = delegate;
+        this.latencyMillis = latency.toMillis();
+    }
+
+    /**
+     * @return The wrapped service's answer, or false if interrupted while waiting
+     */
+    @Override
+    public boolean imageContainsCat(BufferedImage image, float confidenceThreshhold) {
+        try {
+            Thread.sleep(latencyMillis);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return delegate.imageContainsCat(image, confidenceThreshhold);
+    }
+}
@@ -0,0 +1,332 @@
+package com.udacity.catpoint.image.service;
+
+import com.udacity.catpoint.image.frame.FramePool;
+import com.udacity.catpoint.image.frame.PooledFrame;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import static com.udacity.catpoint.image.service.HogModel.BINS;
+import static com.udacity.catpoint.image.service.HogModel.BLOCK_FEATURES;
+import static com.udacity.catpoint.image.service.HogModel.CELL_SIZE;
+
+/**
+ * Image service that classifies frames in process, without sending them anywhere. A window the
+ * size of the {@link HogModel} slides over the frame a cell at a time, at a series of scales, and
+ * the frame's confidence is that of the most cat-like window.
+ *
+ * Frames are reduced to gray levels no larger than {@value #WORKING_SIZE} pixels along their
+ * longest side first, so a frame takes a few milliseconds whatever its size. The rows of cells
+ * and windows are shared out between the threads of a fork/join pool.
+ */
+public class LocalImageService implements ImageService, CatScorer {
+
+    static final int WORKING_SIZE = 320;
+
+    //each scale is this much smaller than the last, so a cat is found at whatever size it appears
+    private static final double SCALE_STEP = 1.25;
+    //rows handled by a single task; smaller ranges are not worth handing to another thread
+    private static final int TILE_ROWS = 4;
+
+    /**
+     * Where the direction of each possible gradient falls among the bins, so the arc tangent
+     * isn't worked out for every pixel. Bins are centred on 10, 30, ... 170 degrees, and the
+     * position is offset by half a bin, so a direction under 10 degrees is shared with the last
+     * bin and one over 170 with the first.
+     */
+    private static final float[] BIN_POSITIONS = new float[511 * 511];
+
+    static {
+        for (int gy = -255; gy <= 255; gy++) {
+            for (int gx = -255; gx <= 255; gx++) {
+                double angle = Math.atan2(gy, gx);
+                if (angle < 0) {
+                    angle += Math.PI;
+                }
+                BIN_POSITIONS[(gy + 255) * 511 + gx + 255] = (float) (angle / Math.PI * BINS + 0.5);
+            }
+        }
+    }
+
+    private final HogModel model;
+    private final ForkJoinPool pool;
+    private final FramePool framePool = new FramePool();
+
+    /**
+     * @param model Trained model, for example read with {@link HogModel#load}
+     * @param pool Pool to share the rows of each frame out on
+     */
+    public LocalImageService(HogModel model, ForkJoinPool pool) {
+        this.model = model;
+        this.pool = pool;
+    }
+
+    @Override
+    public boolean imageContainsCat(BufferedImage image, float confidenceThreshhold) {
+        return catConfidence(image) >= confidenceThreshhold;
+    }
+
+    /**
+     * @return How sure the model is that the image contains a cat, from 0 to 100
+     */
+    @Override
+    public float catConfidence(BufferedImage image) {
+        int windowWidth = model.getWindowCellsX() * CELL_SIZE;
+        int windowHeight = model.getWindowCellsY() * CELL_SIZE;
+        float best = Float.NEGATIVE_INFINITY;
+        for (Level level = Level.of(image, framePool); level.width >= windowWidth && level.height >= windowHeight; level = level.shrink()) {
+            best = Math.max(best, bestWindow(level));
+        }
+        if (best == Float.NEGATIVE_INFINITY) {
+            return 0; //too small to hold a window
+        }
+        return (float) (100 / (1 + Math.exp(-best)));
+    }
+
+    /**
+     * @return Score of the highest scoring window at one scale
+     */
+    private float bestWindow(Level level) {
+        int[] pixels = level.pixels;
+        int width = level.width;
+        int height = level.height;
+        int cellsX = width / CELL_SIZE;
+        int cellsY = height / CELL_SIZE;
+        float[] cells = new float[cellsX * cellsY * BINS];
+        pool.invoke(new Tiles(0, cellsY, row -> {
+            cellRow(pixels, width, height, cellsX, row, cells);
+            return 0;
+        }));
+
+        int blocksX = cellsX - 1;
+        int blocksY = cellsY - 1;
+        float[] blocks = new float[blocksX * blocksY * BLOCK_FEATURES];
+        pool.invoke(new Tiles(0, blocksY, row -> {
+            blockRow(cells, cellsX, row, blocks);
+            return 0;
+        }));
+
+        int windowBlocksX = model.getWindowCellsX() - 1;
+        int windowsX = blocksX - windowBlocksX + 1;
+        int windowsY = blocksY - (model.getWindowCellsY() - 1) + 1;
+        return pool.invoke(new Tiles(0, windowsY, row -> bestInRow(blocks, blocksX, windowsX, row)));
+    }
+
+    /**
+     * Adds up the gradients of the pixels in a row of cells into each cell's histogram. Each
+     * gradient is shared between the two bins nearest its direction, in proportion to how near
+     * it is to each, weighted by its magnitude. Directions are unsigned, from 0 to 180 degrees.
+     */
+    private static void cellRow(int[] pixels, int width, int height, int cellsX, int row, float[] cells) {
+        for (int y = row * CELL_SIZE; y < (row + 1) * CELL_SIZE; y++) {
+            int up = Math.max(y - 1, 0) * width;
+            int down = Math.min(y + 1, height - 1) * width;
+            int at = y * width;
+            for (int x = 0; x < cellsX * CELL_SIZE; x++) {
+                int gx = pixels[at + Math.min(x + 1, width - 1)] - pixels[at + Math.max(x - 1, 0)];
+                int gy = pixels[down + x] - pixels[up + x];
+                if (gx == 0 && gy == 0) {
+                    continue;
+                }
+                float magnitude = (float) Math.sqrt(gx * gx + gy * gy);
+                float position = BIN_POSITIONS[(gy + 255) * 511 + gx + 255];
+                int high = (int) position;
+                float fraction = position - high;
+                int cell = (row * cellsX + x / CELL_SIZE) * BINS;
+                cells[cell + (high == 0 ? BINS - 1 : high - 1)] += magnitude * (1 - fraction);
+                cells[cell + (high == BINS ? 0 : high)] += magnitude * fraction;
+            }
+        }
+    }
+
+    /**
+     * Gathers each block of 2x2 cells in a row and normalizes it, so features depend on the shape
+     * of edges rather than on contrast. Uses L2-Hys: scale to unit length, clip each feature at
+     * 0.2 so no single strong edge dominates, and scale to unit length again.
+     */
+    private static void blockRow(float[] cells, int cellsX, int row, float[] blocks) {
+        int blocksX = cellsX - 1;
+        for (int bx = 0; bx < blocksX; bx++) {
+            int block = (row * blocksX + bx) * BLOCK_FEATURES;
+            System.arraycopy(cells, (row * cellsX + bx) * BINS, blocks, block, 2 * BINS);
+            System.arraycopy(cells, ((row + 1) * cellsX + bx) * BINS, blocks, block + 2 * BINS, 2 * BINS);
+            normalize(blocks, block);
+            for (int i = block; i < block + BLOCK_FEATURES; i++) {
+                blocks[i] = Math.min(blocks[i], 0.2f);
+            }
+            normalize(blocks, block);
+        }
+    }
+
+    private static void normalize(float[] blocks, int block) {
+        float sum = 1e-6f;
+        for (int i = block; i < block + BLOCK_FEATURES; i++) {
+            sum += blocks[i] * blocks[i];
+        }
+        float scale = (float) (1 / Math.sqrt(sum));
+        for (int i = block; i < block + BLOCK_FEATURES; i++) {
+            blocks[i] *= scale;
+        }
+    }
+
+    /**
+     * @return Score of the highest scoring window whose top edge is on the given row of blocks
+     */
+    private float bestInRow(float[] blocks, int blocksX, int windowsX, int row) {
+        float[] weights = model.getWeights();
+        //a row of blocks in a window, like the weights for it, is one run of consecutive features
+        int rowLength = (model.getWindowCellsX() - 1) * BLOCK_FEATURES;
+        int windowBlocksY = model.getWindowCellsY() - 1;
+        float best = Float.NEGATIVE_INFINITY;
+        for (int wx = 0; wx < windowsX; wx++) {
+            float score = model.getBias();
+            for (int r = 0; r < windowBlocksY; r++) {
+                score += dot(blocks, ((row + r) * blocksX + wx) * BLOCK_FEATURES, weights, r * rowLength, rowLength);
+            }
+            best = Math.max(best, score);
+        }
+        return best;
+    }
+
+    /**
+     * Dot product of two runs of features. Keeps four partial sums so each addition doesn't wait
+     * for the one before, which lets the JIT keep several multiply-adds in flight.
+     *
+     * There is deliberately no jdk.incubator.vector version. This module is compiled for Java 14,
+     * which doesn't have the module, so not even a static requirement on it can be declared. A
+     * multi-release class would also need the module added with --add-modules at every launch,
+     * and the incubator API has changed from one release to the next.
+     */
+    private static float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (; i + 3 < length; i += 4) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+            s1 += a[aOffset + i + 1] * b[bOffset + i + 1];
+            s2 += a[aOffset + i + 2] * b[bOffset + i + 2];
+            s3 += a[aOffset + i + 3] * b[bOffset + i + 3];
+        }
+        for (; i < length; i++) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * A frame in gray levels from 0 to 255 at one of the scales searched.
+     */
+    private static final class Level {
+        private final int width;
+        private final int height;
+        private final int[] pixels;
+
+        private Level(int width, int height, int[] pixels) {
+            this.width = width;
+            this.height = height;
+            this.pixels = pixels;
+        }
+
+        /**
+         * Reduces a frame to the working size. Sampling the nearest pixels at twice the size and
+         * averaging each 2x2 square smooths almost as well as bilinear filtering, at a fraction
+         * of the cost with Java2D. The samples are drawn into a canvas from the pool, replacing
+         * whatever an earlier frame left there rather than blending over it, so frames with
+         * transparency don't show the last frame through.
+         */
+        static Level of(BufferedImage image, FramePool framePool) {
+            double scale = Math.min(1.0, (double) WORKING_SIZE / Math.max(image.getWidth(), image.getHeight()));
+            int width = Math.max(1, (int) (image.getWidth() * scale));
+            int height = Math.max(1, (int) (image.getHeight() * scale));
+            int[] pixels = new int[width * height];
+            try (PooledFrame sampled = framePool.acquire(width * 2, height * 2, BufferedImage.TYPE_BYTE_GRAY)) {
+                Graphics2D g = sampled.getImage().createGraphics();
+                try {
+                    g.setComposite(AlphaComposite.Src);
+                    g.drawImage(image, 0, 0, width * 2, height * 2, null);
+                } finally {
+                    g.dispose();
+                }
+                byte[] samples = ((DataBufferByte) sampled.getImage().getRaster().getDataBuffer()).getData();
+                for (int y = 0; y < height; y++) {
+                    int top = y * 2 * width * 2;
+                    int bottom = top + width * 2;
+                    for (int x = 0; x < width; x++) {
+                        pixels[y * width + x] = ((samples[top + 2 * x] & 0xff) + (samples[top + 2 * x + 1] & 0xff)
+                                + (samples[bottom + 2 * x] & 0xff) + (samples[bottom + 2 * x + 1] & 0xff) + 2) >> 2;
+                    }
+                }
+            }
+            return new Level(width, height, pixels);
+        }
+
+        /**
+         * @return This level shrunk by the scale step, interpolating bilinearly
+         */
+        Level shrink() {
+            int newWidth = (int) (width / SCALE_STEP);
+            int newHeight = (int) (height / SCALE_STEP);
+            //every row samples the same columns, so work them out once
+            int[] left = new int[newWidth];
+            float[] rightShare = new float[newWidth];
+            for (int x = 0; x < newWidth; x++) {
+                float sx = (float) Math.min((x + 0.5) * SCALE_STEP - 0.5, width - 1);
+                left[x] = (int) sx;
+                rightShare[x] = sx - left[x];
+            }
+            int[] shrunk = new int[newWidth * newHeight];
+            for (int y = 0; y < newHeight; y++) {
+                float sy = (float) Math.min((y + 0.5) * SCALE_STEP - 0.5, height - 1);
+                int top = (int) sy * width;
+                int bottom = Math.min((int) sy + 1, height - 1) * width;
+                float bottomShare = sy - (int) sy;
+                for (int x = 0; x < newWidth; x++) {
+                    int x0 = left[x];
+                    int x1 = Math.min(x0 + 1, width - 1);
+                    float upper = pixels[top + x0] + (pixels[top + x1] - pixels[top + x0]) * rightShare[x];
+                    float lower = pixels[bottom + x0] + (pixels[bottom + x1] - pixels[bottom + x0]) * rightShare[x];
+                    shrunk[y * newWidth + x] = (int) (upper + (lower - upper) * bottomShare + 0.5f);
+                }
+            }
+            return new Level(newWidth, newHeight, shrunk);
+        }
+    }
+
+    private interface RowTask {
+        float run(int row);
+    }
+
+    /**
+     * Runs a task for a range of rows, splitting the range in half until it is small enough for
+     * one thread, and returns the largest result.
+     */
+    private static class Tiles extends RecursiveTask<Float> {
+        private final int from;
+        private final int to;
+        private final RowTask task;
+
+        Tiles(int from, int to, RowTask task) {
+            this.from = from;
+            this.to = to;
+            this.task = task;
+        }
+
+        @Override
+        protected Float compute() {
+            if (to - from <= TILE_ROWS) {
+                float best = Float.NEGATIVE_INFINITY;
+                for (int row = from; row < to; row++) {
+                    best = Math.max(best, task.run(row));
+                }
+                return best;
+            }
+            int middle = (from + to) >>> 1;
+            Tiles top = new Tiles(from, middle, task);
+            top.fork();
+            float bottom = new Tiles(middle, to, task).compute();
+            return Math.max(top.join(), bottom);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.udacity.catpoint.image.service;
+
+import java.awt.image.BufferedImage;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Image service that only asks another image service about frames that show something new.
+ * Each frame is shrunk to a small grid of gray levels and compared with the last frame that was
+ * classified. If too few cells changed, nothing moved and the previous verdict is returned.
+ *
+ * Frames are compared with the last classified frame rather than the previous one, so a scene
+ * that changes slowly is still classified once the change adds up. Frames are only compared with
+ * frames of the same camera: each camera has its own gate, from {@link #forCamera}, and frames
+ * given to this service directly share a gate of their own.
+ *
+ * A gate is only locked while a frame is compared with its reference, never while the wrapped
+ * service classifies it, so frames are classified concurrently. A frame that arrives while the
+ * verdict on its reference is still being worked out is classified too.
+ */
+public class MotionGatingImageService implements CameraScopedImageService {
+
+    public static final double DEFAULT_CHANGED_RATIO = 0.02;
+    public static final int DEFAULT_PIXEL_DELTA = 24;
+
+    private static final int GRID_WIDTH = 64;
+    private static final int GRID_HEIGHT = 48;
+
+    private final ImageService delegate;
+    private final double changedRatio;
+    private final int pixelDelta;
+
+    private final Gate unnamedCamera = new Gate();
+    private final Map<Object, Gate> cameras = new ConcurrentHashMap<>();
+    private final AtomicLong forwarded = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+
+    public MotionGatingImageService(ImageService delegate) {
+        this(delegate, DEFAULT_CHANGED_RATIO, DEFAULT_PIXEL_DELTA);
+    }
+
+    /**
+     * @param changedRatio Fraction of the downscaled pixels that must change for a frame to be classified
+     * @param pixelDelta Difference in gray level, out of 255, for a downscaled pixel to count as changed
+     */
+    public MotionGatingImageService(ImageService delegate, double changedRatio, int pixelDelta) {
+        this.delegate = delegate;
+        this.changedRatio = changedRatio;
+        this.pixelDelta = pixelDelta;
+    }
+
+    @Override
+    public boolean imageContainsCat(BufferedImage image, float confidenceThreshhold) {
+        return unnamedCamera.imageContainsCat(image, confidenceThreshhold);
+    }
+
+    @Override
+    public ImageService forCamera(Object camera) {
+        return cameras.computeIfAbsent(camera, key -> new Gate());
+    }
+
+    @Override
+    public void removeCamera(Object camera) {
+        cameras.remove(camera);
+    }
+
+    /**
+     * @return Number of frames passed on to the wrapped service, from all cameras
+     */
+    public long getForwardedCount() {
+        return forwarded.get();
+    }
+
+    /**
+     * @return Number of frames answered with the previous verdict, from all cameras
+     */
+    public long getSkippedCount() {
+        return skipped.get();
+    }
+
+    /**
+     * Reference frame and verdict of one camera.
+     */
+    private class Gate implements ImageService {
+        private int[] reference = new int[GRID_WIDTH * GRID_HEIGHT]; //guarded by this
+        private int[] current = new int[GRID_WIDTH * GRID_HEIGHT]; //guarded by this
+        private boolean hasReference; //guarded by this
+        private long referenceNumber; //guarded by this, incremented whenever the reference is replaced
+        private float lastThreshold; //guarded by this
+        private boolean verdictKnown; //guarded by this, false while the reference is being classified
+        private boolean lastVerdict; //guarded by this
+
+        @Override
+        public boolean imageContainsCat(BufferedImage image, float confidenceThreshhold) {
+            long comparedWith;
+            synchronized (this) {
+                ImageSampling.downscaleGray(image, GRID_WIDTH, GRID_HEIGHT, current);
+                boolean unchanged = hasReference && lastThreshold == confidenceThreshhold && changedFraction() < changedRatio;
+                if (unchanged && verdictKnown) {
+                    skipped.incrementAndGet();
+                    return lastVerdict;
+                }
+                if (!unchanged) {
+                    int[] swap = reference;
+                    reference = current;
+                    current = swap;
+                    hasReference = true;
+                    lastThreshold = confidenceThreshhold;
+                    verdictKnown = false;
+                    referenceNumber++;
+                }
+                comparedWith = referenceNumber;
+            }
+
+            forwarded.incrementAndGet();
+            boolean verdict = delegate.imageContainsCat(image, confidenceThreshhold);
+            synchronized (this) {
+                //a later frame may have moved the reference on while this one was classified
+                if (referenceNumber == comparedWith) {
+                    lastVerdict = verdict;
+                    verdictKnown = true;
+                }
+            }
+            return verdict;
+        }
+
+        private double changedFraction() {
+            int changed = 0;
+            for (int i = 0; i < current.length; i++) {
+                if (Math.abs(current[i] - reference[i]) > pixelDelta) {
+                    changed++;
+                }
+            }
+            return (double) changed / current.length;
+        }
+    }
+}
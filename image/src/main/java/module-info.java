@@ -1,9 +1,15 @@
 module com.udacity.catpoint.image {
     exports com.udacity.catpoint.image.service to com.udacity.catpoint.security, com.udacity.catpoint.app;
+    exports com.udacity.catpoint.image.metrics to com.udacity.catpoint.security, com.udacity.catpoint.app;
+    exports com.udacity.catpoint.image.frame to com.udacity.catpoint.security, com.udacity.catpoint.app;
     requires software.amazon.awssdk.auth;
     requires software.amazon.awssdk.core;
     requires software.amazon.awssdk.regions;
     requires software.amazon.awssdk.services.rekognition;
     requires java.desktop;
     requires slf4j.api;
-}
\ No newline at end of file
+
+    opens com.udacity.catpoint.image.service;
+    opens com.udacity.catpoint.image.metrics;
+    opens com.udacity.catpoint.image.frame;
+}
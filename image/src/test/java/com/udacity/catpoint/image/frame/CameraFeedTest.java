@@ -0,0 +1,58 @@
+package com.udacity.catpoint.image.frame;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CameraFeedTest {
+
+    private static final int FRAMES = 20;
+
+    private final FramePool framePool = new FramePool();
+
+    /**
+     * Sends its frames as fast as they are asked for, each marked with its number.
+     */
+    private final CameraSource fastSource = new CameraSource() {
+        private int sent;
+
+        @Override
+        public PooledFrame nextFrame() {
+            if (sent == FRAMES) {
+                return null;
+            }
+            PooledFrame frame = framePool.acquire(8, 8, BufferedImage.TYPE_INT_RGB);
+            frame.getImage().setRGB(0, 0, sent++);
+            return frame;
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    @Test
+    void start_consumerSlowerThanCamera_staleFramesDroppedAndLatestProcessed() throws InterruptedException {
+        List<Integer> seen = new ArrayList<>();
+        CameraFeed feed = new CameraFeed(fastSource, image -> {
+            seen.add(image.getRGB(0, 0) & 0xffffff);
+            try {
+                Thread.sleep(30);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "test");
+
+        feed.start();
+        feed.awaitEnd();
+
+        assertEquals(FRAMES, feed.getReceivedCount());
+        assertTrue(feed.getDroppedCount() > 0);
+        assertEquals(FRAMES, feed.getProcessedCount() + feed.getDroppedCount());
+        assertEquals(FRAMES - 1, (int) seen.get(seen.size() - 1));
+    }
+}
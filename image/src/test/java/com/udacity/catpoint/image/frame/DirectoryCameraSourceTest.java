@@ -0,0 +1,47 @@
+package com.udacity.catpoint.image.frame;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DirectoryCameraSourceTest {
+
+    @TempDir
+    Path directory;
+
+    private void writeFrame(String name, int number) throws IOException {
+        BufferedImage image = new BufferedImage(8, 8, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, number);
+        ImageIO.write(image, "png", directory.resolve(name).toFile());
+    }
+
+    @Test
+    void nextFrame_corruptFileInMiddle_skippedAndLaterFramesRead() throws IOException {
+        writeFrame("frame-1.png", 1);
+        Files.write(directory.resolve("frame-2.png"), new byte[] {(byte) 0x89, 'P', 'N', 'G', 0, 1, 2, 3});
+        Files.write(directory.resolve("frame-3.jpg"), new byte[] {1, 2, 3, 4});
+        writeFrame("frame-4.png", 4);
+        Files.write(directory.resolve("notes.txt"), new byte[] {1});
+
+        List<Integer> numbers = new ArrayList<>();
+        try (DirectoryCameraSource source = new DirectoryCameraSource(directory, new FramePool())) {
+            PooledFrame frame;
+            while ((frame = source.nextFrame()) != null) {
+                numbers.add(frame.getImage().getRGB(0, 0) & 0xffffff);
+                frame.release();
+            }
+
+            assertEquals(List.of(1, 4), numbers);
+            assertEquals(2, source.getSkippedCount());
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.udacity.catpoint.image.frame;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FramePoolTest {
+
+    private static byte[] png(Color color) throws IOException {
+        BufferedImage image = new BufferedImage(64, 48, BufferedImage.TYPE_3BYTE_BGR);
+        Graphics2D g = image.createGraphics();
+        g.setColor(color);
+        g.fillRect(0, 0, 64, 48);
+        g.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private static PooledFrame read(FramePool pool, byte[] encoded) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(encoded))) {
+            return pool.read(input);
+        }
+    }
+
+    @Test
+    void acquire_frameReleased_sameImageReused() {
+        FramePool pool = new FramePool(FramePool.DEFAULT_MAX_POOLED_BYTES, false);
+        PooledFrame first = pool.acquire(640, 480, BufferedImage.TYPE_INT_RGB);
+        BufferedImage image = first.getImage();
+        first.release();
+
+        PooledFrame second = pool.acquire(640, 480, BufferedImage.TYPE_INT_RGB);
+
+        assertSame(image, second.getImage());
+        assertEquals(1, pool.getAllocatedCount());
+        assertEquals(1, pool.getReusedCount());
+    }
+
+    @Test
+    void release_alreadyReleased_throwsIllegalStateException() {
+        PooledFrame frame = new FramePool().acquire(64, 48, BufferedImage.TYPE_INT_RGB);
+        frame.release();
+
+        assertThrows(IllegalStateException.class, frame::release);
+        assertThrows(IllegalStateException.class, frame::getImage);
+        frame.close();
+    }
+
+    @Test
+    void release_poolFull_frameNotKept() {
+        FramePool pool = new FramePool(640 * 480 * 4, false);
+        PooledFrame first = pool.acquire(640, 480, BufferedImage.TYPE_INT_RGB);
+        PooledFrame second = pool.acquire(640, 480, BufferedImage.TYPE_INT_RGB);
+        first.release();
+        second.release();
+
+        assertEquals(640 * 480 * 4, pool.getPooledBytes());
+    }
+
+    @Test
+    void read_frameReleased_nextImageDecodedIntoSameFrame() throws IOException {
+        FramePool pool = new FramePool(FramePool.DEFAULT_MAX_POOLED_BYTES, false);
+        PooledFrame red = read(pool, png(Color.RED));
+        BufferedImage image = red.getImage();
+        assertEquals(Color.RED.getRGB(), image.getRGB(10, 10));
+        red.release();
+
+        PooledFrame blue = read(pool, png(Color.BLUE));
+
+        assertSame(image, blue.getImage());
+        assertEquals(Color.BLUE.getRGB(), image.getRGB(10, 10));
+    }
+
+    @Test
+    void acquire_frameNeverReleased_leakCounted() throws InterruptedException {
+        FramePool pool = new FramePool(FramePool.DEFAULT_MAX_POOLED_BYTES, true);
+        pool.acquire(64, 48, BufferedImage.TYPE_INT_RGB);
+
+        for (int i = 0; i < 50 && pool.getLeakedCount() == 0; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+
+        assertEquals(1, pool.getLeakedCount());
+    }
+}
@@ -0,0 +1,84 @@
+package com.udacity.catpoint.image.frame;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.IIOException;
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MjpegCameraSourceTest {
+
+    private final FramePool framePool = new FramePool();
+
+    private static byte[] jpeg(Color color) throws IOException {
+        BufferedImage image = new BufferedImage(64, 48, BufferedImage.TYPE_3BYTE_BGR);
+        Graphics2D g = image.createGraphics();
+        g.setColor(color);
+        g.fillRect(0, 0, 64, 48);
+        g.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Adds an application segment holding what looks like a whole JPEG image, as a thumbnail
+     * in camera metadata would.
+     */
+    private static byte[] withThumbnail(byte[] jpeg) {
+        byte[] segment = {(byte) 0xff, (byte) 0xe5, 0, 10, 't', 'h', (byte) 0xff, (byte) 0xd8, 1, 2, (byte) 0xff, (byte) 0xd9};
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(jpeg, 0, 2);
+        out.write(segment, 0, segment.length);
+        out.write(jpeg, 2, jpeg.length - 2);
+        return out.toByteArray();
+    }
+
+    private static byte[] multipart(byte[]... images) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] image : images) {
+            byte[] header = "--frame\r\nContent-Type: image/jpeg\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+            out.write(header, 0, header.length);
+            out.write(image, 0, image.length);
+            out.write('\r');
+            out.write('\n');
+        }
+        return out.toByteArray();
+    }
+
+    private static int red(PooledFrame frame) {
+        return (frame.getImage().getRGB(32, 24) >> 16) & 0xff;
+    }
+
+    @Test
+    void nextFrame_multipartStream_everyImageDecodedInOrder() throws IOException {
+        byte[] stream = multipart(jpeg(Color.RED), withThumbnail(jpeg(Color.BLACK)), jpeg(Color.RED));
+
+        try (MjpegCameraSource source = new MjpegCameraSource(new ByteArrayInputStream(stream), framePool)) {
+            for (int expectedRed : new int[]{255, 0, 255}) {
+                try (PooledFrame frame = source.nextFrame()) {
+                    assertEquals(expectedRed, red(frame), 8);
+                }
+            }
+            assertNull(source.nextFrame());
+        }
+    }
+
+    @Test
+    void nextFrame_streamEndsWithinImage_throwsIIOException() throws IOException {
+        byte[] jpeg = jpeg(Color.RED);
+        byte[] truncated = Arrays.copyOf(jpeg, jpeg.length / 2);
+
+        MjpegCameraSource source = new MjpegCameraSource(new ByteArrayInputStream(truncated), framePool);
+
+        assertThrows(IIOException.class, source::nextFrame);
+    }
+}
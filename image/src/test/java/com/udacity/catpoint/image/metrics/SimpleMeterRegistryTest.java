@@ -0,0 +1,60 @@
+package com.udacity.catpoint.image.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SimpleMeterRegistryTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void counter_sameNameAndTags_sameCounterReturned() {
+        registry.counter("transitions", "from", "NO_ALARM", "to", "ALARM").increment();
+        registry.counter("transitions", "from", "NO_ALARM", "to", "ALARM").increment();
+        registry.counter("transitions", "from", "ALARM", "to", "NO_ALARM").increment();
+
+        assertEquals(2, registry.counter("transitions", "from", "NO_ALARM", "to", "ALARM").getCount());
+    }
+
+    @Test
+    void histogram_uniformValues_percentilesWithinBucketPrecision() {
+        Histogram histogram = registry.histogram("latency");
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+
+        SimpleHistogram recorded = (SimpleHistogram) histogram;
+        assertEquals(1000, recorded.getCount());
+        assertEquals(1_000_000, recorded.getMax());
+        assertEquals(500_000, recorded.getPercentile(50), 500_000 * 0.25);
+        assertEquals(990_000, recorded.getPercentile(99), 990_000 * 0.25);
+        assertTrue(recorded.getPercentile(99) <= recorded.getMax());
+    }
+
+    @Test
+    void writeJson_countersAndHistograms_allMetersWritten() throws IOException {
+        registry.counter("catpoint.sensor.activations").increment();
+        registry.histogram("catpoint.repository.write", "operation", "updateSensor").record(42);
+        StringWriter json = new StringWriter();
+
+        new MetricsExporter(registry).writeJson(json);
+
+        assertEquals("{\"counters\":[{\"name\":\"catpoint.sensor.activations\",\"tags\":{},\"count\":1}],"
+                + "\"histograms\":[{\"name\":\"catpoint.repository.write\",\"tags\":{\"operation\":\"updateSensor\"},"
+                + "\"count\":1,\"mean\":42.0,\"max\":42,\"p50\":42,\"p95\":42,\"p99\":42}]}\n", json.toString());
+    }
+
+    @Test
+    void noop_meters_recordNothing() {
+        MeterRegistry noop = MeterRegistry.noop();
+        noop.counter("catpoint.sensor.activations").increment();
+        noop.histogram("catpoint.image.classification").record(42);
+
+        assertEquals(0, noop.counter("catpoint.sensor.activations").getCount());
+        assertEquals(0, noop.histogram("catpoint.image.classification").getCount());
+    }
+}
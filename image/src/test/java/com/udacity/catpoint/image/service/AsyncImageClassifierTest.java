@@ -0,0 +1,169 @@
+package com.udacity.catpoint.image.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class AsyncImageClassifierTest {
+
+    private static final BufferedImage IMAGE = new BufferedImage(8, 8, BufferedImage.TYPE_INT_RGB);
+
+    private static final int CONCURRENCY = 4;
+    private static final int IMAGES = 40;
+
+    private static final boolean VIRTUAL_THREADS_AVAILABLE = Runtime.version().feature() >= 21;
+
+    /**
+     * Classifies a batch with a service that holds every image until the concurrency limit has
+     * been reached, then checks that the limit was reached and never exceeded.
+     */
+    private static void assertConcurrencyLimited(AsyncImageClassifier.ExecutionMode executionMode) throws Exception {
+        AtomicInteger classifying = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        CountDownLatch limitReached = new CountDownLatch(CONCURRENCY);
+        ImageService heldService = (image, threshold) -> {
+            peak.accumulateAndGet(classifying.incrementAndGet(), Math::max);
+            limitReached.countDown();
+            try {
+                //nothing finishes until the limit is reached, so the limit is reached however the threads are scheduled
+                limitReached.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            classifying.decrementAndGet();
+            return true;
+        };
+
+        try (AsyncImageClassifier classifier = new AsyncImageClassifier(heldService, executionMode, CONCURRENCY, IMAGES,
+                Duration.ofSeconds(10))) {
+            List<Boolean> results = classifier.classifyBatch(Collections.nCopies(IMAGES, IMAGE), 50.0f).get();
+
+            assertEquals(Collections.nCopies(IMAGES, true), results);
+            assertEquals(0, limitReached.getCount());
+            assertTrue(peak.get() <= CONCURRENCY, "peak of " + peak.get() + " images classified at once");
+        }
+    }
+
+    @Test
+    void classifyBatch_moreImagesThanThreads_classifiedConcurrentlyUpToLimit() throws Exception {
+        assertConcurrencyLimited(AsyncImageClassifier.ExecutionMode.PLATFORM_POOL);
+    }
+
+    @Test
+    void classifyAsync_slowerThanTimeout_timesOutAndInterruptsClassification() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        ImageService stuckService = (image, threshold) -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return true;
+        };
+
+        try (AsyncImageClassifier classifier = new AsyncImageClassifier(stuckService, 1, 1, Duration.ofMillis(50))) {
+            CompletableFuture<Boolean> result = classifier.classifyAsync(IMAGE, 50.0f);
+
+            ExecutionException e = assertThrows(ExecutionException.class, result::get);
+            assertTrue(e.getCause() instanceof TimeoutException);
+            assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void classifyAsync_queueFull_rejected() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ImageService blockedService = (image, threshold) -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return true;
+        };
+
+        try (AsyncImageClassifier classifier = new AsyncImageClassifier(blockedService, 1, 1, Duration.ofSeconds(10))) {
+            List<CompletableFuture<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                results.add(classifier.classifyAsync(IMAGE, 50.0f));
+            }
+            release.countDown();
+
+            assertTrue(results.get(0).get());
+            assertTrue(results.get(1).get());
+            assertTrue(results.get(2).isCompletedExceptionally());
+        }
+    }
+
+    @Test
+    void classifyAsync_virtualThreads_concurrencyLimitedBySemaphore() throws Exception {
+        assertConcurrencyLimited(AsyncImageClassifier.ExecutionMode.VIRTUAL_THREADS);
+    }
+
+    @Test
+    void classifyAsync_virtualThreadsAvailable_classifiedOnVirtualThread() throws Exception {
+        assumeTrue(VIRTUAL_THREADS_AVAILABLE);
+        AtomicReference<Thread> classifiedOn = new AtomicReference<>();
+        ImageService recordingService = (image, threshold) -> {
+            classifiedOn.set(Thread.currentThread());
+            return true;
+        };
+
+        try (AsyncImageClassifier classifier = new AsyncImageClassifier(recordingService,
+                AsyncImageClassifier.ExecutionMode.VIRTUAL_THREADS, 1, 1, Duration.ofSeconds(10))) {
+            assertEquals(AsyncImageClassifier.ExecutionMode.VIRTUAL_THREADS, classifier.getExecutionMode());
+            assertTrue(classifier.classifyAsync(IMAGE, 50.0f).get());
+            //looked up reflectively, as the tests are compiled for a Java version without virtual threads
+            assertEquals(true, Thread.class.getMethod("isVirtual").invoke(classifiedOn.get()));
+        }
+    }
+
+    @Test
+    void classifyAsync_virtualThreadsUnavailable_waitingRequestsHoldNoThread() throws Exception {
+        assumeFalse(VIRTUAL_THREADS_AVAILABLE);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Thread> classifiedOn = Collections.synchronizedList(new ArrayList<>());
+        ImageService blockedService = (image, threshold) -> {
+            classifiedOn.add(Thread.currentThread());
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return true;
+        };
+
+        try (AsyncImageClassifier classifier = new AsyncImageClassifier(blockedService,
+                AsyncImageClassifier.ExecutionMode.VIRTUAL_THREADS, 1, 2, Duration.ofSeconds(10))) {
+            assertEquals(AsyncImageClassifier.ExecutionMode.PLATFORM_POOL, classifier.getExecutionMode());
+            List<CompletableFuture<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(classifier.classifyAsync(IMAGE, 50.0f));
+            }
+            //one classifying, two waiting in the queue rather than parked on threads of their own, one rejected
+            assertEquals(2, classifier.getQueueDepth());
+            assertTrue(results.get(3).isCompletedExceptionally());
+            release.countDown();
+
+            for (int i = 0; i < 3; i++) {
+                assertTrue(results.get(i).get());
+            }
+            assertEquals(1, classifiedOn.stream().distinct().count());
+        }
+    }
+}
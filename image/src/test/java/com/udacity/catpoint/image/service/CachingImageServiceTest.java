@@ -0,0 +1,105 @@
+package com.udacity.catpoint.image.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CachingImageServiceTest {
+
+    private int classifications;
+
+    private final ImageService countingService = (image, confidenceThreshhold) -> {
+        classifications++;
+        return true;
+    };
+
+    private static BufferedImage frame(int shade) {
+        BufferedImage image = new BufferedImage(320, 240, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setPaint(new GradientPaint(0, 0, Color.BLACK, 320, 0, new Color(shade, shade, shade)));
+        g.fillRect(0, 0, 320, 240);
+        g.setColor(Color.WHITE);
+        g.fillOval(100, 60, 80, 80);
+        g.dispose();
+        return image;
+    }
+
+    @Test
+    void imageContainsCat_sameSceneWithNoise_classifiedOnce() {
+        CachingImageService service = new CachingImageService(countingService, 16, Duration.ofMinutes(1), 4, Clock.systemUTC());
+        BufferedImage noisy = frame(255);
+        noisy.setRGB(10, 10, Color.RED.getRGB());
+        noisy.setRGB(300, 200, Color.GREEN.getRGB());
+
+        assertTrue(service.imageContainsCat(frame(255), 50.0f));
+        assertTrue(service.imageContainsCat(noisy, 50.0f));
+        assertEquals(1, classifications);
+        assertEquals(1, service.getHitCount());
+
+        //the same scene at a different threshold needs its own verdict
+        service.imageContainsCat(frame(255), 90.0f);
+        assertEquals(2, classifications);
+    }
+
+    @Test
+    void imageContainsCat_verdictExpired_classifiedAgain() {
+        MutableClock clock = new MutableClock();
+        CachingImageService service = new CachingImageService(countingService, 16, Duration.ofSeconds(5), 0, clock);
+
+        service.imageContainsCat(frame(255), 50.0f);
+        clock.advance(Duration.ofSeconds(4));
+        service.imageContainsCat(frame(255), 50.0f);
+        clock.advance(Duration.ofSeconds(2));
+        service.imageContainsCat(frame(255), 50.0f);
+
+        assertEquals(2, classifications);
+        assertEquals(1, service.getEvictionCount());
+    }
+
+    @Test
+    void imageContainsCat_cacheFull_leastRecentlyUsedEvicted() {
+        CachingImageService service = new CachingImageService(countingService, 2, Duration.ofMinutes(1));
+
+        service.imageContainsCat(frame(255), 10.0f);
+        service.imageContainsCat(frame(255), 20.0f);
+        service.imageContainsCat(frame(255), 10.0f);
+        service.imageContainsCat(frame(255), 30.0f);
+        service.imageContainsCat(frame(255), 10.0f);
+        service.imageContainsCat(frame(255), 20.0f);
+
+        assertEquals(4, classifications);
+        assertEquals(2, service.size());
+        assertEquals(2, service.getEvictionCount());
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now = Instant.EPOCH;
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.udacity.catpoint.image.service;
+
+import com.udacity.catpoint.image.metrics.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CascadingImageServiceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final BufferedImage image = new BufferedImage(8, 8, BufferedImage.TYPE_INT_RGB);
+
+    private int expensiveCalls;
+    private float passedThreshold;
+
+    private final ImageService expensiveService = (image, confidenceThreshhold) -> {
+        expensiveCalls++;
+        passedThreshold = confidenceThreshhold;
+        return true;
+    };
+
+    private CascadingImageService cascade(float score) {
+        return new CascadingImageService(image -> score, expensiveService, 10.0f, 90.0f, meterRegistry);
+    }
+
+    private long count(String outcome) {
+        return meterRegistry.counter("catpoint.image.cascade", "outcome", outcome).getCount();
+    }
+
+    @Test
+    void imageContainsCat_confidentScores_answeredWithoutExpensiveService() {
+        assertFalse(cascade(2.0f).imageContainsCat(image, 50.0f));
+        assertTrue(cascade(90.0f).imageContainsCat(image, 50.0f));
+
+        assertEquals(0, expensiveCalls);
+        assertEquals(1, count("rejected"));
+        assertEquals(1, count("accepted"));
+    }
+
+    @Test
+    void imageContainsCat_uncertainScore_escalatedWithCallersThreshold() {
+        assertTrue(cascade(10.0f).imageContainsCat(image, 65.0f));
+
+        assertEquals(1, expensiveCalls);
+        assertEquals(65.0f, passedThreshold);
+        assertEquals(1, count("escalated"));
+    }
+
+    @Test
+    void constructor_rejectAboveAccept_throwsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new CascadingImageService(image -> 0, expensiveService, 60.0f, 40.0f, meterRegistry));
+    }
+}
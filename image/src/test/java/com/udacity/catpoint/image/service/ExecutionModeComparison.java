@@ -0,0 +1,55 @@
+package com.udacity.catpoint.image.service;
+
+import com.udacity.catpoint.image.service.AsyncImageClassifier.ExecutionMode;
+
+import java.awt.image.BufferedImage;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Compares classifying many slow, I/O-bound requests on a fixed pool of platform threads with
+ * a virtual thread per request limited by a semaphore. The classifier is simulated with a
+ * latency-injecting image service, so no AWS calls are made. Virtual threads need Java 21 or
+ * later, and the comparison stops rather than measure the platform fallback twice. Run the main
+ * method directly:
+ *      java -cp image/target/classes:image/target/test-classes com.udacity.catpoint.image.service.ExecutionModeComparison [requests] [latencyMillis]
+ */
+public class ExecutionModeComparison {
+
+    private static final int PLATFORM_POOL_SIZE = 64;
+    private static final int VIRTUAL_CONCURRENCY = 2_000;
+
+    public static void main(String[] args) throws Exception {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        Duration latency = Duration.ofMillis(args.length > 1 ? Long.parseLong(args[1]) : 100);
+        ImageService remoteClassifier = new LatencyInjectingImageService(new FakeImageService(), latency);
+
+        System.out.printf("%d requests, %d ms simulated latency, Java %d%n", requests, latency.toMillis(), Runtime.version().feature());
+        run("platform pool of " + PLATFORM_POOL_SIZE, remoteClassifier, ExecutionMode.PLATFORM_POOL, PLATFORM_POOL_SIZE, requests);
+        run("virtual threads, " + VIRTUAL_CONCURRENCY + " permits", remoteClassifier, ExecutionMode.VIRTUAL_THREADS, VIRTUAL_CONCURRENCY, requests);
+    }
+
+    private static void run(String name, ImageService imageService, ExecutionMode mode, int concurrency, int requests) throws Exception {
+        BufferedImage frame = new BufferedImage(64, 48, BufferedImage.TYPE_INT_RGB);
+        try (AsyncImageClassifier classifier = new AsyncImageClassifier(imageService, mode, concurrency, requests, Duration.ofMinutes(10))) {
+            if (classifier.getExecutionMode() != mode) {
+                throw new IllegalStateException(mode + " is not available on Java " + Runtime.version().feature()
+                        + ", so there is nothing to compare; run on Java 21 or later");
+            }
+            int peakThreads = Thread.activeCount();
+            long start = System.nanoTime();
+            List<CompletableFuture<Boolean>> results = new ArrayList<>(requests);
+            for (int i = 0; i < requests; i++) {
+                results.add(classifier.classifyAsync(frame, 50.0f));
+                peakThreads = Math.max(peakThreads, Thread.activeCount());
+            }
+            CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])).join();
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            System.out.printf("%-32s %8.2f s %10.0f requests/s   peak platform threads %d%n",
+                    name, seconds, requests / seconds, peakThreads);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.udacity.catpoint.image.service;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+/**
+ * Compares the bytes allocated and time taken per frame by the original encoding in
+ * AwsImageService with the pooled {@link JpegFrameEncoder}. Run the main method directly, e.g.
+ * from the IDE or with the test classpath:
+ *      java -cp image/target/classes:image/target/test-classes com.udacity.catpoint.image.service.JpegFrameEncoderBenchmark
+ */
+public class JpegFrameEncoderBenchmark {
+
+    private static final int WARMUP_FRAMES = 200;
+    private static final int MEASURED_FRAMES = 500;
+
+    interface FrameEncoding {
+        byte[] encode(BufferedImage image) throws IOException;
+    }
+
+    public static void main(String[] args) throws Exception {
+        BufferedImage frame = cameraFrame(1920, 1080);
+        JpegFrameEncoder encoder = new JpegFrameEncoder();
+
+        run("ImageIO.write + toByteArray + copy", frame, image -> {
+            ByteArrayOutputStream os = new ByteArrayOutputStream();
+            ImageIO.write(image, "jpg", os);
+            byte[] bytes = os.toByteArray();
+            return Arrays.copyOf(bytes, bytes.length); //SdkBytes.fromByteArray copies again
+        });
+        run("JpegFrameEncoder", frame, encoder::encode);
+    }
+
+    private static void run(String name, BufferedImage frame, FrameEncoding encoding) throws Exception {
+        long size = 0;
+        for (int i = 0; i < WARMUP_FRAMES; i++) {
+            size += encoding.encode(frame).length;
+        }
+
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_FRAMES; i++) {
+            size += encoding.encode(frame).length;
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = allocatedBytes() - allocatedBefore;
+
+        System.out.printf("%-36s %10.1f KB allocated/frame %8.2f ms/frame (%d bytes encoded)%n",
+                name, allocated / 1024.0 / MEASURED_FRAMES, elapsed / 1e6 / MEASURED_FRAMES, size / (WARMUP_FRAMES + MEASURED_FRAMES));
+    }
+
+    /**
+     * Bytes allocated so far by the current thread. The HotSpot bean is looked up reflectively
+     * because the image module doesn't read jdk.management.
+     */
+    private static long allocatedBytes() throws Exception {
+        Object threadBean = Class.forName("java.lang.management.ManagementFactory").getMethod("getThreadMXBean").invoke(null);
+        Method allocatedBytes = Class.forName("com.sun.management.ThreadMXBean").getMethod("getThreadAllocatedBytes", long.class);
+        return (long) allocatedBytes.invoke(threadBean, Thread.currentThread().getId());
+    }
+
+    private static BufferedImage cameraFrame(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setPaint(new GradientPaint(0, 0, Color.DARK_GRAY, width, height, Color.LIGHT_GRAY));
+        g.fillRect(0, 0, width, height);
+        g.setColor(Color.ORANGE);
+        g.fillOval(width / 3, height / 3, width / 5, height / 4);
+        g.dispose();
+        return image;
+    }
+}
@@ -0,0 +1,116 @@
+package com.udacity.catpoint.image.service;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JpegFrameEncoderTest {
+
+    private static BufferedImage frame(int width, int height, int type) {
+        BufferedImage image = new BufferedImage(width, height, type);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.ORANGE);
+        g.fillRect(0, 0, width, height);
+        g.dispose();
+        return image;
+    }
+
+    @Test
+    void encode_largeFrame_scaledToMaxDimension() throws IOException {
+        JpegFrameEncoder encoder = new JpegFrameEncoder();
+
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(encoder.encode(frame(1920, 1080, BufferedImage.TYPE_INT_RGB))));
+
+        assertEquals(640, decoded.getWidth());
+        assertEquals(360, decoded.getHeight());
+    }
+
+    @Test
+    void encode_framesOfDifferentSizes_eachEncodingComplete() throws IOException {
+        JpegFrameEncoder encoder = new JpegFrameEncoder();
+
+        byte[] large = encoder.encode(frame(1280, 960, BufferedImage.TYPE_INT_ARGB));
+        byte[] small = encoder.encode(frame(200, 100, BufferedImage.TYPE_3BYTE_BGR));
+
+        assertEquals(640, ImageIO.read(new ByteArrayInputStream(large)).getWidth());
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(small));
+        assertEquals(200, decoded.getWidth());
+        assertEquals(100, decoded.getHeight());
+        //the buffer is reused, so a shorter encoding must not carry bytes of the previous one
+        assertTrue(small.length < large.length);
+    }
+
+    @Test
+    void encode_translucentFrameAfterOpaqueFrame_earlierFrameNotShownThrough() throws IOException {
+        BufferedImage translucent = new BufferedImage(1280, 960, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = translucent.createGraphics();
+        g.setColor(new Color(255, 255, 255, 32));
+        g.fillRect(0, 0, 1280, 960);
+        g.dispose();
+        JpegFrameEncoder fresh = new JpegFrameEncoder();
+        JpegFrameEncoder used = new JpegFrameEncoder();
+
+        //the orange frame is left in the canvas the translucent frame is scaled into next
+        used.encode(frame(1280, 960, BufferedImage.TYPE_INT_RGB));
+
+        assertArrayEquals(fresh.encode(translucent), used.encode(translucent));
+    }
+
+    @Test
+    void encode_eachFrameOnNewThread_writerReused() throws Exception {
+        JpegFrameEncoder encoder = new JpegFrameEncoder(640, 0.8f, 2);
+
+        for (int i = 0; i < 5; i++) {
+            Thread request = new Thread(() -> {
+                try {
+                    encoder.encode(frame(320, 240, BufferedImage.TYPE_INT_RGB));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            request.start();
+            request.join();
+        }
+
+        assertEquals(1, encoder.getCreatedCount());
+        assertEquals(1, encoder.getIdleCount());
+    }
+
+    @Test
+    void encode_moreFramesAtOnceThanKept_idleWritersBounded() throws Exception {
+        int threads = 4;
+        JpegFrameEncoder encoder = new JpegFrameEncoder(640, 0.8f, 2);
+        CyclicBarrier start = new CyclicBarrier(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<byte[]>> encodings = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                encodings.add(executor.submit(() -> {
+                    start.await();
+                    return encoder.encode(frame(1280, 960, BufferedImage.TYPE_INT_RGB));
+                }));
+            }
+            for (Future<byte[]> encoding : encodings) {
+                assertEquals(640, ImageIO.read(new ByteArrayInputStream(encoding.get())).getWidth());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertTrue(encoder.getIdleCount() <= 2);
+        assertTrue(encoder.getCreatedCount() <= threads);
+    }
+}
@@ -0,0 +1,120 @@
+package com.udacity.catpoint.image.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LocalImageServiceTest {
+
+    private static final int WEIGHTS = 7 * 7 * HogModel.BLOCK_FEATURES;
+
+    /**
+     * A model that only likes vertical edges, whose gradients point along the x axis and so fall
+     * in the first and last bins.
+     */
+    private static HogModel verticalEdgeModel() {
+        float[] weights = new float[WEIGHTS];
+        for (int i = 0; i < WEIGHTS; i += HogModel.BINS) {
+            weights[i] = 1;
+            weights[i + HogModel.BINS - 1] = 1;
+        }
+        return new HogModel(8, 8, -5, weights);
+    }
+
+    private static BufferedImage stripes() {
+        BufferedImage image = new BufferedImage(640, 480, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.WHITE);
+        for (int x = 0; x < 640; x += 16) {
+            g.fillRect(x, 0, 8, 480);
+        }
+        g.dispose();
+        return image;
+    }
+
+    @Test
+    void imageContainsCat_featuresMatchModel_catDetected() {
+        LocalImageService service = new LocalImageService(verticalEdgeModel(), ForkJoinPool.commonPool());
+
+        assertTrue(service.imageContainsCat(stripes(), 50.0f));
+        assertFalse(service.imageContainsCat(new BufferedImage(640, 480, BufferedImage.TYPE_INT_RGB), 50.0f));
+    }
+
+    @Test
+    void catConfidence_singleOrManyThreads_sameConfidence() {
+        Random random = new Random(7);
+        float[] weights = new float[WEIGHTS];
+        for (int i = 0; i < WEIGHTS; i++) {
+            weights[i] = (float) random.nextGaussian();
+        }
+        HogModel model = new HogModel(8, 8, 0, weights);
+        BufferedImage image = new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < 600; y++) {
+            for (int x = 0; x < 800; x++) {
+                image.setRGB(x, y, random.nextInt());
+            }
+        }
+
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool many = new ForkJoinPool(4);
+        try {
+            assertEquals(new LocalImageService(model, single).catConfidence(image),
+                    new LocalImageService(model, many).catConfidence(image));
+        } finally {
+            single.shutdown();
+            many.shutdown();
+        }
+    }
+
+    @Test
+    void catConfidence_translucentFrameAfterOpaqueFrame_earlierFrameNotShownThrough() {
+        BufferedImage translucent = new BufferedImage(640, 480, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = translucent.createGraphics();
+        g.setColor(new Color(255, 255, 255, 32));
+        g.fillRect(0, 0, 640, 480);
+        g.dispose();
+        LocalImageService fresh = new LocalImageService(verticalEdgeModel(), ForkJoinPool.commonPool());
+        LocalImageService used = new LocalImageService(verticalEdgeModel(), ForkJoinPool.commonPool());
+
+        //the stripes are left in the pooled canvas the translucent frame is drawn into next
+        assertTrue(used.imageContainsCat(stripes(), 50.0f));
+
+        assertFalse(used.imageContainsCat(translucent, 50.0f));
+        assertEquals(fresh.catConfidence(translucent), used.catConfidence(translucent));
+    }
+
+    @Test
+    void imageContainsCat_imageSmallerThanWindow_noCat() {
+        LocalImageService service = new LocalImageService(verticalEdgeModel(), ForkJoinPool.commonPool());
+
+        assertFalse(service.imageContainsCat(new BufferedImage(32, 32, BufferedImage.TYPE_INT_RGB), 1.0f));
+    }
+
+    @Test
+    void loadResource_sampleModel_scoresLikeVerticalEdgeModel() throws IOException {
+        LocalImageService sample = new LocalImageService(HogModel.loadResource(HogModel.SAMPLE_RESOURCE), ForkJoinPool.commonPool());
+        LocalImageService built = new LocalImageService(verticalEdgeModel(), ForkJoinPool.commonPool());
+
+        assertEquals(built.catConfidence(stripes()), sample.catConfidence(stripes()));
+        assertTrue(sample.imageContainsCat(stripes(), 50.0f));
+    }
+
+    @Test
+    void loadResource_noSuchModel_throwsIOException() {
+        assertThrows(IOException.class, () -> HogModel.loadResource("missing.model"));
+    }
+
+    @Test
+    void read_wrongNumberOfWeights_throwsIOException() {
+        String model = "# too few weights\nwindow 8 8\nbias 1.5\nweights 0.1 0.2 0.3\n";
+
+        assertThrows(IOException.class, () -> HogModel.read(new StringReader(model)));
+    }
+}
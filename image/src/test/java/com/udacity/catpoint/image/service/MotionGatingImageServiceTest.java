@@ -0,0 +1,110 @@
+package com.udacity.catpoint.image.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MotionGatingImageServiceTest {
+
+    private int classifications;
+
+    private final ImageService countingService = (image, confidenceThreshhold) -> ++classifications % 2 == 1;
+
+    private static BufferedImage frame(int catX) {
+        BufferedImage image = new BufferedImage(640, 480, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.DARK_GRAY);
+        g.fillRect(0, 0, 640, 480);
+        g.setColor(Color.ORANGE);
+        g.fillOval(catX, 200, 120, 90);
+        g.dispose();
+        return image;
+    }
+
+    @Test
+    void imageContainsCat_staticScene_previousVerdictReturned() {
+        MotionGatingImageService service = new MotionGatingImageService(countingService);
+
+        assertTrue(service.imageContainsCat(frame(100), 50.0f));
+        for (int i = 0; i < 10; i++) {
+            assertTrue(service.imageContainsCat(frame(100), 50.0f));
+        }
+
+        assertEquals(1, classifications);
+        assertEquals(10, service.getSkippedCount());
+    }
+
+    @Test
+    void imageContainsCat_objectMoved_frameClassified() {
+        MotionGatingImageService service = new MotionGatingImageService(countingService);
+
+        service.imageContainsCat(frame(100), 50.0f);
+        assertFalse(service.imageContainsCat(frame(400), 50.0f));
+
+        assertEquals(2, service.getForwardedCount());
+    }
+
+    @Test
+    void forCamera_twoCamerasShowingDifferentScenes_eachComparedWithItsOwnFrames() {
+        MotionGatingImageService service = new MotionGatingImageService(countingService);
+        ImageService frontDoor = service.forCamera("front door");
+        ImageService backyard = service.forCamera("backyard");
+
+        assertTrue(frontDoor.imageContainsCat(frame(100), 50.0f));
+        assertFalse(backyard.imageContainsCat(frame(400), 50.0f));
+        for (int i = 0; i < 5; i++) {
+            assertTrue(frontDoor.imageContainsCat(frame(100), 50.0f));
+            assertFalse(backyard.imageContainsCat(frame(400), 50.0f));
+        }
+
+        assertEquals(2, classifications);
+        assertEquals(10, service.getSkippedCount());
+    }
+
+    @Test
+    void forCamera_sameScene_verdictNotSharedBetweenCameras() {
+        MotionGatingImageService service = new MotionGatingImageService(countingService);
+
+        assertTrue(service.forCamera("front door").imageContainsCat(frame(100), 50.0f));
+        assertFalse(service.forCamera("backyard").imageContainsCat(frame(100), 50.0f));
+
+        assertEquals(2, service.getForwardedCount());
+    }
+
+    @Test
+    void forCamera_wrappedServiceBusy_otherCameraStillClassified() throws Exception {
+        CountDownLatch busy = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        MotionGatingImageService service = new MotionGatingImageService((image, confidenceThreshhold) -> {
+            if (image.getRGB(0, 0) == Color.RED.getRGB()) {
+                busy.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return true;
+        });
+        BufferedImage held = frame(100);
+        held.setRGB(0, 0, Color.RED.getRGB());
+
+        CompletableFuture<Boolean> frontDoor = CompletableFuture.supplyAsync(() -> service.forCamera("front door").imageContainsCat(held, 50.0f));
+        try {
+            assertTrue(busy.await(10, TimeUnit.SECONDS));
+            //neither this camera's gate nor the other camera's is held while the front door frame is classified
+            assertTrue(service.forCamera("backyard").imageContainsCat(frame(400), 50.0f));
+            assertTrue(service.forCamera("front door").imageContainsCat(frame(400), 50.0f));
+        } finally {
+            release.countDown();
+        }
+        assertTrue(frontDoor.get(10, TimeUnit.SECONDS));
+        assertEquals(3, service.getForwardedCount());
+    }
+}
@@ -0,0 +1,10 @@
+package com.udacity.catpoint.security.application;
+
+/**
+ * How a sensor changed, as reported to {@link StatusListener#sensorChanged}.
+ */
+public enum SensorChangeType {
+    ADDED,
+    UPDATED,
+    REMOVED
+}
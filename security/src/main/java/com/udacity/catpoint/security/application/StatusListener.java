@@ -1,6 +1,7 @@
 package com.udacity.catpoint.security.application;
 
 import com.udacity.catpoint.security.data.AlarmStatus;
+import com.udacity.catpoint.security.data.Sensor;
 
 /**
  * Identifies a component that should be notified whenever the system status changes
@@ -9,4 +10,10 @@ public interface StatusListener {
     void notify(AlarmStatus status);
     void catDetected(boolean catDetected);
     void sensorStatusChanged();
+    /**
+     * Called for each sensor that was added, removed or changed, so a listener showing sensors
+     * only has to update that one. Does nothing unless overridden.
+     */
+    default void sensorChanged(Sensor sensor, SensorChangeType changeType) {
+    }
 }
@@ -0,0 +1,45 @@
+package com.udacity.catpoint.security.data;
+
+import java.util.UUID;
+
+/**
+ * Camera POJO. Frames are reported per camera, so each camera's view of the cat is tracked separately.
+ */
+public class Camera {
+    private UUID cameraId;
+    private String name;
+
+    public Camera(String name) {
+        this.name = name;
+        this.cameraId = UUID.randomUUID();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Camera camera = (Camera) o;
+        return cameraId.equals(camera.cameraId);
+    }
+
+    @Override
+    public int hashCode() {
+        return cameraId.hashCode();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public UUID getCameraId() {
+        return cameraId;
+    }
+
+    public void setCameraId(UUID cameraId) {
+        this.cameraId = cameraId;
+    }
+}
@@ -0,0 +1,133 @@
+package com.udacity.catpoint.security.data;
+
+import com.udacity.catpoint.image.metrics.Histogram;
+import com.udacity.catpoint.image.metrics.MeterRegistry;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Repository that records how long each write to another repository takes, as the
+ * {@code catpoint.repository.write} histogram tagged with the operation. Reads are passed
+ * straight through.
+ */
+public class InstrumentedSecurityRepository implements SecurityRepository {
+
+    private final SecurityRepository delegate;
+    private final Histogram addSensorTime;
+    private final Histogram removeSensorTime;
+    private final Histogram updateSensorTime;
+    private final Histogram updateSensorsTime;
+    private final Histogram setAlarmStatusTime;
+    private final Histogram setArmingStatusTime;
+
+    public InstrumentedSecurityRepository(SecurityRepository delegate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.addSensorTime = writeTime(meterRegistry, "addSensor");
+        this.removeSensorTime = writeTime(meterRegistry, "removeSensor");
+        this.updateSensorTime = writeTime(meterRegistry, "updateSensor");
+        this.updateSensorsTime = writeTime(meterRegistry, "updateSensors");
+        this.setAlarmStatusTime = writeTime(meterRegistry, "setAlarmStatus");
+        this.setArmingStatusTime = writeTime(meterRegistry, "setArmingStatus");
+    }
+
+    private Histogram writeTime(MeterRegistry meterRegistry, String operation) {
+        return meterRegistry.histogram("catpoint.repository.write",
+                "repository", delegate.getClass().getSimpleName(), "operation", operation);
+    }
+
+    @Override
+    public void addSensor(Sensor sensor) {
+        long start = System.nanoTime();
+        try {
+            delegate.addSensor(sensor);
+        } finally {
+            addSensorTime.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void removeSensor(Sensor sensor) {
+        long start = System.nanoTime();
+        try {
+            delegate.removeSensor(sensor);
+        } finally {
+            removeSensorTime.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void updateSensor(Sensor sensor) {
+        long start = System.nanoTime();
+        try {
+            delegate.updateSensor(sensor);
+        } finally {
+            updateSensorTime.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void updateSensors(Collection<Sensor> sensors) {
+        long start = System.nanoTime();
+        try {
+            delegate.updateSensors(sensors);
+        } finally {
+            updateSensorsTime.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void setAlarmStatus(AlarmStatus alarmStatus) {
+        long start = System.nanoTime();
+        try {
+            delegate.setAlarmStatus(alarmStatus);
+        } finally {
+            setAlarmStatusTime.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void setArmingStatus(ArmingStatus armingStatus) {
+        long start = System.nanoTime();
+        try {
+            delegate.setArmingStatus(armingStatus);
+        } finally {
+            setArmingStatusTime.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Set<Sensor> getSensors() {
+        return delegate.getSensors();
+    }
+
+    @Override
+    public Set<Sensor> getActiveSensors() {
+        return delegate.getActiveSensors();
+    }
+
+    @Override
+    public Set<Sensor> getSensorsByType(SensorType sensorType) {
+        return delegate.getSensorsByType(sensorType);
+    }
+
+    @Override
+    public int getSensorCount() {
+        return delegate.getSensorCount();
+    }
+
+    @Override
+    public int getActiveSensorCount() {
+        return delegate.getActiveSensorCount();
+    }
+
+    @Override
+    public AlarmStatus getAlarmStatus() {
+        return delegate.getAlarmStatus();
+    }
+
+    @Override
+    public ArmingStatus getArmingStatus() {
+        return delegate.getArmingStatus();
+    }
+}
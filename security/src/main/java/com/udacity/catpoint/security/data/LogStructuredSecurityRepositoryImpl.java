@@ -0,0 +1,534 @@
+package com.udacity.catpoint.security.data;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Repository implementation that keeps the system state in memory and persists it as an
+ * append-only log of changes. Every mutation appends one small delta record rather than
+ * rewriting all the sensors, and buffered records are written and fsync'd together on a
+ * background thread. Once enough records have accumulated, the log is compacted into a
+ * {@link SensorSnapshot}. On startup only the snapshot header and the status records in the
+ * log are read; the sensors themselves are materialized from the mapped snapshot and the
+ * log the first time they are needed. Until then, and as long as the log holds no sensor
+ * changes, the sensor counts come from the snapshot header.
+ *
+ * Each log starts with its generation, and each snapshot records the generation of the log that
+ * continues from it. A log left behind by a compaction that didn't finish truncating it is older
+ * than the snapshot, and is skipped rather than replayed over the newer state.
+ *
+ * Records stay buffered until they are safely on disk, so a failed write is retried on the next
+ * group commit.
+ */
+public class LogStructuredSecurityRepositoryImpl implements SecurityRepository, Closeable {
+
+    private final Logger log = LoggerFactory.getLogger(LogStructuredSecurityRepositoryImpl.class);
+
+    //record types
+    private static final byte ADD_SENSOR = 1;
+    private static final byte REMOVE_SENSOR = 2;
+    private static final byte UPDATE_SENSOR = 3;
+    private static final byte ALARM_STATUS = 4;
+    private static final byte ARMING_STATUS = 5;
+    private static final byte SENSOR_ACTIVATION = 6;
+    private static final byte LOG_GENERATION = 7;
+
+    //each record is framed by its payload length and a CRC32 of the payload, so a torn write can be detected
+    private static final int RECORD_HEADER_BYTES = 8;
+
+    public static final String LOG_FILE = "sensors.log";
+    public static final String SNAPSHOT_FILE = "sensors.snapshot";
+
+    public static final long DEFAULT_COMMIT_INTERVAL_MILLIS = 50;
+    public static final int DEFAULT_COMPACTION_THRESHOLD = 10_000;
+
+    private final Path logFile;
+    private final Path snapshotFile;
+    private final int compactionThreshold;
+    private final FileChannel logChannel;
+    private final ScheduledExecutorService flusher;
+    private long logGeneration; //guarded by the lock on logChannel
+
+    private SensorTable sensors;
+    //state that has not yet been materialized into sensors
+    private SensorSnapshot snapshot;
+    private ByteBuffer unappliedLog;
+    private boolean unappliedSensorChanges; //whether the log changes sensors the snapshot holds
+
+    //read without the lock
+    private volatile AlarmStatus alarmStatus = AlarmStatus.NO_ALARM;
+    private volatile ArmingStatus armingStatus = ArmingStatus.DISARMED;
+
+    //records waiting for the next group commit. The flusher swaps the two buffers instead of allocating.
+    private ByteBuffer pending = ByteBuffer.allocate(4096);
+    private ByteBuffer spare = ByteBuffer.allocate(4096);
+    private int recordsSinceSnapshot;
+    private final CRC32 crc = new CRC32();
+
+    public LogStructuredSecurityRepositoryImpl() {
+        this(Paths.get(System.getProperty("user.home"), ".catpoint"));
+    }
+
+    public LogStructuredSecurityRepositoryImpl(Path directory) {
+        this(directory, DEFAULT_COMMIT_INTERVAL_MILLIS, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    /**
+     * @param directory Directory holding the log and snapshot files. Created if it does not exist.
+     * @param commitIntervalMillis How often buffered records are written and forced to disk
+     * @param compactionThreshold Number of log records after which the log is folded into a new snapshot
+     */
+    public LogStructuredSecurityRepositoryImpl(Path directory, long commitIntervalMillis, int compactionThreshold) {
+        this.logFile = directory.resolve(LOG_FILE);
+        this.snapshotFile = directory.resolve(SNAPSHOT_FILE);
+        this.compactionThreshold = compactionThreshold;
+
+        try {
+            Files.createDirectories(directory);
+            if (Files.exists(snapshotFile)) {
+                snapshot = SensorSnapshot.open(snapshotFile);
+                alarmStatus = snapshot.getAlarmStatus();
+                armingStatus = snapshot.getArmingStatus();
+                logGeneration = snapshot.getLogGeneration();
+            }
+            unappliedLog = ByteBuffer.wrap(Files.exists(logFile) ? Files.readAllBytes(logFile) : new byte[0]);
+            long validLength;
+            long generation = generationOf(unappliedLog);
+            if (generation < logGeneration) {
+                if (unappliedLog.hasRemaining()) {
+                    log.warn("Skipping {}, which is already folded into {}", logFile, snapshotFile);
+                }
+                unappliedLog = ByteBuffer.allocate(0);
+                validLength = 0;
+            } else {
+                logGeneration = generation;
+                validLength = replay(unappliedLog, null);
+            }
+
+            logChannel = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            if (logChannel.size() > validLength) {
+                if (validLength > 0) {
+                    log.warn("Discarding {} bytes of incomplete records at the end of {}", logChannel.size() - validLength, logFile);
+                }
+                logChannel.truncate(validLength);
+            }
+            logChannel.position(validLength);
+            if (validLength == 0) {
+                startLog();
+            }
+        } catch (IOException ioe) {
+            throw new UncheckedIOException("Unable to open sensor log in " + directory, ioe);
+        }
+
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "sensor-log-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::commit, commitIntervalMillis, commitIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void addSensor(Sensor sensor) {
+        sensors().put(sensor);
+        appendSensor(ADD_SENSOR, sensor);
+    }
+
+    @Override
+    public synchronized void removeSensor(Sensor sensor) {
+        sensors().remove(sensor.getSensorId());
+        appendSensorId(REMOVE_SENSOR, sensor.getSensorId(), false);
+    }
+
+    /**
+     * Updates the sensor. When only its activation changed, which is by far the most common
+     * update, a small activation record is logged and nothing is allocated.
+     */
+    @Override
+    public synchronized void updateSensor(Sensor sensor) {
+        appendUpdate(sensor);
+    }
+
+    /**
+     * Updates the sensors under one lock, so their records are buffered together and reach the
+     * log in the same group commit.
+     */
+    @Override
+    public synchronized void updateSensors(Collection<Sensor> sensors) {
+        for (Sensor sensor : sensors) {
+            appendUpdate(sensor);
+        }
+    }
+
+    private void appendUpdate(Sensor sensor) {
+        SensorTable table = sensors();
+        int row = table.indexOf(sensor.getSensorId());
+        //same view, name and type as the table already holds, so only the activation can differ
+        if (row != SensorTable.NO_ROW && table.getSensor(row) == sensor
+                && table.getName(row) == sensor.getName() && table.getSensorType(row) == sensor.getSensorType()) {
+            boolean active = sensor.getActive();
+            table.setActive(row, active);
+            appendSensorId(SENSOR_ACTIVATION, sensor.getSensorId(), active);
+        } else {
+            table.put(sensor);
+            appendSensor(UPDATE_SENSOR, sensor);
+        }
+    }
+
+    @Override
+    public synchronized void setAlarmStatus(AlarmStatus alarmStatus) {
+        this.alarmStatus = alarmStatus;
+        appendStatus(ALARM_STATUS, alarmStatus.ordinal());
+    }
+
+    @Override
+    public synchronized void setArmingStatus(ArmingStatus armingStatus) {
+        this.armingStatus = armingStatus;
+        appendStatus(ARMING_STATUS, armingStatus.ordinal());
+    }
+
+    @Override
+    public synchronized Set<Sensor> getSensors() {
+        return Set.copyOf(sensors().sensors());
+    }
+
+    @Override
+    public synchronized Set<Sensor> getActiveSensors() {
+        return Set.copyOf(sensors().activeSensors());
+    }
+
+    @Override
+    public synchronized Set<Sensor> getSensorsByType(SensorType sensorType) {
+        return Set.copyOf(sensors().sensorsOfType(sensorType));
+    }
+
+    @Override
+    public synchronized int getSensorCount() {
+        if (sensors == null && !unappliedSensorChanges) {
+            return snapshot == null ? 0 : snapshot.size();
+        }
+        return sensors().size();
+    }
+
+    @Override
+    public synchronized int getActiveSensorCount() {
+        if (sensors == null && !unappliedSensorChanges) {
+            return snapshot == null ? 0 : snapshot.getActiveCount();
+        }
+        return sensors().getActiveCount();
+    }
+
+    @Override
+    public AlarmStatus getAlarmStatus() {
+        return alarmStatus;
+    }
+
+    @Override
+    public ArmingStatus getArmingStatus() {
+        return armingStatus;
+    }
+
+    /**
+     * Writes all buffered records to the log and forces them to disk. If the log has grown past
+     * the compaction threshold, the current state is written to a new snapshot and the log is
+     * truncated instead. If writing fails, the records stay buffered for the next attempt.
+     */
+    public void flush() throws IOException {
+        synchronized (logChannel) {
+            if (recordsSinceSnapshot() >= compactionThreshold) {
+                compact();
+                return;
+            }
+
+            ByteBuffer batch;
+            synchronized (this) {
+                batch = pending;
+                pending = spare;
+                spare = batch;
+            }
+            if (batch.position() == 0) {
+                return;
+            }
+            long start = logChannel.position();
+            batch.flip();
+            try {
+                while (batch.hasRemaining()) {
+                    logChannel.write(batch);
+                }
+                logChannel.force(false);
+            } catch (IOException e) {
+                //drop whatever part of the batch made it, so the records can be written again in order
+                try {
+                    logChannel.truncate(start);
+                    logChannel.position(start);
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+                synchronized (this) {
+                    requeue(batch);
+                }
+                throw e;
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * Folds the log into a new snapshot, stamped with the next log generation, and starts a log
+     * of that generation. Records buffered when the snapshot was taken are covered by it and
+     * dropped once it is written; records added since stay buffered for the new log.
+     * Callers must hold the lock on logChannel.
+     */
+    private void compact() throws IOException {
+        long generation = logGeneration + 1;
+        ByteBuffer compacted;
+        int coveredBytes;
+        int coveredRecords;
+        synchronized (this) {
+            compacted = SensorSnapshot.encode(sensors().sensors(), alarmStatus, armingStatus, generation);
+            coveredBytes = pending.position();
+            coveredRecords = recordsSinceSnapshot;
+        }
+
+        SensorSnapshot.write(snapshotFile, compacted);
+        //a crash from here until the new log is started leaves a log of the previous generation, which is skipped on startup
+        logGeneration = generation;
+        logChannel.truncate(0);
+        logChannel.position(0);
+        startLog();
+
+        synchronized (this) {
+            pending.flip();
+            pending.position(coveredBytes);
+            pending.compact();
+            recordsSinceSnapshot -= coveredRecords;
+        }
+    }
+
+    /**
+     * Writes the generation record that every log starts with and forces it to disk.
+     * Callers must hold the lock on logChannel, which must be empty.
+     */
+    private void startLog() throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_BYTES + 9);
+        record.position(RECORD_HEADER_BYTES);
+        record.put(LOG_GENERATION).putLong(logGeneration);
+        CRC32 checksum = new CRC32();
+        checksum.update(record.array(), RECORD_HEADER_BYTES, 9);
+        record.putInt(0, 9).putInt(4, (int) checksum.getValue()).flip();
+        while (record.hasRemaining()) {
+            logChannel.write(record);
+        }
+        logChannel.force(true);
+    }
+
+    /**
+     * @return Generation of the log in the buffer, from the record it starts with. Logs written
+     * before generations were recorded, and empty logs, are generation zero.
+     */
+    private static long generationOf(ByteBuffer log) {
+        if (log.remaining() < RECORD_HEADER_BYTES + 9 || log.getInt(0) != 9 || log.get(RECORD_HEADER_BYTES) != LOG_GENERATION) {
+            return 0;
+        }
+        CRC32 checksum = new CRC32();
+        checksum.update(log.array(), RECORD_HEADER_BYTES, 9);
+        return (int) checksum.getValue() == log.getInt(4) ? log.getLong(RECORD_HEADER_BYTES + 1) : 0;
+    }
+
+    /**
+     * Puts records that could not be written back in front of those buffered since.
+     * Callers must hold the lock on this repository.
+     */
+    private void requeue(ByteBuffer batch) {
+        batch.rewind();
+        ByteBuffer merged = ByteBuffer.allocate(Math.max(pending.capacity(), batch.limit() + pending.position()));
+        merged.put(batch);
+        pending.flip();
+        merged.put(pending);
+        batch.clear();
+        spare = batch;
+        pending = merged;
+    }
+
+    private synchronized int recordsSinceSnapshot() {
+        return recordsSinceSnapshot;
+    }
+
+    @Override
+    public void close() throws IOException {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        logChannel.close();
+    }
+
+    private void commit() {
+        try {
+            flush();
+        } catch (IOException | RuntimeException e) {
+            log.error("Unable to write sensor log " + logFile, e);
+        }
+    }
+
+    /**
+     * @return Whether the sensors have been read out of the snapshot and log
+     */
+    synchronized boolean isMaterialized() {
+        return sensors != null;
+    }
+
+    /**
+     * Returns the sensors, materializing them from the snapshot and log on first use.
+     * Callers must hold the lock on this repository.
+     */
+    private SensorTable sensors() {
+        if (sensors == null) {
+            sensors = new SensorTable();
+            for (int i = 0; snapshot != null && i < snapshot.size(); i++) {
+                sensors.put(snapshot.getSensor(i));
+            }
+            unappliedLog.rewind();
+            replay(unappliedLog, sensors);
+            snapshot = null;
+            unappliedLog = null;
+        }
+        return sensors;
+    }
+
+    /**
+     * Replays every intact record in the log. Status records are applied when no sensor table is
+     * given, which happens once at startup; sensor records are applied to the table when it is.
+     * @return The length of the log up to the end of the last intact record
+     */
+    private int replay(ByteBuffer buffer, SensorTable table) {
+        int validLength = 0;
+        while (buffer.remaining() >= RECORD_HEADER_BYTES) {
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining()) {
+                break;
+            }
+            crc.reset();
+            crc.update(buffer.array(), buffer.position(), length);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            ByteBuffer payload = buffer.slice();
+            payload.limit(length);
+            applyRecord(payload, table);
+            buffer.position(buffer.position() + length);
+            validLength = buffer.position();
+            if (table == null) {
+                recordsSinceSnapshot++;
+            }
+        }
+        return validLength;
+    }
+
+    private void applyRecord(ByteBuffer payload, SensorTable table) {
+        byte type = payload.get();
+        if ((table == null) != (type == ALARM_STATUS || type == ARMING_STATUS || type == LOG_GENERATION)) {
+            unappliedSensorChanges |= table == null;
+            return;
+        }
+        switch (type) {
+            case ADD_SENSOR, UPDATE_SENSOR -> {
+                UUID id = new UUID(payload.getLong(), payload.getLong());
+                SensorType sensorType = SensorType.values()[payload.get()];
+                boolean active = payload.get() != 0;
+                byte[] name = new byte[payload.getInt()];
+                payload.get(name);
+                Sensor sensor = new Sensor(new String(name, StandardCharsets.UTF_8), sensorType);
+                sensor.setSensorId(id);
+                sensor.setActive(active);
+                table.put(sensor);
+            }
+            case SENSOR_ACTIVATION -> {
+                int row = table.indexOf(payload.getLong(), payload.getLong());
+                boolean active = payload.get() != 0;
+                if (row != SensorTable.NO_ROW) {
+                    table.setActive(row, active);
+                    table.getSensor(row).setActive(active);
+                }
+            }
+            case REMOVE_SENSOR -> table.remove(new UUID(payload.getLong(), payload.getLong()));
+            case ALARM_STATUS -> alarmStatus = AlarmStatus.values()[payload.get()];
+            case ARMING_STATUS -> armingStatus = ArmingStatus.values()[payload.get()];
+            case LOG_GENERATION -> {
+                //read before replaying, by generationOf
+            }
+            default -> throw new IllegalStateException("Unknown record type " + type + " in sensor log");
+        }
+    }
+
+    private void appendSensor(byte type, Sensor sensor) {
+        byte[] name = sensor.getName().getBytes(StandardCharsets.UTF_8);
+        int start = beginRecord(23 + name.length);
+        pending.put(type)
+                .putLong(sensor.getSensorId().getMostSignificantBits())
+                .putLong(sensor.getSensorId().getLeastSignificantBits())
+                .put((byte) sensor.getSensorType().ordinal())
+                .put((byte) (sensor.getActive() ? 1 : 0))
+                .putInt(name.length)
+                .put(name);
+        endRecord(start);
+    }
+
+    private void appendSensorId(byte type, UUID sensorId, boolean active) {
+        int start = beginRecord(18);
+        pending.put(type)
+                .putLong(sensorId.getMostSignificantBits())
+                .putLong(sensorId.getLeastSignificantBits())
+                .put((byte) (active ? 1 : 0));
+        endRecord(start);
+    }
+
+    private void appendStatus(byte type, int ordinal) {
+        int start = beginRecord(2);
+        pending.put(type).put((byte) ordinal);
+        endRecord(start);
+    }
+
+    private int beginRecord(int payloadBytes) {
+        if (pending.remaining() < RECORD_HEADER_BYTES + payloadBytes) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + RECORD_HEADER_BYTES + payloadBytes));
+            pending.flip();
+            grown.put(pending);
+            pending = grown;
+        }
+        int start = pending.position();
+        pending.position(start + RECORD_HEADER_BYTES);
+        return start;
+    }
+
+    private void endRecord(int start) {
+        int length = pending.position() - start - RECORD_HEADER_BYTES;
+        crc.reset();
+        crc.update(pending.array(), start + RECORD_HEADER_BYTES, length);
+        pending.putInt(start, length);
+        pending.putInt(start + 4, (int) crc.getValue());
+        recordsSinceSnapshot++;
+    }
+}
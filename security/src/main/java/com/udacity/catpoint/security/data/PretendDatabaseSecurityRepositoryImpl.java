@@ -4,6 +4,7 @@ import com.google.common.reflect.TypeToken;
 import com.google.gson.Gson;
 
 import java.lang.reflect.Type;
+import java.util.Collection;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.prefs.Preferences;
@@ -12,10 +13,14 @@ import java.util.prefs.Preferences;
  * Fake repository implementation for demo purposes. Stores state information in local
  * memory and writes it to user preferences between app loads. This implementation is
  * intentionally a little hard to use in unit tests, so watch out!
+ *
+ * Every method holds the lock on the repository, and the sensor sets returned are copies, so
+ * the GUI, camera and classifier threads can share it.
  */
 public class PretendDatabaseSecurityRepositoryImpl implements SecurityRepository{
 
     private Set<Sensor> sensors;
+    private SensorTable sensorTable = new SensorTable();
     private AlarmStatus alarmStatus;
     private ArmingStatus armingStatus;
 
@@ -24,10 +29,18 @@ public class PretendDatabaseSecurityRepositoryImpl implements SecurityRepository
     private static final String ALARM_STATUS = "ALARM_STATUS";
     private static final String ARMING_STATUS = "ARMING_STATUS";
 
-    private static final Preferences prefs = Preferences.userNodeForPackage(PretendDatabaseSecurityRepositoryImpl.class);
+    private final Preferences prefs;
     private static final Gson gson = new Gson(); //used to serialize objects into JSON
 
     public PretendDatabaseSecurityRepositoryImpl() {
+        this(Preferences.userNodeForPackage(PretendDatabaseSecurityRepositoryImpl.class));
+    }
+
+    /**
+     * @param prefs Preferences node to keep the state in, instead of the application's own
+     */
+    public PretendDatabaseSecurityRepositoryImpl(Preferences prefs) {
+        this.prefs = prefs;
         //load system state from prefs, or else default
         alarmStatus = AlarmStatus.valueOf(prefs.get(ALARM_STATUS, AlarmStatus.NO_ALARM.toString()));
         armingStatus = ArmingStatus.valueOf(prefs.get(ARMING_STATUS, ArmingStatus.DISARMED.toString()));
@@ -42,51 +55,85 @@ public class PretendDatabaseSecurityRepositoryImpl implements SecurityRepository
             }.getType();
             sensors = gson.fromJson(sensorString, type);
         }
+        sensors.forEach(sensorTable::put);
     }
 
     @Override
-    public void addSensor(Sensor sensor) {
+    public synchronized void addSensor(Sensor sensor) {
         sensors.add(sensor);
+        sensorTable.put(sensor);
         prefs.put(SENSORS, gson.toJson(sensors));
     }
 
     @Override
-    public void removeSensor(Sensor sensor) {
+    public synchronized void removeSensor(Sensor sensor) {
         sensors.remove(sensor);
+        sensorTable.remove(sensor.getSensorId());
         prefs.put(SENSORS, gson.toJson(sensors));
     }
 
     @Override
-    public void updateSensor(Sensor sensor) {
+    public synchronized void updateSensor(Sensor sensor) {
         sensors.remove(sensor);
         sensors.add(sensor);
+        sensorTable.put(sensor);
+        prefs.put(SENSORS, gson.toJson(sensors));
+    }
+
+    @Override
+    public synchronized void updateSensors(Collection<Sensor> updated) {
+        for (Sensor sensor : updated) {
+            sensors.remove(sensor);
+            sensors.add(sensor);
+            sensorTable.put(sensor);
+        }
         prefs.put(SENSORS, gson.toJson(sensors));
     }
 
     @Override
-    public void setAlarmStatus(AlarmStatus alarmStatus) {
+    public synchronized void setAlarmStatus(AlarmStatus alarmStatus) {
         this.alarmStatus = alarmStatus;
         prefs.put(ALARM_STATUS, this.alarmStatus.toString());
     }
 
     @Override
-    public void setArmingStatus(ArmingStatus armingStatus) {
+    public synchronized void setArmingStatus(ArmingStatus armingStatus) {
         this.armingStatus = armingStatus;
         prefs.put(ARMING_STATUS, this.armingStatus.toString());
     }
 
     @Override
-    public Set<Sensor> getSensors() {
-        return sensors;
+    public synchronized Set<Sensor> getSensors() {
+        return Set.copyOf(sensors);
+    }
+
+    @Override
+    public synchronized Set<Sensor> getActiveSensors() {
+        return Set.copyOf(sensorTable.activeSensors());
+    }
+
+    @Override
+    public synchronized Set<Sensor> getSensorsByType(SensorType sensorType) {
+        return Set.copyOf(sensorTable.sensorsOfType(sensorType));
+    }
+
+    @Override
+    public synchronized int getSensorCount() {
+        return sensors.size();
+    }
+
+    @Override
+    public synchronized int getActiveSensorCount() {
+        return sensorTable.getActiveCount();
     }
 
     @Override
-    public AlarmStatus getAlarmStatus() {
+    public synchronized AlarmStatus getAlarmStatus() {
         return alarmStatus;
     }
 
     @Override
-    public ArmingStatus getArmingStatus() {
+    public synchronized ArmingStatus getArmingStatus() {
         return armingStatus;
     }
 }
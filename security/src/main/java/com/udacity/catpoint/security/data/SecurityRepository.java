@@ -1,17 +1,36 @@
 package com.udacity.catpoint.security.data;
 
+import java.util.Collection;
 import java.util.Set;
 
 /**
- * Interface showing the methods our security repository will need to support
+ * Interface showing the methods our security repository will need to support. Implementations
+ * are used from the GUI, camera and classifier threads at once, so they must be thread-safe.
  */
 public interface SecurityRepository {
     void addSensor(Sensor sensor);
     void removeSensor(Sensor sensor);
     void updateSensor(Sensor sensor);
+    /**
+     * Updates all the sensors and stores them with a single write.
+     */
+    void updateSensors(Collection<Sensor> sensors);
     void setAlarmStatus(AlarmStatus alarmStatus);
     void setArmingStatus(ArmingStatus armingStatus);
+    /**
+     * @return Copy of the sensors, unaffected by later changes to the repository
+     */
     Set<Sensor> getSensors();
+    /**
+     * @return Copy of the active sensors, unaffected by later changes to the repository
+     */
+    Set<Sensor> getActiveSensors();
+    /**
+     * @return Copy of the sensors of the given type, unaffected by later changes to the repository
+     */
+    Set<Sensor> getSensorsByType(SensorType sensorType);
+    int getSensorCount();
+    int getActiveSensorCount();
     AlarmStatus getAlarmStatus();
     ArmingStatus getArmingStatus();
 
@@ -3,7 +3,6 @@ package com.udacity.catpoint.security.data;
 
 import com.google.common.collect.ComparisonChain;
 
-import java.util.Objects;
 import java.util.UUID;
 
 /**
@@ -32,7 +31,7 @@ public class Sensor implements Comparable<Sensor> {
 
     @Override
     public int hashCode() {
-        return Objects.hash(sensorId);
+        return sensorId.hashCode();
     }
 
     public String getName() {
@@ -0,0 +1,22 @@
+package com.udacity.catpoint.security.data;
+
+/**
+ * A requested change to a sensor's activation status, for applying many changes at once.
+ */
+public class SensorChange {
+    private final Sensor sensor;
+    private final boolean active;
+
+    public SensorChange(Sensor sensor, boolean active) {
+        this.sensor = sensor;
+        this.active = active;
+    }
+
+    public Sensor getSensor() {
+        return sensor;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+}
@@ -0,0 +1,227 @@
+package com.udacity.catpoint.security.data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Read-only, memory-mapped view of a binary snapshot of the system state. Opening a snapshot
+ * only maps the file and reads its header, which also holds the number of active sensors of
+ * each type, so counts are answered without reading any records. Sensor records are fixed
+ * width, so any record can be read directly by index without deserializing the ones before it.
+ *
+ * File layout, all values big-endian:
+ * <pre>
+ * header (48 bytes): magic, version, sensor count, name table offset (ints),
+ *                    alarm status ordinal, arming status ordinal (bytes), reserved (6 bytes),
+ *                    generation of the log that continues from this snapshot (long),
+ *                    active sensor count of each type in {@link SensorType} order (ints),
+ *                    reserved (4 bytes)
+ * record (24 bytes): sensor id most/least significant bits (longs), sensor type ordinal,
+ *                    flags (bit 0 = active), reserved (2 bytes), offset into the name table (int)
+ * name table:        for each name, its UTF-8 length (int) followed by the UTF-8 bytes
+ * </pre>
+ */
+public class SensorSnapshot {
+
+    private static final int MAGIC = 0x43505353; //"CPSS"
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 48;
+    private static final int ACTIVE_COUNTS_OFFSET = 32;
+    private static final int RECORD_BYTES = 24;
+    private static final byte ACTIVE_FLAG = 1;
+
+    private final MappedByteBuffer buffer;
+    private final int size;
+    private final int nameTableOffset;
+
+    private SensorSnapshot(MappedByteBuffer buffer) throws IOException {
+        if (buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a sensor snapshot");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported sensor snapshot version " + buffer.getInt(4));
+        }
+        this.buffer = buffer;
+        this.size = buffer.getInt(8);
+        this.nameTableOffset = buffer.getInt(12);
+    }
+
+    /**
+     * Maps the snapshot file into memory. Only the header is read.
+     */
+    public static SensorSnapshot open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new SensorSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public AlarmStatus getAlarmStatus() {
+        return AlarmStatus.values()[buffer.get(16)];
+    }
+
+    public ArmingStatus getArmingStatus() {
+        return ArmingStatus.values()[buffer.get(17)];
+    }
+
+    /**
+     * @return Generation of the log that continues from this snapshot. Logs of earlier
+     * generations are already folded into it. Zero for snapshots not written by a log.
+     */
+    public long getLogGeneration() {
+        return buffer.getLong(24);
+    }
+
+    /**
+     * @return Number of active sensors, read from the header
+     */
+    public int getActiveCount() {
+        int count = 0;
+        for (SensorType sensorType : SensorType.values()) {
+            count += getActiveCount(sensorType);
+        }
+        return count;
+    }
+
+    /**
+     * @return Number of active sensors of the given type, read from the header
+     */
+    public int getActiveCount(SensorType sensorType) {
+        return buffer.getInt(ACTIVE_COUNTS_OFFSET + sensorType.ordinal() * 4);
+    }
+
+    public UUID getSensorId(int index) {
+        int record = recordOffset(index);
+        return new UUID(buffer.getLong(record), buffer.getLong(record + 8));
+    }
+
+    public SensorType getSensorType(int index) {
+        return SensorType.values()[buffer.get(recordOffset(index) + 16)];
+    }
+
+    public boolean isActive(int index) {
+        return (buffer.get(recordOffset(index) + 17) & ACTIVE_FLAG) != 0;
+    }
+
+    public String getName(int index) {
+        int entry = nameTableOffset + buffer.getInt(recordOffset(index) + 20);
+        byte[] name = new byte[buffer.getInt(entry)];
+        buffer.get(entry + 4, name);
+        return new String(name, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Materializes the sensor at the given index.
+     */
+    public Sensor getSensor(int index) {
+        Sensor sensor = new Sensor(getName(index), getSensorType(index));
+        sensor.setSensorId(getSensorId(index));
+        sensor.setActive(isActive(index));
+        return sensor;
+    }
+
+    private int recordOffset(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Sensor index " + index + " out of bounds for snapshot of " + size);
+        }
+        return HEADER_BYTES + index * RECORD_BYTES;
+    }
+
+    /**
+     * Encodes the given state in the snapshot format. Kept separate from {@link #write(Path, ByteBuffer)}
+     * so callers can capture their state under a lock and do the file I/O outside of it.
+     */
+    public static ByteBuffer encode(Collection<Sensor> sensors, AlarmStatus alarmStatus, ArmingStatus armingStatus) {
+        return encode(sensors, alarmStatus, armingStatus, 0);
+    }
+
+    /**
+     * Encodes the given state in the snapshot format, stamped with the generation of the log that
+     * will hold the changes made after it.
+     */
+    public static ByteBuffer encode(Collection<Sensor> sensors, AlarmStatus alarmStatus, ArmingStatus armingStatus, long logGeneration) {
+        byte[][] names = new byte[sensors.size()][];
+        int[] activeCounts = new int[SensorType.values().length];
+        int nameTableBytes = 0;
+        int i = 0;
+        for (Sensor sensor : sensors) {
+            names[i] = sensor.getName().getBytes(StandardCharsets.UTF_8);
+            nameTableBytes += 4 + names[i].length;
+            if (Boolean.TRUE.equals(sensor.getActive())) {
+                activeCounts[sensor.getSensorType().ordinal()]++;
+            }
+            i++;
+        }
+
+        int nameTableOffset = HEADER_BYTES + sensors.size() * RECORD_BYTES;
+        ByteBuffer buffer = ByteBuffer.allocate(nameTableOffset + nameTableBytes);
+        buffer.putInt(MAGIC)
+                .putInt(VERSION)
+                .putInt(sensors.size())
+                .putInt(nameTableOffset)
+                .put((byte) alarmStatus.ordinal())
+                .put((byte) armingStatus.ordinal())
+                .putLong(24, logGeneration);
+        for (int type = 0; type < activeCounts.length; type++) {
+            buffer.putInt(ACTIVE_COUNTS_OFFSET + type * 4, activeCounts[type]);
+        }
+        buffer.position(HEADER_BYTES);
+
+        int nameOffset = 0;
+        i = 0;
+        for (Sensor sensor : sensors) {
+            buffer.putLong(sensor.getSensorId().getMostSignificantBits())
+                    .putLong(sensor.getSensorId().getLeastSignificantBits())
+                    .put((byte) sensor.getSensorType().ordinal())
+                    .put(Boolean.TRUE.equals(sensor.getActive()) ? ACTIVE_FLAG : 0)
+                    .putShort((short) 0)
+                    .putInt(nameOffset);
+            buffer.putInt(nameTableOffset + nameOffset, names[i].length)
+                    .put(nameTableOffset + nameOffset + 4, names[i]);
+            nameOffset += 4 + names[i].length;
+            i++;
+        }
+        buffer.position(buffer.capacity());
+        return buffer;
+    }
+
+    /**
+     * Writes an encoded snapshot to the given file. The snapshot is written to a temporary
+     * file and moved into place, so readers never see a partially written snapshot.
+     * @param snapshot A buffer returned from {@link #encode(Collection, AlarmStatus, ArmingStatus, long)}
+     */
+    public static void write(Path file, ByteBuffer snapshot) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        snapshot.flip();
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (snapshot.hasRemaining()) {
+                channel.write(snapshot);
+            }
+            channel.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Converts the JSON state stored in user preferences by {@link PretendDatabaseSecurityRepositoryImpl}
+     * into a binary snapshot. To migrate to {@link LogStructuredSecurityRepositoryImpl}, pass
+     * {@code directory.resolve(LogStructuredSecurityRepositoryImpl.SNAPSHOT_FILE)} before opening the repository.
+     */
+    public static void convertPreferences(Path file) throws IOException {
+        SecurityRepository preferences = new PretendDatabaseSecurityRepositoryImpl();
+        write(file, encode(preferences.getSensors(), preferences.getAlarmStatus(), preferences.getArmingStatus()));
+    }
+}
@@ -0,0 +1,352 @@
+package com.udacity.catpoint.security.data;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Struct-of-arrays storage for sensors. Each sensor occupies one row across parallel arrays
+ * holding the two halves of its id, its type and its name, with the active flags kept in a
+ * {@link BitSet}. Rows are located by an open-addressing hash on the id bits, so looking up
+ * a sensor or toggling it doesn't allocate or compare strings.
+ *
+ * The {@link Sensor} objects passed in are kept alongside as views for the GUI and are what
+ * the set views return. The table tracks activation itself and does not read it back from
+ * those objects except when a sensor is put.
+ *
+ * The table is not thread-safe, and its views have no check for changes made while they are
+ * iterated: a removal moves the last row into the hole, so an iteration running at the same
+ * time can skip or repeat a sensor. Owners that share the table between threads must iterate
+ * its views under their lock, and hand out copies.
+ */
+public class SensorTable {
+
+    public static final int NO_ROW = -1;
+
+    private static final SensorType[] SENSOR_TYPES = SensorType.values();
+
+    private long[] mostSigBits = new long[16];
+    private long[] leastSigBits = new long[16];
+    private byte[] types = new byte[16];
+    private String[] names = new String[16];
+    private Sensor[] views = new Sensor[16];
+    private final BitSet active = new BitSet();
+    private final int[] typeCounts = new int[SENSOR_TYPES.length];
+    private int size;
+    private int activeCount;
+
+    //hash slot -> row, linear probing, kept at most half full
+    private int[] slots = newSlots(32);
+
+    private final Set<Sensor> allSensors = new RowSet() {
+        @Override
+        int nextRow(int from) {
+            return from < size ? from : NO_ROW;
+        }
+
+        @Override
+        boolean containsRow(int row) {
+            return true;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    };
+
+    private final Set<Sensor> activeSensors = new RowSet() {
+        @Override
+        int nextRow(int from) {
+            int row = active.nextSetBit(from);
+            return row >= 0 && row < size ? row : NO_ROW;
+        }
+
+        @Override
+        boolean containsRow(int row) {
+            return active.get(row);
+        }
+
+        @Override
+        public int size() {
+            return activeCount;
+        }
+    };
+
+    private final Set<Sensor>[] sensorsByType = createTypeViews();
+
+    public int size() {
+        return size;
+    }
+
+    public int getActiveCount() {
+        return activeCount;
+    }
+
+    public int indexOf(UUID sensorId) {
+        return indexOf(sensorId.getMostSignificantBits(), sensorId.getLeastSignificantBits());
+    }
+
+    /**
+     * @return The row holding the sensor with the given id, or {@link #NO_ROW}
+     */
+    public int indexOf(long mostSignificantBits, long leastSignificantBits) {
+        int mask = slots.length - 1;
+        for (int slot = hash(mostSignificantBits, leastSignificantBits) & mask; ; slot = (slot + 1) & mask) {
+            int row = slots[slot];
+            if (row == NO_ROW || (mostSigBits[row] == mostSignificantBits && leastSigBits[row] == leastSignificantBits)) {
+                return row;
+            }
+        }
+    }
+
+    /**
+     * Adds the sensor, or replaces the row of the sensor with the same id.
+     * @return The sensor's row
+     */
+    public int put(Sensor sensor) {
+        int row = indexOf(sensor.getSensorId());
+        if (row == NO_ROW) {
+            ensureCapacity(size + 1);
+            row = size++;
+            mostSigBits[row] = sensor.getSensorId().getMostSignificantBits();
+            leastSigBits[row] = sensor.getSensorId().getLeastSignificantBits();
+            insertSlot(row, slots);
+        } else {
+            typeCounts[types[row]]--;
+        }
+        types[row] = (byte) sensor.getSensorType().ordinal();
+        typeCounts[types[row]]++;
+        names[row] = sensor.getName();
+        views[row] = sensor;
+        setActive(row, Boolean.TRUE.equals(sensor.getActive()));
+        return row;
+    }
+
+    /**
+     * Removes the sensor with the given id. The last row is moved into the freed row, so row
+     * numbers are only stable until the next removal.
+     * @return True if the sensor was present
+     */
+    public boolean remove(UUID sensorId) {
+        int row = indexOf(sensorId);
+        if (row == NO_ROW) {
+            return false;
+        }
+        setActive(row, false);
+        typeCounts[types[row]]--;
+        deleteSlot(row);
+
+        int last = --size;
+        if (row != last) {
+            slots[findSlot(last)] = row;
+            mostSigBits[row] = mostSigBits[last];
+            leastSigBits[row] = leastSigBits[last];
+            types[row] = types[last];
+            names[row] = names[last];
+            views[row] = views[last];
+            active.set(row, active.get(last));
+            active.clear(last);
+        }
+        names[last] = null;
+        views[last] = null;
+        return true;
+    }
+
+    /**
+     * @return True if the row's activation changed
+     */
+    public boolean setActive(int row, boolean isActive) {
+        if (active.get(row) == isActive) {
+            return false;
+        }
+        active.set(row, isActive);
+        activeCount += isActive ? 1 : -1;
+        return true;
+    }
+
+    public boolean isActive(int row) {
+        return active.get(row);
+    }
+
+    public SensorType getSensorType(int row) {
+        return SENSOR_TYPES[types[row]];
+    }
+
+    public String getName(int row) {
+        return names[row];
+    }
+
+    public Sensor getSensor(int row) {
+        return views[row];
+    }
+
+    /**
+     * Live, read-only view of every sensor in the table.
+     */
+    public Set<Sensor> sensors() {
+        return allSensors;
+    }
+
+    /**
+     * Live, read-only view of the active sensors.
+     */
+    public Set<Sensor> activeSensors() {
+        return activeSensors;
+    }
+
+    /**
+     * Live, read-only view of the sensors of the given type.
+     */
+    public Set<Sensor> sensorsOfType(SensorType sensorType) {
+        return sensorsByType[sensorType.ordinal()];
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<Sensor>[] createTypeViews() {
+        Set<Sensor>[] typeViews = new Set[SENSOR_TYPES.length];
+        for (SensorType sensorType : SENSOR_TYPES) {
+            byte ordinal = (byte) sensorType.ordinal();
+            typeViews[ordinal] = new RowSet() {
+                @Override
+                int nextRow(int from) {
+                    for (int row = from; row < size; row++) {
+                        if (types[row] == ordinal) {
+                            return row;
+                        }
+                    }
+                    return NO_ROW;
+                }
+
+                @Override
+                boolean containsRow(int row) {
+                    return types[row] == ordinal;
+                }
+
+                @Override
+                public int size() {
+                    return typeCounts[ordinal];
+                }
+            };
+        }
+        return typeViews;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > mostSigBits.length) {
+            int length = mostSigBits.length * 2;
+            mostSigBits = Arrays.copyOf(mostSigBits, length);
+            leastSigBits = Arrays.copyOf(leastSigBits, length);
+            types = Arrays.copyOf(types, length);
+            names = Arrays.copyOf(names, length);
+            views = Arrays.copyOf(views, length);
+        }
+        if (capacity * 2 > slots.length) {
+            int[] grown = newSlots(slots.length * 2);
+            for (int row = 0; row < size; row++) {
+                insertSlot(row, grown);
+            }
+            slots = grown;
+        }
+    }
+
+    private void insertSlot(int row, int[] slots) {
+        int mask = slots.length - 1;
+        int slot = hash(mostSigBits[row], leastSigBits[row]) & mask;
+        while (slots[slot] != NO_ROW) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = row;
+    }
+
+    private int findSlot(int row) {
+        int mask = slots.length - 1;
+        int slot = hash(mostSigBits[row], leastSigBits[row]) & mask;
+        while (slots[slot] != row) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Empties the row's slot and shifts back any later entries of its probe run that would
+     * otherwise become unreachable.
+     */
+    private void deleteSlot(int row) {
+        int mask = slots.length - 1;
+        int hole = findSlot(row);
+        slots[hole] = NO_ROW;
+        for (int slot = (hole + 1) & mask; slots[slot] != NO_ROW; slot = (slot + 1) & mask) {
+            int moved = slots[slot];
+            int home = hash(mostSigBits[moved], leastSigBits[moved]) & mask;
+            boolean reachable = hole < slot ? (home > hole && home <= slot) : (home > hole || home <= slot);
+            if (!reachable) {
+                slots[hole] = moved;
+                slots[slot] = NO_ROW;
+                hole = slot;
+            }
+        }
+    }
+
+    private static int[] newSlots(int length) {
+        int[] slots = new int[length];
+        Arrays.fill(slots, NO_ROW);
+        return slots;
+    }
+
+    private static int hash(long mostSignificantBits, long leastSignificantBits) {
+        long h = mostSignificantBits ^ leastSignificantBits;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    /**
+     * Read-only set over the rows matching some condition.
+     */
+    private abstract class RowSet extends AbstractSet<Sensor> {
+
+        /**
+         * @return The first matching row at or after from, or {@link #NO_ROW}
+         */
+        abstract int nextRow(int from);
+
+        abstract boolean containsRow(int row);
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Sensor)) {
+                return false;
+            }
+            int row = indexOf(((Sensor) o).getSensorId());
+            return row != NO_ROW && containsRow(row);
+        }
+
+        @Override
+        public Iterator<Sensor> iterator() {
+            return new Iterator<>() {
+                private int next = nextRow(0);
+
+                @Override
+                public boolean hasNext() {
+                    return next != NO_ROW;
+                }
+
+                @Override
+                public Sensor next() {
+                    if (next == NO_ROW) {
+                        throw new NoSuchElementException();
+                    }
+                    Sensor sensor = views[next];
+                    next = nextRow(next + 1);
+                    return sensor;
+                }
+            };
+        }
+    }
+}
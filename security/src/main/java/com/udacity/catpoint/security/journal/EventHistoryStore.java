@@ -0,0 +1,542 @@
+package com.udacity.catpoint.security.journal;
+
+import com.udacity.catpoint.security.data.AlarmStatus;
+import com.udacity.catpoint.security.data.ArmingStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Append-only history of journal events, kept on disk so past events can be looked up by time
+ * and by sensor. Register it as a sink of an {@link EventJournal} to record everything the
+ * security service does.
+ *
+ * Events are stored as fixed-width records in segment files, one segment for each period of
+ * time, named after the start of the period. Each segment has a sparse in-memory index holding
+ * the timestamp of every {@value #INDEX_INTERVAL}th record, rebuilt from those records when the
+ * store is opened, so a query reads only the few blocks of records around the range it asks for.
+ * Query results are streamed a block at a time rather than loading whole segments.
+ *
+ * Whole segments are deleted once they are older than the maximum age, or when the store grows
+ * past its maximum size, oldest first.
+ *
+ * Events written to the store become visible to queries when the journal flushes it, which it
+ * does whenever it has caught up with the events recorded so far.
+ */
+public class EventHistoryStore implements JournalSink {
+
+    private final Logger log = LoggerFactory.getLogger(EventHistoryStore.class);
+
+    public static final Duration DEFAULT_PARTITION = Duration.ofHours(1);
+    public static final Duration DEFAULT_MAX_AGE = Duration.ofDays(30);
+    public static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+
+    private static final String SEGMENT_PREFIX = "events-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    //record layout
+    static final int RECORD_BYTES = 40;
+    private static final int TIMESTAMP = 0;
+    private static final int SEQUENCE = 8;
+    private static final int SENSOR_MOST_SIGNIFICANT = 16;
+    private static final int SENSOR_LEAST_SIGNIFICANT = 24;
+    private static final int TYPE = 32;
+    private static final int HAS_SENSOR = 33;
+    private static final int PREVIOUS_STATUS = 34;
+    private static final int STATUS = 35;
+
+    static final int INDEX_INTERVAL = 128;
+    private static final int READ_BLOCK_RECORDS = INDEX_INTERVAL;
+
+    private final Path directory;
+    private final long partitionMillis;
+    private final long maxAgeMillis;
+    private final long maxBytes;
+    private final Clock clock;
+
+    private final List<Segment> segments = new ArrayList<>(); //oldest first, guarded by this
+
+    //only used by the writing thread
+    private Segment active;
+    private FileChannel activeChannel;
+    private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(READ_BLOCK_RECORDS * RECORD_BYTES);
+    private int bufferedRecords;
+    private long lastTimestamp = Long.MIN_VALUE;
+
+    /**
+     * Opens a store with hour-long segments, keeping events for 30 days and up to 256 MB.
+     */
+    public EventHistoryStore(Path directory) {
+        this(directory, DEFAULT_PARTITION, DEFAULT_MAX_AGE, DEFAULT_MAX_BYTES, Clock.systemUTC());
+    }
+
+    /**
+     * @param directory Directory holding the segment files. Created if it does not exist.
+     * @param partition Period of time covered by each segment
+     * @param maxAge How long events are kept
+     * @param maxBytes Size the segments may take up before the oldest are deleted
+     * @param clock Clock used to decide which segments have expired
+     */
+    public EventHistoryStore(Path directory, Duration partition, Duration maxAge, long maxBytes, Clock clock) {
+        this.directory = directory;
+        this.partitionMillis = partition.toMillis();
+        this.maxAgeMillis = maxAge.toMillis();
+        this.maxBytes = maxBytes;
+        this.clock = clock;
+        try {
+            Files.createDirectories(directory);
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+                for (Path file : files) {
+                    segments.add(openSegment(file));
+                }
+            }
+        } catch (IOException ioe) {
+            throw new UncheckedIOException("Unable to open event history in " + directory, ioe);
+        }
+        segments.sort((a, b) -> Long.compare(a.start, b.start));
+        if (!segments.isEmpty()) {
+            lastTimestamp = segments.get(segments.size() - 1).lastTimestamp;
+        }
+        applyRetention();
+    }
+
+    /**
+     * Reads the timestamps of the indexed records of an existing segment, discarding a record
+     * left incomplete when the application stopped.
+     */
+    private Segment openSegment(Path file) throws IOException {
+        String name = file.getFileName().toString();
+        long start = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        Segment segment = new Segment(file, start);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            if (size % RECORD_BYTES != 0) {
+                log.warn("Discarding {} bytes of an incomplete record at the end of {}", size % RECORD_BYTES, file);
+                channel.truncate(size - size % RECORD_BYTES);
+            }
+            segment.records = size / RECORD_BYTES;
+            ByteBuffer timestamp = ByteBuffer.allocate(Long.BYTES);
+            for (long record = 0; record < segment.records; record += INDEX_INTERVAL) {
+                segment.addIndexEntry(readTimestamp(channel, record, timestamp));
+            }
+            if (segment.records > 0) {
+                segment.lastTimestamp = readTimestamp(channel, segment.records - 1, timestamp);
+            }
+        }
+        return segment;
+    }
+
+    private static long readTimestamp(FileChannel channel, long record, ByteBuffer buffer) throws IOException {
+        buffer.clear();
+        long position = record * RECORD_BYTES + TIMESTAMP;
+        while (buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) >= 0) {
+            //keep reading until the timestamp is complete
+        }
+        return buffer.getLong(0);
+    }
+
+    /**
+     * Appends the event to the segment for its time. Timestamps are kept in order, so an event
+     * whose thread read the clock a moment before the previous event's keeps its place in the
+     * journal's sequence and takes the previous event's time.
+     */
+    @Override
+    public void write(JournalEvent event) throws IOException {
+        long timestamp = Math.max(event.getTimestamp(), lastTimestamp);
+        long partitionStart = timestamp - Math.floorMod(timestamp, partitionMillis);
+        if (active == null || active.start != partitionStart) {
+            roll(partitionStart);
+        }
+        if (!writeBuffer.hasRemaining()) {
+            writeBuffered();
+        }
+
+        int offset = writeBuffer.position();
+        writeBuffer.putLong(offset + TIMESTAMP, timestamp);
+        writeBuffer.putLong(offset + SEQUENCE, event.getSequence());
+        UUID sensorId = event.getSensorId();
+        writeBuffer.putLong(offset + SENSOR_MOST_SIGNIFICANT, sensorId == null ? 0 : sensorId.getMostSignificantBits());
+        writeBuffer.putLong(offset + SENSOR_LEAST_SIGNIFICANT, sensorId == null ? 0 : sensorId.getLeastSignificantBits());
+        writeBuffer.put(offset + TYPE, (byte) event.getType().ordinal());
+        writeBuffer.put(offset + HAS_SENSOR, (byte) (sensorId == null ? 0 : 1));
+        writeBuffer.put(offset + PREVIOUS_STATUS, (byte) (event.getPreviousStatus() == null ? -1 : event.getPreviousStatus().ordinal()));
+        writeBuffer.put(offset + STATUS, (byte) (event.getStatus() == null ? -1 : event.getStatus().ordinal()));
+        writeBuffer.position(offset + RECORD_BYTES);
+
+        long record = active.records + bufferedRecords;
+        if (record % INDEX_INTERVAL == 0) {
+            synchronized (this) {
+                active.addIndexEntry(timestamp);
+            }
+        }
+        bufferedRecords++;
+        lastTimestamp = timestamp;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writeBuffered();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeActive();
+    }
+
+    private void closeActive() throws IOException {
+        writeBuffered();
+        if (activeChannel != null) {
+            activeChannel.close();
+            activeChannel = null;
+        }
+        active = null;
+    }
+
+    private void writeBuffered() throws IOException {
+        if (bufferedRecords == 0) {
+            return;
+        }
+        writeBuffer.flip();
+        while (writeBuffer.hasRemaining()) {
+            activeChannel.write(writeBuffer);
+        }
+        writeBuffer.clear();
+        synchronized (this) {
+            active.records += bufferedRecords;
+            active.lastTimestamp = lastTimestamp;
+        }
+        bufferedRecords = 0;
+    }
+
+    /**
+     * Moves writing on to the segment starting at the given time, creating it if necessary.
+     */
+    private void roll(long partitionStart) throws IOException {
+        closeActive();
+        synchronized (this) {
+            Segment last = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+            if (last != null && last.start == partitionStart) {
+                active = last;
+            } else {
+                active = new Segment(directory.resolve(SEGMENT_PREFIX + partitionStart + SEGMENT_SUFFIX), partitionStart);
+                segments.add(active);
+            }
+        }
+        activeChannel = FileChannel.open(active.file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        applyRetention();
+    }
+
+    /**
+     * Deletes the segments that have expired, then the oldest segments until the store fits in its
+     * maximum size. The segment being written is never deleted.
+     */
+    public void applyRetention() {
+        List<Segment> expired = new ArrayList<>();
+        synchronized (this) {
+            long oldestKept = clock.millis() - maxAgeMillis;
+            long bytes = 0;
+            for (Segment segment : segments) {
+                bytes += segment.records * RECORD_BYTES;
+            }
+            Iterator<Segment> iterator = segments.iterator();
+            while (iterator.hasNext()) {
+                Segment segment = iterator.next();
+                boolean tooOld = segment.start + partitionMillis <= oldestKept;
+                if (segment == active || (!tooOld && bytes <= maxBytes)) {
+                    break;
+                }
+                bytes -= segment.records * RECORD_BYTES;
+                iterator.remove();
+                expired.add(segment);
+            }
+        }
+        for (Segment segment : expired) {
+            try {
+                Files.deleteIfExists(segment.file);
+            } catch (IOException ioe) {
+                log.warn("Unable to delete expired event history segment {}", segment.file, ioe);
+            }
+        }
+    }
+
+    /**
+     * @return Events from the start of the range up to but excluding its end, oldest first. The
+     * stream reads the segments as it goes, so it must be closed.
+     */
+    public Stream<HistoryEvent> query(Instant from, Instant to) {
+        return stream(new RangeIterator(from.toEpochMilli(), to.toEpochMilli(), null));
+    }
+
+    /**
+     * @return Events of one sensor from the start of the range up to but excluding its end, oldest
+     * first. The stream reads the segments as it goes, so it must be closed.
+     */
+    public Stream<HistoryEvent> querySensor(UUID sensorId, Instant from, Instant to) {
+        return stream(new RangeIterator(from.toEpochMilli(), to.toEpochMilli(), sensorId));
+    }
+
+    private static Stream<HistoryEvent> stream(RangeIterator iterator) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(iterator::close);
+    }
+
+    /**
+     * @return Copies of the segments overlapping the range, holding only the records written so far
+     */
+    private synchronized List<Segment> segmentsBetween(long from, long to) {
+        List<Segment> overlapping = new ArrayList<>();
+        for (Segment segment : segments) {
+            if (segment.start < to && segment.start + partitionMillis > from && segment.records > 0) {
+                overlapping.add(segment.copy());
+            }
+        }
+        return overlapping;
+    }
+
+    /**
+     * @return Number of bytes taken up by the segments
+     */
+    public synchronized long size() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            bytes += segment.records * RECORD_BYTES;
+        }
+        return bytes;
+    }
+
+    private static HistoryEvent decode(ByteBuffer buffer, int offset) {
+        JournalEventType type = JournalEventType.values()[buffer.get(offset + TYPE)];
+        UUID sensorId = buffer.get(offset + HAS_SENSOR) == 0 ? null
+                : new UUID(buffer.getLong(offset + SENSOR_MOST_SIGNIFICANT), buffer.getLong(offset + SENSOR_LEAST_SIGNIFICANT));
+        Enum<?> previousStatus = status(type, buffer.get(offset + PREVIOUS_STATUS));
+        Enum<?> status = status(type, buffer.get(offset + STATUS));
+        return new HistoryEvent(buffer.getLong(offset + SEQUENCE), buffer.getLong(offset + TIMESTAMP), type,
+                sensorId, previousStatus, status);
+    }
+
+    private static Enum<?> status(JournalEventType type, byte ordinal) {
+        if (ordinal < 0) {
+            return null;
+        }
+        switch (type) {
+            case ALARM_STATUS_CHANGED:
+                return AlarmStatus.values()[ordinal];
+            case ARMING_STATUS_CHANGED:
+                return ArmingStatus.values()[ordinal];
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Segment file with its sparse index. The store's list holds the live segments; queries work
+     * on copies so the writer can carry on appending.
+     */
+    private static class Segment {
+        private final Path file;
+        private final long start;
+        private long records;
+        private long lastTimestamp;
+        private long[] index = new long[16];
+        private int indexEntries;
+
+        Segment(Path file, long start) {
+            this.file = file;
+            this.start = start;
+        }
+
+        void addIndexEntry(long timestamp) {
+            if (indexEntries == index.length) {
+                index = Arrays.copyOf(index, index.length * 2);
+            }
+            index[indexEntries++] = timestamp;
+        }
+
+        /**
+         * @return Number of the first record in the block where records at or after the time
+         * may start
+         */
+        long firstRecordFrom(long timestamp) {
+            int low = 0;
+            int high = indexEntries - 1;
+            int block = 0;
+            //find the last indexed record before the time, as records from there on may be at the time
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (index[mid] < timestamp) {
+                    block = mid;
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return (long) block * INDEX_INTERVAL;
+        }
+
+        Segment copy() {
+            Segment copy = new Segment(file, start);
+            copy.records = records;
+            copy.lastTimestamp = lastTimestamp;
+            copy.index = Arrays.copyOf(index, indexEntries);
+            copy.indexEntries = indexEntries;
+            return copy;
+        }
+    }
+
+    /**
+     * Reads the matching records one block at a time, opening each segment in turn.
+     */
+    private class RangeIterator implements Iterator<HistoryEvent> {
+        private final long from;
+        private final long to;
+        private final boolean bySensor;
+        private final long sensorMostSignificant;
+        private final long sensorLeastSignificant;
+
+        private final List<Segment> remaining;
+        private final ByteBuffer block = ByteBuffer.allocate(READ_BLOCK_RECORDS * RECORD_BYTES);
+        private Segment segment;
+        private FileChannel channel;
+        private long nextRecord;
+        private HistoryEvent next;
+        private boolean finished;
+
+        RangeIterator(long from, long to, UUID sensorId) {
+            this.from = from;
+            this.to = to;
+            this.bySensor = sensorId != null;
+            this.sensorMostSignificant = bySensor ? sensorId.getMostSignificantBits() : 0;
+            this.sensorLeastSignificant = bySensor ? sensorId.getLeastSignificantBits() : 0;
+            this.remaining = segmentsBetween(from, to);
+            block.limit(0);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && !finished) {
+                try {
+                    next = advance();
+                } catch (IOException ioe) {
+                    close();
+                    throw new UncheckedIOException("Unable to read event history", ioe);
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public HistoryEvent next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            HistoryEvent event = next;
+            next = null;
+            return event;
+        }
+
+        private HistoryEvent advance() throws IOException {
+            while (true) {
+                if (!block.hasRemaining() && !readBlock()) {
+                    if (!openNextSegment()) {
+                        close();
+                        return null;
+                    }
+                    continue;
+                }
+                int offset = block.position();
+                block.position(offset + RECORD_BYTES);
+                long timestamp = block.getLong(offset + TIMESTAMP);
+                if (timestamp >= to) {
+                    //timestamps only grow, in this segment and in any later one
+                    close();
+                    return null;
+                }
+                if (timestamp < from) {
+                    continue;
+                }
+                if (bySensor && (block.get(offset + HAS_SENSOR) == 0
+                        || block.getLong(offset + SENSOR_MOST_SIGNIFICANT) != sensorMostSignificant
+                        || block.getLong(offset + SENSOR_LEAST_SIGNIFICANT) != sensorLeastSignificant)) {
+                    continue;
+                }
+                return decode(block, offset);
+            }
+        }
+
+        private boolean openNextSegment() throws IOException {
+            closeChannel();
+            if (remaining.isEmpty()) {
+                return false;
+            }
+            segment = remaining.remove(0);
+            try {
+                channel = FileChannel.open(segment.file, StandardOpenOption.READ);
+            } catch (NoSuchFileException e) {
+                //deleted by retention since the query started
+                segment = null;
+                return openNextSegment();
+            }
+            nextRecord = segment.firstRecordFrom(from);
+            return true;
+        }
+
+        private boolean readBlock() throws IOException {
+            if (segment == null || nextRecord >= segment.records) {
+                return false;
+            }
+            int records = (int) Math.min(READ_BLOCK_RECORDS, segment.records - nextRecord);
+            block.clear();
+            block.limit(records * RECORD_BYTES);
+            long position = nextRecord * RECORD_BYTES;
+            while (block.hasRemaining()) {
+                if (channel.read(block, position + block.position()) < 0) {
+                    break;
+                }
+            }
+            block.limit(block.position() - block.position() % RECORD_BYTES);
+            block.position(0);
+            nextRecord += records;
+            return block.hasRemaining();
+        }
+
+        private void closeChannel() {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException ioe) {
+                    log.warn("Unable to close event history segment {}", segment.file, ioe);
+                }
+                channel = null;
+            }
+        }
+
+        void close() {
+            finished = true;
+            closeChannel();
+            remaining.clear();
+        }
+    }
+}
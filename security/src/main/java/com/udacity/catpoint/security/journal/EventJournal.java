@@ -0,0 +1,198 @@
+package com.udacity.catpoint.security.journal;
+
+import com.udacity.catpoint.security.data.AlarmStatus;
+import com.udacity.catpoint.security.data.ArmingStatus;
+import com.udacity.catpoint.security.data.Sensor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Journal of sensor and alarm events. Events are recorded into a ring buffer of preallocated
+ * slots, claimed with compare-and-set so any number of threads can record at once without
+ * locking, and written to the sinks by a single background thread.
+ *
+ * Recording an event copies a few references and numbers into its slot and allocates nothing.
+ * If the writer falls so far behind that the ring is full, new events are dropped and counted
+ * rather than holding up the thread recording them.
+ */
+public class EventJournal implements AutoCloseable {
+
+    public static final int DEFAULT_CAPACITY = 8192;
+
+    private static final EventJournal DISABLED = new EventJournal();
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final Logger log = LoggerFactory.getLogger(EventJournal.class);
+
+    private final JournalEvent[] ring;
+    private final int mask;
+    private final JournalSink[] sinks;
+    private final Thread writer;
+
+    private final AtomicLong claimed = new AtomicLong();
+    private volatile long written; //every event before this sequence has been written, freeing its slot
+    private final LongAdder dropped = new LongAdder();
+    private volatile boolean closed;
+
+    /**
+     * Creates a journal with the default capacity.
+     */
+    public EventJournal(JournalSink... sinks) {
+        this(DEFAULT_CAPACITY, sinks);
+    }
+
+    /**
+     * @param capacity Number of events that can wait to be written, rounded up to a power of two
+     */
+    public EventJournal(int capacity, JournalSink... sinks) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Journal must hold at least one event");
+        }
+        int size = Integer.highestOneBit(capacity) == capacity ? capacity : Integer.highestOneBit(capacity) << 1;
+        this.ring = new JournalEvent[size];
+        for (int i = 0; i < size; i++) {
+            ring[i] = new JournalEvent();
+        }
+        this.mask = size - 1;
+        this.sinks = sinks.clone();
+        this.writer = new Thread(this::writeEvents, "event-journal");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    private EventJournal() {
+        this.ring = null;
+        this.mask = 0;
+        this.sinks = new JournalSink[0];
+        this.writer = null;
+    }
+
+    /**
+     * @return Journal that ignores every event, without a writer thread
+     */
+    public static EventJournal disabled() {
+        return DISABLED;
+    }
+
+    public void sensorActivated(Sensor sensor) {
+        record(JournalEventType.SENSOR_ACTIVATED, sensor.getSensorId(), sensor.getName(), null, null);
+    }
+
+    public void sensorDeactivated(Sensor sensor) {
+        record(JournalEventType.SENSOR_DEACTIVATED, sensor.getSensorId(), sensor.getName(), null, null);
+    }
+
+    public void alarmStatusChanged(AlarmStatus previousStatus, AlarmStatus status) {
+        record(JournalEventType.ALARM_STATUS_CHANGED, null, null, previousStatus, status);
+    }
+
+    public void armingStatusChanged(ArmingStatus previousStatus, ArmingStatus status) {
+        record(JournalEventType.ARMING_STATUS_CHANGED, null, null, previousStatus, status);
+    }
+
+    private void record(JournalEventType type, UUID sensorId, String sensorName, Enum<?> previousStatus, Enum<?> status) {
+        if (writer == null || closed) {
+            return;
+        }
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (sequence - written >= ring.length) {
+                dropped.increment();
+                return;
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+
+        JournalEvent event = ring[(int) sequence & mask];
+        event.fill(sequence, System.currentTimeMillis(), type, sensorId, sensorName, previousStatus, status);
+        event.published = sequence;
+    }
+
+    /**
+     * @return Number of events dropped because the ring was full
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return Number of events written to the sinks so far
+     */
+    public long getWrittenCount() {
+        return written;
+    }
+
+    /**
+     * Writes the events recorded so far, then closes the sinks. Events recorded afterwards are
+     * ignored.
+     */
+    @Override
+    public void close() {
+        if (writer == null || closed) {
+            return;
+        }
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeEvents() {
+        long next = 0;
+        boolean unflushed = false;
+        while (true) {
+            JournalEvent event = ring[(int) next & mask];
+            if (event.published == next) {
+                for (JournalSink sink : sinks) {
+                    try {
+                        sink.write(event);
+                    } catch (IOException | RuntimeException e) {
+                        log.warn("Unable to write journal event {} to {}", next, sink, e);
+                    }
+                }
+                event.clear();
+                written = ++next;
+                unflushed = true;
+                continue;
+            }
+
+            if (unflushed) {
+                flushSinks();
+                unflushed = false;
+            }
+            //the slot may be claimed but not filled yet, in which case its event is still wanted
+            if (closed && claimed.get() == next) {
+                break;
+            }
+            LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+        }
+
+        for (JournalSink sink : sinks) {
+            try {
+                sink.close();
+            } catch (IOException e) {
+                log.warn("Unable to close journal sink {}", sink, e);
+            }
+        }
+    }
+
+    private void flushSinks() {
+        for (JournalSink sink : sinks) {
+            try {
+                sink.flush();
+            } catch (IOException | RuntimeException e) {
+                log.warn("Unable to flush journal sink {}", sink, e);
+            }
+        }
+    }
+}
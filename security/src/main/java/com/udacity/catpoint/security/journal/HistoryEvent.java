@@ -0,0 +1,74 @@
+package com.udacity.catpoint.security.journal;
+
+import java.util.UUID;
+
+/**
+ * Event read back from an {@link EventHistoryStore}.
+ */
+public final class HistoryEvent {
+    private final long sequence;
+    private final long timestamp;
+    private final JournalEventType type;
+    private final UUID sensorId;
+    private final Enum<?> previousStatus;
+    private final Enum<?> status;
+
+    HistoryEvent(long sequence, long timestamp, JournalEventType type, UUID sensorId, Enum<?> previousStatus, Enum<?> status) {
+        this.sequence = sequence;
+        this.timestamp = timestamp;
+        this.type = type;
+        this.sensorId = sensorId;
+        this.previousStatus = previousStatus;
+        this.status = status;
+    }
+
+    /**
+     * @return Position of the event in the journal that recorded it
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * @return When the event happened, in milliseconds since the epoch
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public JournalEventType getType() {
+        return type;
+    }
+
+    /**
+     * @return The sensor, or null for a status event
+     */
+    public UUID getSensorId() {
+        return sensorId;
+    }
+
+    /**
+     * @return The alarm or arming status before the change, or null for a sensor event
+     */
+    public Enum<?> getPreviousStatus() {
+        return previousStatus;
+    }
+
+    /**
+     * @return The alarm or arming status after the change, or null for a sensor event
+     */
+    public Enum<?> getStatus() {
+        return status;
+    }
+
+    @Override
+    public String toString() {
+        return "HistoryEvent{" +
+                "sequence=" + sequence +
+                ", timestamp=" + timestamp +
+                ", type=" + type +
+                (sensorId != null ? ", sensorId=" + sensorId : "") +
+                (status != null ? ", previousStatus=" + previousStatus + ", status=" + status : "") +
+                '}';
+    }
+}
@@ -0,0 +1,94 @@
+package com.udacity.catpoint.security.journal;
+
+import java.util.UUID;
+
+/**
+ * One slot of the journal's ring buffer. Slots are filled in place and handed to each
+ * {@link JournalSink} in turn, so a sink must copy whatever it needs before returning rather
+ * than keep the event.
+ *
+ * Sensor events have a sensor id and name. Status events have the previous and new status.
+ */
+public final class JournalEvent {
+
+    //sequence of the event now in the slot, written last so the slot is only read once filled
+    volatile long published = -1;
+
+    private long sequence;
+    private long timestamp;
+    private JournalEventType type;
+    private UUID sensorId;
+    private String sensorName;
+    private Enum<?> previousStatus;
+    private Enum<?> status;
+
+    JournalEvent() {
+    }
+
+    void fill(long sequence, long timestamp, JournalEventType type, UUID sensorId, String sensorName,
+              Enum<?> previousStatus, Enum<?> status) {
+        this.sequence = sequence;
+        this.timestamp = timestamp;
+        this.type = type;
+        this.sensorId = sensorId;
+        this.sensorName = sensorName;
+        this.previousStatus = previousStatus;
+        this.status = status;
+    }
+
+    /**
+     * Drops references to the sensor and statuses once the event has been written.
+     */
+    void clear() {
+        sensorId = null;
+        sensorName = null;
+        previousStatus = null;
+        status = null;
+    }
+
+    /**
+     * @return Position of the event in the journal, starting at 0
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * @return When the event happened, in milliseconds since the epoch
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public JournalEventType getType() {
+        return type;
+    }
+
+    /**
+     * @return The sensor, or null for a status event
+     */
+    public UUID getSensorId() {
+        return sensorId;
+    }
+
+    /**
+     * @return The sensor's name, or null for a status event
+     */
+    public String getSensorName() {
+        return sensorName;
+    }
+
+    /**
+     * @return The alarm or arming status before the change, or null for a sensor event
+     */
+    public Enum<?> getPreviousStatus() {
+        return previousStatus;
+    }
+
+    /**
+     * @return The alarm or arming status after the change, or null for a sensor event
+     */
+    public Enum<?> getStatus() {
+        return status;
+    }
+}
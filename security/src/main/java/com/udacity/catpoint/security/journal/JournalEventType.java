@@ -0,0 +1,11 @@
+package com.udacity.catpoint.security.journal;
+
+/**
+ * Kinds of event recorded in the {@link EventJournal}.
+ */
+public enum JournalEventType {
+    SENSOR_ACTIVATED,
+    SENSOR_DEACTIVATED,
+    ALARM_STATUS_CHANGED,
+    ARMING_STATUS_CHANGED
+}
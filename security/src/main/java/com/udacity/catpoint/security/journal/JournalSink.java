@@ -0,0 +1,27 @@
+package com.udacity.catpoint.security.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Destination for journal events. Sinks are only called from the journal's writer thread, one
+ * event at a time, so they don't need to be thread safe.
+ */
+public interface JournalSink extends Closeable {
+
+    /**
+     * Writes one event. The event is reused once this returns, so it must not be kept.
+     */
+    void write(JournalEvent event) throws IOException;
+
+    /**
+     * Called whenever the journal has written every event recorded so far, so a buffering sink
+     * can write its buffer out.
+     */
+    default void flush() throws IOException {
+    }
+
+    @Override
+    default void close() throws IOException {
+    }
+}
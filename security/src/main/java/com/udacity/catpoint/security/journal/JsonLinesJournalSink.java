@@ -0,0 +1,78 @@
+package com.udacity.catpoint.security.journal;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes each event as a line of JSON, for example
+ * {@code {"sequence":3,"timestamp":1608000000000,"type":"SENSOR_ACTIVATED","sensorId":"...","sensorName":"Front door"}}.
+ * Output is buffered and written out whenever the journal catches up.
+ */
+public class JsonLinesJournalSink implements JournalSink {
+
+    private final Writer writer;
+    private final StringBuilder line = new StringBuilder(160);
+
+    /**
+     * Appends to the file, creating it if necessary.
+     */
+    public JsonLinesJournalSink(Path file) throws IOException {
+        this(Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+    }
+
+    public JsonLinesJournalSink(Writer writer) {
+        this.writer = writer;
+    }
+
+    @Override
+    public void write(JournalEvent event) throws IOException {
+        line.setLength(0);
+        line.append("{\"sequence\":").append(event.getSequence())
+                .append(",\"timestamp\":").append(event.getTimestamp())
+                .append(",\"type\":\"").append(event.getType().name()).append('"');
+        if (event.getSensorId() != null) {
+            line.append(",\"sensorId\":\"").append(event.getSensorId()).append('"');
+            line.append(",\"sensorName\":");
+            appendString(event.getSensorName());
+        }
+        if (event.getStatus() != null) {
+            line.append(",\"previousStatus\":\"").append(event.getPreviousStatus().name()).append('"');
+            line.append(",\"status\":\"").append(event.getStatus().name()).append('"');
+        }
+        line.append("}\n");
+        writer.append(line);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    private void appendString(String value) {
+        if (value == null) {
+            line.append("null");
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                line.append('\\').append(c);
+            } else if (c < 0x20) {
+                line.append(String.format("\\u%04x", (int) c));
+            } else {
+                line.append(c);
+            }
+        }
+        line.append('"');
+    }
+}
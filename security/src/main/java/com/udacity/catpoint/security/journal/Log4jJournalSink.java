@@ -0,0 +1,45 @@
+package com.udacity.catpoint.security.journal;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.StringMapMessage;
+
+/**
+ * Logs each event through log4j2 as a map message, so the logging configuration decides where
+ * events go and a JSON or key-value layout keeps their fields apart. Log4j2 is an optional
+ * dependency of this module; this sink is the only class that needs it.
+ */
+public class Log4jJournalSink implements JournalSink {
+
+    public static final String LOGGER_NAME = "com.udacity.catpoint.security.journal";
+
+    private final Logger logger;
+
+    public Log4jJournalSink() {
+        this(LogManager.getLogger(LOGGER_NAME));
+    }
+
+    public Log4jJournalSink(Logger logger) {
+        this.logger = logger;
+    }
+
+    @Override
+    public void write(JournalEvent event) {
+        if (!logger.isInfoEnabled()) {
+            return;
+        }
+        StringMapMessage message = new StringMapMessage()
+                .with("sequence", Long.toString(event.getSequence()))
+                .with("timestamp", Long.toString(event.getTimestamp()))
+                .with("type", event.getType().name());
+        if (event.getSensorId() != null) {
+            message.with("sensorId", event.getSensorId().toString());
+            message.with("sensorName", event.getSensorName());
+        }
+        if (event.getStatus() != null) {
+            message.with("previousStatus", event.getPreviousStatus().name());
+            message.with("status", event.getStatus().name());
+        }
+        logger.info(message);
+    }
+}
@@ -1,19 +1,35 @@
 package com.udacity.catpoint.security.service;
 
+import com.udacity.catpoint.image.metrics.Counter;
+import com.udacity.catpoint.image.metrics.MeterRegistry;
+import com.udacity.catpoint.image.service.AsyncImageClassifier;
+import com.udacity.catpoint.image.service.CameraScopedImageService;
 import com.udacity.catpoint.image.service.ImageService;
+import com.udacity.catpoint.security.application.SensorChangeType;
 import com.udacity.catpoint.security.application.StatusListener;
 import com.udacity.catpoint.security.data.AlarmStatus;
 import com.udacity.catpoint.security.data.ArmingStatus;
+import com.udacity.catpoint.security.data.Camera;
 import com.udacity.catpoint.security.data.SecurityRepository;
 import com.udacity.catpoint.security.data.Sensor;
+import com.udacity.catpoint.security.data.SensorChange;
+import com.udacity.catpoint.security.journal.EventJournal;
 
 import java.awt.image.BufferedImage;
-import java.util.HashSet;
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentSkipListSet;
-import java.util.stream.Collectors;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
 
 /**
  * Service that receives information about changes to the security system. Responsible for
@@ -21,23 +37,104 @@ import java.util.stream.Collectors;
  *
  * This is the class that should contain most of the business logic for our system, and it is the
  * class you will be writing unit tests for.
+ *
+ * The arming and alarm status live in a single immutable {@link SecurityState} that is advanced
+ * with compare-and-set, so sensors and cameras can report from any thread without losing a
+ * transition. The state, along with the number of active sensors, is read from the repository
+ * once, when the service is created, and the statuses are written back to it after every change.
+ *
+ * Listeners are notified through a {@link StatusListenerDispatcher}, so a slow listener never
+ * holds up sensor or camera processing.
+ *
+ * Each camera keeps its own latest verdict, and a cat counts as detected while any camera sees
+ * one. Frames from different cameras are classified in parallel; the verdicts of each camera
+ * are applied in the order its frames were submitted. An image service that keeps state between
+ * frames, a {@link CameraScopedImageService}, is given the frames of each camera separately.
+ *
+ * Sensor activations, deactivations and alarm transitions are counted in a {@link MeterRegistry}
+ * and recorded in an {@link EventJournal}.
  */
 public class SecurityService {
 
+    /**
+     * Confidence, from 0 to 100, the image service must have that an image contains a cat.
+     */
+    public static final float DEFAULT_CAT_CONFIDENCE_THRESHOLD = 50.0f;
+
     private ImageService imageService;
+    private volatile float catConfidenceThreshold = DEFAULT_CAT_CONFIDENCE_THRESHOLD;
+    private final AsyncImageClassifier imageClassifier;
+    private final Map<UUID, CameraState> cameras = new ConcurrentHashMap<>();
+    private final Camera defaultCamera = new Camera("Camera");
     private SecurityRepository securityRepository;
-    private Set<StatusListener> statusListeners = new HashSet<>();
+    private final StatusListenerDispatcher statusListeners;
+
+    private final AtomicReference<SecurityState> state;
+    private SecurityState persistedState; //guarded by the lock on securityRepository
+
+    private final Counter sensorActivations;
+    private final Counter sensorDeactivations;
+    private final Counter[][] alarmTransitions; //indexed by the ordinals of the old and new status, which differ
+    private final EventJournal journal;
 
     public SecurityService(SecurityRepository securityRepository, ImageService imageService) {
+        this(securityRepository, imageService, null);
+    }
+
+    /**
+     * @param listenerExecutor Executor that notifies listeners other than Swing components, or
+     *                         null to give the service its own pool of daemon threads
+     */
+    public SecurityService(SecurityRepository securityRepository, ImageService imageService, Executor listenerExecutor) {
+        this(securityRepository, imageService, listenerExecutor, MeterRegistry.noop());
+    }
+
+    /**
+     * @param listenerExecutor Executor that notifies listeners other than Swing components, or
+     *                         null to give the service its own pool of daemon threads
+     * @param meterRegistry Registry to count sensor and alarm changes in
+     */
+    public SecurityService(SecurityRepository securityRepository, ImageService imageService, Executor listenerExecutor,
+                           MeterRegistry meterRegistry) {
+        this(securityRepository, imageService, listenerExecutor, meterRegistry, EventJournal.disabled());
+    }
+
+    /**
+     * @param listenerExecutor Executor that notifies listeners other than Swing components, or
+     *                         null to give the service its own pool of daemon threads
+     * @param meterRegistry Registry to count sensor and alarm changes in
+     * @param journal Journal to record sensor and status changes in
+     */
+    public SecurityService(SecurityRepository securityRepository, ImageService imageService, Executor listenerExecutor,
+                           MeterRegistry meterRegistry, EventJournal journal) {
+        this.journal = journal;
+        this.sensorActivations = meterRegistry.counter("catpoint.sensor.activations");
+        this.sensorDeactivations = meterRegistry.counter("catpoint.sensor.deactivations");
+        AlarmStatus[] statuses = AlarmStatus.values();
+        this.alarmTransitions = new Counter[statuses.length][statuses.length];
+        for (AlarmStatus from : statuses) {
+            for (AlarmStatus to : statuses) {
+                if (from == to) {
+                    continue;
+                }
+                alarmTransitions[from.ordinal()][to.ordinal()] = meterRegistry.counter("catpoint.alarm.transitions",
+                        "from", from.name(), "to", to.name());
+            }
+        }
         this.securityRepository = securityRepository;
         this.imageService = imageService;
+        this.imageClassifier = new AsyncImageClassifier(imageService);
+        this.persistedState = new SecurityState(securityRepository.getArmingStatus(), securityRepository.getAlarmStatus(),
+                securityRepository.getActiveSensorCount(), 0, 0);
+        this.state = new AtomicReference<>(persistedState);
+        addCamera(defaultCamera);
+        this.statusListeners = listenerExecutor == null
+                ? new StatusListenerDispatcher(this::getAlarmStatus, this::isCatDetected)
+                : new StatusListenerDispatcher(this::getAlarmStatus, this::isCatDetected, listenerExecutor);
     }
 
     Set<Sensor> getActiveSensors(){
-        return getSensors()
-                .stream()
-                .filter(Sensor::getActive)
-                .collect(Collectors.toSet());
+        return securityRepository.getActiveSensors();
     }
 
     /**
@@ -46,26 +143,18 @@ public class SecurityService {
      * @param armingStatus
      */
     public void setArmingStatus(ArmingStatus armingStatus) {
-        if(armingStatus == ArmingStatus.DISARMED) {
-            setAlarmStatus(AlarmStatus.NO_ALARM);
-        } else if (systemArmed(armingStatus)){
+        if (systemArmed(armingStatus)){
             setFalseActivationStatusForSensors(this.getActiveSensors());
         }
-        securityRepository.setArmingStatus(armingStatus);
+        transition(s -> s.withArmingStatus(armingStatus));
     }
 
     private void setFalseActivationStatusForSensors(Set<Sensor> sensors) {
-
-        ConcurrentSkipListSet<Sensor> cloned = new ConcurrentSkipListSet<>(sensors);
-
-        Iterator<Sensor> sensorIterator = cloned.iterator();
-
-        //avoid the concurrentModification exception here
-        while (sensorIterator.hasNext()){
-            Sensor sensor = sensorIterator.next();
-            sensor.setActive(true); //sensor can only be deactivated if it was active before
-            changeSensorActivationStatus(sensor, false);
+        List<SensorChange> changes = new ArrayList<>(sensors.size());
+        for (Sensor sensor : sensors) {
+            changes.add(new SensorChange(sensor, false));
         }
+        applySensorChanges(changes);
     }
 
     boolean systemArmed(ArmingStatus armingStatus){
@@ -74,17 +163,23 @@ public class SecurityService {
     }
 
     /**
-     * Internal method that handles alarm status changes based on whether
-     * the camera currently shows a cat.
-     * @param cat True if a cat is detected, otherwise false.
+     * Records a camera's verdict on one of its frames, unless a verdict on a later frame from the
+     * same camera has been recorded already, then applies the alarm rules to whether any camera
+     * now sees a cat.
      */
-    private void catDetected(Boolean cat) {
-        if(cat && getArmingStatus() == ArmingStatus.ARMED_HOME) {
-            setAlarmStatus(AlarmStatus.ALARM);
-        } else if (!cat && allSensorsInactive()){
-            setAlarmStatus(AlarmStatus.NO_ALARM);
+    private void cameraVerdict(CameraState camera, long frame, boolean cat) {
+        //only frames of the same camera contend for this lock, which keeps each camera's changes to the count in order
+        synchronized (camera) {
+            if (frame <= camera.latestFrameApplied || cameras.get(camera.camera.getCameraId()) != camera) {
+                return; //stale verdict, or the camera was removed meanwhile
+            }
+            camera.latestFrameApplied = frame;
+            int change = camera.catVisible == cat ? 0 : cat ? 1 : -1;
+            camera.catVisible = cat;
+            //the count and the alarm rules move together, so the rules never act on a count another camera has changed since
+            transition(s -> s.afterCameraVerdict(change));
         }
-        statusListeners.forEach(sl -> sl.catDetected(cat));
+        statusListeners.catDetectionChanged();
     }
 
     /**
@@ -92,11 +187,11 @@ public class SecurityService {
      * @param statusListener
      */
     public void addStatusListener(StatusListener statusListener) {
-        statusListeners.add(statusListener);
+        statusListeners.addStatusListener(statusListener);
     }
 
     public void removeStatusListener(StatusListener statusListener) {
-        statusListeners.remove(statusListener);
+        statusListeners.removeStatusListener(statusListener);
     }
 
     /**
@@ -104,54 +199,73 @@ public class SecurityService {
      * @param status
      */
     public void setAlarmStatus(AlarmStatus status) {
-        securityRepository.setAlarmStatus(status); //mod for 3 here
-        statusListeners.forEach(sl -> sl.notify(status));
+        transition(s -> s.withAlarmStatus(status));
+    }
+
+    /**
+     * Advances the state with compare-and-set, retrying against the latest state if another
+     * thread changed it first, then persists the change and notifies listeners of a new alarm status.
+     * @return The state this transition produced, or the state it left unchanged
+     */
+    private SecurityState transition(UnaryOperator<SecurityState> transition) {
+        SecurityState current;
+        SecurityState next;
+        do {
+            current = state.get();
+            next = transition.apply(current);
+            if (next == current) {
+                return current;
+            }
+        } while (!state.compareAndSet(current, next));
+
+        persistState();
+        //a repository that never stored a status starts with none, so there is no transition to count or journal
+        if (next.getArmingStatus() != current.getArmingStatus() && current.getArmingStatus() != null) {
+            journal.armingStatusChanged(current.getArmingStatus(), next.getArmingStatus());
+        }
+        if (next.getAlarmStatus() != current.getAlarmStatus()) {
+            if (current.getAlarmStatus() != null) {
+                alarmTransitions[current.getAlarmStatus().ordinal()][next.getAlarmStatus().ordinal()].increment();
+                journal.alarmStatusChanged(current.getAlarmStatus(), next.getAlarmStatus());
+            }
+            statusListeners.alarmStatusChanged();
+        }
+        return next;
     }
 
-    private boolean allSensorsInactive() {
-        return getSensors()
-                .stream()
-                .noneMatch(Sensor::getActive);
+    /**
+     * Writes the latest state to the repository. Threads may finish their transitions out of
+     * order, so the newest state is written, and only if it hasn't been written already.
+     */
+    private void persistState() {
+        synchronized (securityRepository) {
+            SecurityState latest = state.get();
+            if (latest.getVersion() <= persistedState.getVersion()) {
+                return;
+            }
+            if (latest.getArmingStatus() != persistedState.getArmingStatus()) {
+                securityRepository.setArmingStatus(latest.getArmingStatus());
+            }
+            if (latest.getAlarmStatus() != persistedState.getAlarmStatus()) {
+                securityRepository.setAlarmStatus(latest.getAlarmStatus());
+            }
+            persistedState = latest;
+        }
     }
 
     /**
      * Internal method for updating the alarm status when a sensor has been activated.
      */
     private void handleSensorActivated() {
-        if(securityRepository.getArmingStatus() == ArmingStatus.DISARMED) {
-            return; //no problem if the system is disarmed
-        }
-
-        AlarmStatus alarmStatus = securityRepository.getAlarmStatus();
-
-        switch(alarmStatus) {
-            case NO_ALARM -> setAlarmStatus(AlarmStatus.PENDING_ALARM);
-            case PENDING_ALARM -> setAlarmStatus(AlarmStatus.ALARM);
-
-            default -> {}
-        }
+        transition(SecurityState::afterSensorActivated);
     }
 
     /**
      * Internal method for updating the alarm status when a sensor has been deactivated
      * change in sensor state should not affect the alarm if it was already active
      */
-    private void handleSensorDeactivated(Sensor currSensor) {
-        if (securityRepository.getArmingStatus() == ArmingStatus.DISARMED){
-            return;
-        }
-
-        if (securityRepository.getAlarmStatus() == AlarmStatus.PENDING_ALARM) {
-            Set<Sensor> allSensors = getSensors();
-            /*
-               if all sensors are inactive except currSensor
-               currSensor is about to be deactivated so, it will be inactive too
-             */
-            allSensors.remove(currSensor);
-            if (allSensorsInactive()){
-                setAlarmStatus(AlarmStatus.NO_ALARM);
-            }
-        }
+    private void handleSensorDeactivated() {
+        transition(SecurityState::afterSensorDeactivated);
     }
 
     /**
@@ -166,16 +280,65 @@ public class SecurityService {
 
         if (activate || deaActivate){
             if (activate){
-                System.out.println("Activating sensor " + sensor.getSensorId());
+                journal.sensorActivated(sensor);
+                sensorActivations.increment();
                 handleSensorActivated();
             } else {
-                System.out.println("Deactivating sensor " + sensor.getSensorId());
-                handleSensorDeactivated(sensor);
+                journal.sensorDeactivated(sensor);
+                sensorDeactivations.increment();
+                handleSensorDeactivated();
             }
         }
         sensor.setActive(active);
 
         securityRepository.updateSensor(sensor);
+        if (activate || deaActivate) {
+            statusListeners.sensorChanged(sensor, SensorChangeType.UPDATED);
+            statusListeners.sensorStatusChanged();
+        }
+    }
+
+    /**
+     * Change the activation status of many sensors at once. The alarm status is worked out as if
+     * the changes were made one after another, but it is only updated once, the sensors are stored
+     * with a single repository write and listeners are notified once for the whole batch.
+     * @param changes Changes to apply, in order. Changes that don't alter a sensor are ignored.
+     */
+    public void applySensorChanges(Collection<SensorChange> changes) {
+        boolean[] activations = new boolean[changes.size()];
+        int count = 0;
+        Set<Sensor> changed = new LinkedHashSet<>();
+        for (SensorChange change : changes) {
+            Sensor sensor = change.getSensor();
+            if (sensor.getActive() != change.isActive()) {
+                activations[count++] = change.isActive();
+                if (change.isActive()) {
+                    journal.sensorActivated(sensor);
+                    sensorActivations.increment();
+                } else {
+                    journal.sensorDeactivated(sensor);
+                    sensorDeactivations.increment();
+                }
+                sensor.setActive(change.isActive());
+                changed.add(sensor);
+            }
+        }
+        if (changed.isEmpty()) {
+            return;
+        }
+
+        int changeCount = count;
+        transition(s -> {
+            for (int i = 0; i < changeCount; i++) {
+                s = activations[i] ? s.afterSensorActivated() : s.afterSensorDeactivated();
+            }
+            return s;
+        });
+        securityRepository.updateSensors(changed);
+        for (Sensor sensor : changed) {
+            statusListeners.sensorChanged(sensor, SensorChangeType.UPDATED);
+        }
+        statusListeners.sensorStatusChanged();
     }
 
     /**
@@ -184,26 +347,169 @@ public class SecurityService {
      * @param currentCameraImage
      */
     public void processImage(BufferedImage currentCameraImage) {
-        catDetected(imageService.imageContainsCat(currentCameraImage, 50.0f));
+        processImage(defaultCamera.getCameraId(), currentCameraImage);
+    }
+
+    /**
+     * Process an image from the given camera.
+     * @throws IllegalArgumentException If the camera has not been added
+     */
+    public void processImage(UUID cameraId, BufferedImage currentCameraImage) {
+        CameraState camera = cameraState(cameraId);
+        long frame = camera.framesSubmitted.incrementAndGet();
+        cameraVerdict(camera, frame, camera.imageService.imageContainsCat(currentCameraImage, catConfidenceThreshold));
+    }
+
+    /**
+     * Send an image to the SecurityService for processing without waiting for the result.
+     * @return Whether the image contains a cat, once it has been processed
+     */
+    public CompletableFuture<Boolean> processImageAsync(BufferedImage currentCameraImage) {
+        return processImageAsync(defaultCamera.getCameraId(), currentCameraImage);
+    }
+
+    /**
+     * Process an image from the given camera without waiting for the result. Images are
+     * classified concurrently, so a verdict that arrives after the verdict for a later image from
+     * the same camera is ignored rather than applied out of order.
+     * @return Whether the image contains a cat, once it has been processed. Cancelling it stops
+     * the classification, and the image is then ignored.
+     * @throws IllegalArgumentException If the camera has not been added
+     */
+    public CompletableFuture<Boolean> processImageAsync(UUID cameraId, BufferedImage currentCameraImage) {
+        CameraState camera = cameraState(cameraId);
+        long frame = camera.framesSubmitted.incrementAndGet();
+        CompletableFuture<Boolean> classification = imageClassifier.classifyAsync(camera.imageService, currentCameraImage, catConfidenceThreshold);
+        CompletableFuture<Boolean> result = classification.thenApply(cat -> {
+            cameraVerdict(camera, frame, cat);
+            return cat;
+        });
+        result.whenComplete((cat, e) -> {
+            if (e instanceof CancellationException) {
+                classification.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Sets the confidence, from 0 to 100, the image service must have that an image contains a
+     * cat. Applies to images processed from now on.
+     * @throws IllegalArgumentException If the threshold is not between 0 and 100
+     */
+    public void setCatConfidenceThreshold(float catConfidenceThreshold) {
+        if (!(catConfidenceThreshold >= 0 && catConfidenceThreshold <= 100)) {
+            throw new IllegalArgumentException("Confidence threshold must be between 0 and 100: " + catConfidenceThreshold);
+        }
+        this.catConfidenceThreshold = catConfidenceThreshold;
+    }
+
+    public void addCamera(Camera camera) {
+        cameras.computeIfAbsent(camera.getCameraId(), id -> new CameraState(camera, imageService instanceof CameraScopedImageService
+                ? ((CameraScopedImageService) imageService).forCamera(id)
+                : imageService));
+    }
+
+    /**
+     * Removes the camera. If it was seeing a cat, it no longer counts towards a cat being detected.
+     */
+    public void removeCamera(Camera camera) {
+        CameraState removed = cameras.remove(camera.getCameraId());
+        if (removed == null) {
+            return;
+        }
+        if (imageService instanceof CameraScopedImageService) {
+            ((CameraScopedImageService) imageService).removeCamera(removed.camera.getCameraId());
+        }
+        synchronized (removed) {
+            if (removed.catVisible) {
+                removed.catVisible = false;
+                transition(s -> s.withCamerasSeeingCatAdded(-1));
+            }
+        }
+    }
+
+    public List<Camera> getCameras() {
+        List<Camera> result = new ArrayList<>(cameras.size());
+        cameras.values().forEach(state -> result.add(state.camera));
+        return result;
+    }
+
+    /**
+     * @return The camera that images are attributed to when no camera is given
+     */
+    public Camera getDefaultCamera() {
+        return defaultCamera;
+    }
+
+    /**
+     * @return Number of cameras whose latest verdict was that they see a cat
+     */
+    public int getCamerasSeeingCat() {
+        return state.get().getCamerasSeeingCat();
+    }
+
+    private boolean isCatDetected() {
+        return getCamerasSeeingCat() > 0;
+    }
+
+    private CameraState cameraState(UUID cameraId) {
+        CameraState camera = cameras.get(cameraId);
+        if (camera == null) {
+            throw new IllegalArgumentException("Unknown camera " + cameraId);
+        }
+        return camera;
     }
 
     public AlarmStatus getAlarmStatus() {
-        return securityRepository.getAlarmStatus();
+        return state.get().getAlarmStatus();
     }
 
     public Set<Sensor> getSensors() {
         return securityRepository.getSensors();
     }
 
+    /**
+     * @return Number of sensors, without copying them as {@link #getSensors()} does
+     */
+    public int getSensorCount() {
+        return securityRepository.getSensorCount();
+    }
+
     public void addSensor(Sensor sensor) {
         securityRepository.addSensor(sensor);
+        if (sensor.getActive()) {
+            transition(s -> s.withActiveSensorsAdded(1));
+        }
+        statusListeners.sensorChanged(sensor, SensorChangeType.ADDED);
     }
 
     public void removeSensor(Sensor sensor) {
         securityRepository.removeSensor(sensor);
+        if (sensor.getActive()) {
+            transition(s -> s.withActiveSensorsAdded(-1));
+        }
+        statusListeners.sensorChanged(sensor, SensorChangeType.REMOVED);
     }
 
     public ArmingStatus getArmingStatus() {
-        return securityRepository.getArmingStatus();
+        return state.get().getArmingStatus();
+    }
+
+    /**
+     * Latest verdict of one camera. Frames are numbered as they are submitted, so verdicts that
+     * complete out of order can be told apart.
+     */
+    private static class CameraState {
+        private final Camera camera;
+        private final ImageService imageService; //classifies the frames of this camera
+        private final AtomicLong framesSubmitted = new AtomicLong();
+        private long latestFrameApplied; //guarded by this
+        private boolean catVisible; //guarded by this
+
+        CameraState(Camera camera, ImageService imageService) {
+            this.camera = camera;
+            this.imageService = imageService;
+        }
     }
 }
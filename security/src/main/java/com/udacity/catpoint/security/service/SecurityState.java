@@ -0,0 +1,144 @@
+package com.udacity.catpoint.security.service;
+
+import com.udacity.catpoint.security.data.AlarmStatus;
+import com.udacity.catpoint.security.data.ArmingStatus;
+
+/**
+ * Immutable snapshot of the arming and alarm status, and of the numbers of active sensors and of
+ * cameras seeing a cat that the alarm rules depend on. The alarm rules are written as pure
+ * transitions from one snapshot to the next, so the {@link SecurityService} can advance its state
+ * with a compare-and-set and retry if another thread got there first. Keeping the counts in the
+ * snapshot means a rule never sees a count that another thread has changed since.
+ *
+ * Transitions that change nothing return the same instance.
+ */
+final class SecurityState {
+
+    private final ArmingStatus armingStatus;
+    private final AlarmStatus alarmStatus;
+    private final int activeSensors;
+    private final int camerasSeeingCat;
+    private final long version;
+
+    SecurityState(ArmingStatus armingStatus, AlarmStatus alarmStatus, int activeSensors, int camerasSeeingCat, long version) {
+        this.armingStatus = armingStatus;
+        this.alarmStatus = alarmStatus;
+        this.activeSensors = activeSensors;
+        this.camerasSeeingCat = camerasSeeingCat;
+        this.version = version;
+    }
+
+    ArmingStatus getArmingStatus() {
+        return armingStatus;
+    }
+
+    AlarmStatus getAlarmStatus() {
+        return alarmStatus;
+    }
+
+    int getActiveSensors() {
+        return activeSensors;
+    }
+
+    int getCamerasSeeingCat() {
+        return camerasSeeingCat;
+    }
+
+    /**
+     * Incremented by every transition that changes something, so a newer snapshot can be told apart from an older one.
+     */
+    long getVersion() {
+        return version;
+    }
+
+    SecurityState withAlarmStatus(AlarmStatus status) {
+        return status == alarmStatus ? this : new SecurityState(armingStatus, status, activeSensors, camerasSeeingCat, version + 1);
+    }
+
+    /**
+     * Counts sensors that were already active when they were added, or still active when they
+     * were removed. The alarm is not affected.
+     */
+    SecurityState withActiveSensorsAdded(int added) {
+        return added == 0 ? this : new SecurityState(armingStatus, alarmStatus, Math.max(0, activeSensors + added), camerasSeeingCat, version + 1);
+    }
+
+    /**
+     * Disarming the system always clears the alarm.
+     */
+    SecurityState withArmingStatus(ArmingStatus status) {
+        AlarmStatus alarm = status == ArmingStatus.DISARMED ? AlarmStatus.NO_ALARM : alarmStatus;
+        if (status == armingStatus && alarm == alarmStatus) {
+            return this;
+        }
+        return new SecurityState(status, alarm, activeSensors, camerasSeeingCat, version + 1);
+    }
+
+    /**
+     * Counts cameras that started or stopped seeing a cat, without applying the cat rules, as
+     * when a camera that sees a cat is removed.
+     */
+    SecurityState withCamerasSeeingCatAdded(int added) {
+        return added == 0 ? this : new SecurityState(armingStatus, alarmStatus, activeSensors, camerasSeeingCat + added, version + 1);
+    }
+
+    /**
+     * An armed system escalates one step each time a sensor is activated.
+     */
+    SecurityState afterSensorActivated() {
+        SecurityState counted = new SecurityState(armingStatus, alarmStatus, activeSensors + 1, camerasSeeingCat, version + 1);
+        if (armingStatus == ArmingStatus.DISARMED) {
+            return counted; //no problem if the system is disarmed
+        }
+        switch (alarmStatus) {
+            case NO_ALARM -> {
+                return counted.withAlarmStatus(AlarmStatus.PENDING_ALARM);
+            }
+            case PENDING_ALARM -> {
+                return counted.withAlarmStatus(AlarmStatus.ALARM);
+            }
+            default -> {
+                return counted;
+            }
+        }
+    }
+
+    /**
+     * A pending alarm is cleared once the last active sensor is deactivated. An alarm that already
+     * went off is not affected.
+     */
+    SecurityState afterSensorDeactivated() {
+        //the repository may hold sensors this count never saw activated, so it never drops below zero
+        SecurityState counted = new SecurityState(armingStatus, alarmStatus, Math.max(0, activeSensors - 1), camerasSeeingCat, version + 1);
+        if (armingStatus == ArmingStatus.DISARMED) {
+            return counted;
+        }
+        if (alarmStatus == AlarmStatus.PENDING_ALARM && counted.activeSensors == 0) {
+            return counted.withAlarmStatus(AlarmStatus.NO_ALARM);
+        }
+        return counted;
+    }
+
+    /**
+     * Counts a camera that started or stopped seeing a cat, then applies the cat rules to whether
+     * any camera sees one now.
+     * @param change 1 if the camera started seeing a cat, -1 if it stopped, 0 if its verdict didn't change
+     */
+    SecurityState afterCameraVerdict(int change) {
+        SecurityState counted = withCamerasSeeingCatAdded(change);
+        return counted.afterCatDetected(counted.camerasSeeingCat > 0);
+    }
+
+    /**
+     * A cat sets off the alarm while armed at home, and the all-clear from the cameras resets the
+     * alarm as long as no sensors are active.
+     */
+    private SecurityState afterCatDetected(boolean cat) {
+        if (cat && armingStatus == ArmingStatus.ARMED_HOME) {
+            return withAlarmStatus(AlarmStatus.ALARM);
+        } else if (!cat && activeSensors == 0) {
+            return withAlarmStatus(AlarmStatus.NO_ALARM);
+        }
+        return this;
+    }
+}
@@ -0,0 +1,307 @@
+package com.udacity.catpoint.security.service;
+
+import com.udacity.catpoint.security.data.Sensor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Asynchronous ingestion for sensor activation events. Producers submit events into a bounded
+ * ring buffer and return immediately, while a single worker thread applies them to the
+ * {@link SecurityService} in the order they were accepted. Because only the worker applies
+ * events, the alarm decisions see one event at a time without producers waiting on disk
+ * writes or listeners.
+ *
+ * The pipeline is opt-in, for producers that report many changes a second, such as the
+ * simulator. The GUI still calls {@link SecurityService#changeSensorActivationStatus} directly:
+ * its changes are single clicks on the event dispatch thread, which gain nothing from a queue
+ * and must not wait for room in one.
+ */
+public class SensorEventPipeline implements AutoCloseable {
+
+    /**
+     * What happens when a producer submits an event.
+     */
+    public enum BackpressurePolicy {
+        /** Producers wait until there is room in the buffer. */
+        BLOCK,
+        /** The oldest queued event is discarded to make room for the new one. */
+        DROP_OLDEST,
+        /**
+         * An event for a sensor that is already queued is merged into the queued event rather than
+         * taking a new slot, so producers only wait when the buffer is full of distinct sensors.
+         * A merged event applies the state first queued, then an activation if one came later,
+         * then the latest state. Repeated flapping is folded away, but a sensor switched on and
+         * off again before the worker gets to it is still seen as active.
+         */
+        COALESCE
+    }
+
+    private final Logger log = LoggerFactory.getLogger(SensorEventPipeline.class);
+
+    private final SecurityService securityService;
+    private final BackpressurePolicy policy;
+
+    //ring buffer slots, indexed by event sequence number modulo capacity
+    private final Sensor[] sensors;
+    private final boolean[] activations;
+    //for COALESCE, whether an activation was merged into a slot queued as inactive, and the
+    //latest state merged into it
+    private final boolean[] laterActivations;
+    private final boolean[] latestActivations;
+    //for COALESCE, an open-addressed table from each queued sensor to its slot, so finding a
+    //sensor's queued event allocates nothing
+    private final Sensor[] queuedSensors;
+    private final int[] queuedSlots;
+    private long head; //sequence of the oldest queued event
+    private long tail; //sequence the next accepted event will get
+    private boolean closed;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final Thread worker;
+
+    private long submitted;
+    private long dropped;
+    private long coalesced;
+    private final AtomicLong applied = new AtomicLong();
+    private final long startNanos = System.nanoTime();
+
+    public SensorEventPipeline(SecurityService securityService, int capacity, BackpressurePolicy policy) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.securityService = securityService;
+        this.policy = policy;
+        this.sensors = new Sensor[capacity];
+        this.activations = new boolean[capacity];
+        this.laterActivations = new boolean[policy == BackpressurePolicy.COALESCE ? capacity : 0];
+        this.latestActivations = new boolean[policy == BackpressurePolicy.COALESCE ? capacity : 0];
+        int tableSize = policy == BackpressurePolicy.COALESCE ? Integer.highestOneBit(capacity) * 4 : 0;
+        this.queuedSensors = new Sensor[tableSize];
+        this.queuedSlots = new int[tableSize];
+
+        worker = new Thread(this::applyEvents, "sensor-event-pipeline");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Queues a change to the sensor's activation status.
+     * @throws InterruptedException If interrupted while waiting for room in the buffer
+     * @throws IllegalStateException If the pipeline has been closed
+     */
+    public void submit(Sensor sensor, boolean active) throws InterruptedException {
+        lock.lock();
+        try {
+            while (true) {
+                if (closed) {
+                    throw new IllegalStateException("Sensor event pipeline is closed");
+                }
+                int queued = policy == BackpressurePolicy.COALESCE ? queuedSlot(sensor) : -1;
+                if (queued >= 0) {
+                    laterActivations[queued] |= active;
+                    latestActivations[queued] = active;
+                    submitted++;
+                    coalesced++;
+                    return;
+                }
+                if (tail - head < sensors.length) {
+                    break;
+                }
+                if (policy == BackpressurePolicy.DROP_OLDEST) {
+                    sensors[slot(head)] = null;
+                    head++;
+                    dropped++;
+                } else {
+                    notFull.await();
+                }
+            }
+
+            int slot = slot(tail);
+            sensors[slot] = sensor;
+            activations[slot] = active;
+            if (policy == BackpressurePolicy.COALESCE) {
+                laterActivations[slot] = false;
+                latestActivations[slot] = active;
+                addQueued(sensor, slot);
+            }
+            tail++;
+            submitted++;
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            return (int) (tail - head);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getSubmittedCount() {
+        lock.lock();
+        try {
+            return submitted;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getDroppedCount() {
+        lock.lock();
+        try {
+            return dropped;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getCoalescedCount() {
+        lock.lock();
+        try {
+            return coalesced;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getAppliedCount() {
+        return applied.get();
+    }
+
+    /**
+     * @return Average number of events applied per second since the pipeline started
+     */
+    public double getThroughput() {
+        double elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+        return elapsedSeconds > 0 ? applied.get() / elapsedSeconds : 0;
+    }
+
+    /**
+     * Stops accepting events, then waits for the worker to apply everything already queued.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        worker.join();
+    }
+
+    private void applyEvents() {
+        while (true) {
+            Sensor sensor;
+            boolean active;
+            boolean laterActivation = false;
+            boolean latest;
+            lock.lock();
+            try {
+                while (head == tail && !closed) {
+                    notEmpty.await();
+                }
+                if (head == tail) {
+                    return;
+                }
+                int slot = slot(head);
+                sensor = sensors[slot];
+                active = activations[slot];
+                latest = active;
+                sensors[slot] = null;
+                if (policy == BackpressurePolicy.COALESCE) {
+                    laterActivation = laterActivations[slot] && !active;
+                    latest = latestActivations[slot];
+                    removeQueued(sensor);
+                }
+                head++;
+                notFull.signal();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            apply(sensor, active);
+            if (laterActivation) {
+                apply(sensor, true);
+                active = true;
+            }
+            if (latest != active) {
+                apply(sensor, latest);
+            }
+        }
+    }
+
+    private void apply(Sensor sensor, boolean active) {
+        try {
+            securityService.changeSensorActivationStatus(sensor, active);
+        } catch (RuntimeException e) {
+            log.error("Unable to apply activation of sensor " + sensor.getSensorId(), e);
+        }
+        applied.incrementAndGet();
+    }
+
+    private int slot(long sequence) {
+        return (int) (sequence % sensors.length);
+    }
+
+    private int home(Sensor sensor) {
+        int hash = sensor.hashCode();
+        return (hash ^ (hash >>> 16)) & (queuedSensors.length - 1);
+    }
+
+    /**
+     * @return Slot of the sensor's queued event, or -1 if it has none
+     */
+    private int queuedSlot(Sensor sensor) {
+        int mask = queuedSensors.length - 1;
+        for (int i = home(sensor); queuedSensors[i] != null; i = (i + 1) & mask) {
+            if (queuedSensors[i].equals(sensor)) {
+                return queuedSlots[i];
+            }
+        }
+        return -1;
+    }
+
+    private void addQueued(Sensor sensor, int slot) {
+        int mask = queuedSensors.length - 1;
+        int i = home(sensor);
+        while (queuedSensors[i] != null) {
+            i = (i + 1) & mask;
+        }
+        queuedSensors[i] = sensor;
+        queuedSlots[i] = slot;
+    }
+
+    private void removeQueued(Sensor sensor) {
+        int mask = queuedSensors.length - 1;
+        int hole = home(sensor);
+        while (!queuedSensors[hole].equals(sensor)) {
+            hole = (hole + 1) & mask;
+        }
+        //move later entries of the run back into the hole unless that would put them before their home
+        for (int i = (hole + 1) & mask; queuedSensors[i] != null; i = (i + 1) & mask) {
+            int home = home(queuedSensors[i]);
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                queuedSensors[hole] = queuedSensors[i];
+                queuedSlots[hole] = queuedSlots[i];
+                hole = i;
+            }
+        }
+        queuedSensors[hole] = null;
+    }
+}
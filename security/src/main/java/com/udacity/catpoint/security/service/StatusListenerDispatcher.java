@@ -0,0 +1,282 @@
+package com.udacity.catpoint.security.service;
+
+import com.udacity.catpoint.security.application.SensorChangeType;
+import com.udacity.catpoint.security.application.StatusListener;
+import com.udacity.catpoint.security.data.AlarmStatus;
+import com.udacity.catpoint.security.data.Sensor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Delivers {@link StatusListener} callbacks off the thread that caused them. Each listener has
+ * its own mailbox that only records what needs to be told, so posting an update never waits on
+ * a listener. A mailbox is drained by at most one task at a time:
+ * <ul>
+ *     <li>the alarm status delivered is always the current one, and a listener that falls behind
+ *     skips the intermediate values rather than seeing each of them</li>
+ *     <li>whether a cat is detected is likewise read when the listener is notified, so the last
+ *     value delivered is never an older result that happened to be posted last</li>
+ *     <li>any number of sensor changes result in one sensorStatusChanged call</li>
+ *     <li>changes to the same sensor are merged into one sensorChanged call, so a listener that
+ *     falls behind has at most one change waiting for each sensor</li>
+ * </ul>
+ * Listeners that are Swing components are drained on the event dispatch thread, with all the
+ * component mailboxes that are waiting handled in a single event. Other listeners are drained
+ * on a background executor.
+ */
+public class StatusListenerDispatcher implements AutoCloseable {
+
+    private final Logger log = LoggerFactory.getLogger(StatusListenerDispatcher.class);
+
+    private final Supplier<AlarmStatus> alarmStatus;
+    private final BooleanSupplier catDetected;
+    private final Executor executor;
+    private final ExecutorService ownedExecutor;
+    private final Executor eventDispatchExecutor = new EventDispatchBatcher();
+    private final Map<StatusListener, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /**
+     * Creates a dispatcher draining non-UI listeners on its own pool of daemon threads.
+     * @param alarmStatus Source of the current alarm status
+     * @param catDetected Source of whether a cat is currently detected
+     */
+    public StatusListenerDispatcher(Supplier<AlarmStatus> alarmStatus, BooleanSupplier catDetected) {
+        this(alarmStatus, catDetected, Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "status-listener-dispatch");
+            thread.setDaemon(true);
+            return thread;
+        }), true);
+    }
+
+    /**
+     * @param alarmStatus Source of the current alarm status
+     * @param catDetected Source of whether a cat is currently detected
+     * @param executor Executor that drains the mailboxes of non-UI listeners
+     */
+    public StatusListenerDispatcher(Supplier<AlarmStatus> alarmStatus, BooleanSupplier catDetected, Executor executor) {
+        this(alarmStatus, catDetected, executor, false);
+    }
+
+    private StatusListenerDispatcher(Supplier<AlarmStatus> alarmStatus, BooleanSupplier catDetected, Executor executor,
+                                     boolean owned) {
+        this.alarmStatus = alarmStatus;
+        this.catDetected = catDetected;
+        this.executor = executor;
+        this.ownedExecutor = owned ? (ExecutorService) executor : null;
+    }
+
+    public void addStatusListener(StatusListener statusListener) {
+        Executor target = statusListener instanceof Component ? eventDispatchExecutor : executor;
+        mailboxes.computeIfAbsent(statusListener, sl -> new Mailbox(sl, target));
+    }
+
+    public void removeStatusListener(StatusListener statusListener) {
+        mailboxes.remove(statusListener);
+    }
+
+    /**
+     * Tells every listener that the alarm status has changed. The status itself is read from the
+     * alarm status source when the listener is notified.
+     */
+    public void alarmStatusChanged() {
+        for (Mailbox mailbox : mailboxes.values()) {
+            if (mailbox.alarmStatusChanged.getAndSet(true)) {
+                coalesced.incrementAndGet();
+            }
+            mailbox.schedule();
+        }
+    }
+
+    /**
+     * Tells every listener that a camera has been checked for a cat. Whether a cat is detected is
+     * read from the cat detection source when the listener is notified.
+     */
+    public void catDetectionChanged() {
+        for (Mailbox mailbox : mailboxes.values()) {
+            if (mailbox.catDetectionChanged.getAndSet(true)) {
+                coalesced.incrementAndGet();
+            }
+            mailbox.schedule();
+        }
+    }
+
+    public void sensorStatusChanged() {
+        for (Mailbox mailbox : mailboxes.values()) {
+            if (mailbox.sensorStatusChanged.getAndSet(true)) {
+                coalesced.incrementAndGet();
+            }
+            mailbox.schedule();
+        }
+    }
+
+    public void sensorChanged(Sensor sensor, SensorChangeType changeType) {
+        for (Mailbox mailbox : mailboxes.values()) {
+            if (mailbox.sensorChanged(sensor, changeType)) {
+                coalesced.incrementAndGet();
+            }
+            mailbox.schedule();
+        }
+    }
+
+    /**
+     * @return Number of updates that were folded into one still waiting to be delivered
+     */
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    /**
+     * Shuts down the dispatcher's own thread pool. Updates already being delivered are completed.
+     */
+    @Override
+    public void close() {
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Pending updates for one listener.
+     */
+    private class Mailbox implements Runnable {
+
+        private final StatusListener statusListener;
+        private final Executor target;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean alarmStatusChanged = new AtomicBoolean();
+        private final AtomicBoolean catDetectionChanged = new AtomicBoolean();
+        private final AtomicBoolean sensorStatusChanged = new AtomicBoolean();
+        private Map<Sensor, SensorChangeType> sensorChanges = new LinkedHashMap<>(); //guarded by this
+        private AlarmStatus lastAlarmStatus; //only touched by the draining task
+
+        Mailbox(StatusListener statusListener, Executor target) {
+            this.statusListener = statusListener;
+            this.target = target;
+        }
+
+        void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                target.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            do {
+                drain();
+                scheduled.set(false);
+                //an update posted after draining but before the flag was cleared found it still set
+            } while (hasPending() && scheduled.compareAndSet(false, true));
+        }
+
+        /**
+         * Records a change to a sensor, merged with any change to it still waiting.
+         * @return Whether a change to the sensor was already waiting
+         */
+        synchronized boolean sensorChanged(Sensor sensor, SensorChangeType changeType) {
+            SensorChangeType waiting = sensorChanges.remove(sensor);
+            if (waiting == null) {
+                sensorChanges.put(sensor, changeType);
+                return false;
+            }
+            if (waiting == SensorChangeType.ADDED && changeType == SensorChangeType.REMOVED) {
+                return true; //the listener never needs to hear of it
+            }
+            SensorChangeType merged;
+            if (waiting == SensorChangeType.ADDED) {
+                merged = SensorChangeType.ADDED;
+            } else if (waiting == SensorChangeType.REMOVED && changeType == SensorChangeType.ADDED) {
+                merged = SensorChangeType.UPDATED;
+            } else {
+                merged = changeType;
+            }
+            sensorChanges.put(sensor, merged);
+            return true;
+        }
+
+        private synchronized Map<Sensor, SensorChangeType> takeSensorChanges() {
+            Map<Sensor, SensorChangeType> taken = sensorChanges;
+            sensorChanges = new LinkedHashMap<>();
+            return taken;
+        }
+
+        private synchronized boolean hasSensorChanges() {
+            return !sensorChanges.isEmpty();
+        }
+
+        private boolean hasPending() {
+            return alarmStatusChanged.get() || catDetectionChanged.get() || sensorStatusChanged.get()
+                    || hasSensorChanges();
+        }
+
+        private void drain() {
+            if (alarmStatusChanged.getAndSet(false)) {
+                AlarmStatus status = alarmStatus.get();
+                if (status != lastAlarmStatus) {
+                    lastAlarmStatus = status;
+                    deliver(() -> statusListener.notify(status));
+                }
+            }
+            if (catDetectionChanged.getAndSet(false)) {
+                boolean cat = catDetected.getAsBoolean();
+                deliver(() -> statusListener.catDetected(cat));
+            }
+            if (hasSensorChanges()) {
+                takeSensorChanges().forEach((sensor, changeType) -> deliver(() -> statusListener.sensorChanged(sensor, changeType)));
+            }
+            if (sensorStatusChanged.getAndSet(false)) {
+                deliver(statusListener::sensorStatusChanged);
+            }
+        }
+
+        private void deliver(Runnable callback) {
+            try {
+                callback.run();
+            } catch (RuntimeException e) {
+                log.error("Status listener " + statusListener + " failed", e);
+            }
+        }
+    }
+
+    /**
+     * Runs the mailboxes of Swing listeners on the event dispatch thread, all that are waiting
+     * in one event.
+     */
+    private static class EventDispatchBatcher implements Executor {
+
+        private final Queue<Runnable> ready = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean posted = new AtomicBoolean();
+
+        @Override
+        public void execute(Runnable mailbox) {
+            ready.add(mailbox);
+            if (posted.compareAndSet(false, true)) {
+                SwingUtilities.invokeLater(this::drain);
+            }
+        }
+
+        private void drain() {
+            posted.set(false);
+            Runnable mailbox;
+            while ((mailbox = ready.poll()) != null) {
+                mailbox.run();
+            }
+        }
+    }
+}
@@ -4,9 +4,14 @@ module com.udacity.catpoint.security {
     requires com.google.gson;
     requires java.prefs;
     requires com.google.common;
+    requires slf4j.api;
+    requires org.apache.logging.log4j;
     exports com.udacity.catpoint.security.service to com.udacity.catpoint.app;
     exports com.udacity.catpoint.security.data to com.udacity.catpoint.app;
     exports com.udacity.catpoint.security.application to com.udacity.catpoint.app;
+    exports com.udacity.catpoint.security.journal to com.udacity.catpoint.app;
 
     opens com.udacity.catpoint.security.service;
+    opens com.udacity.catpoint.security.data;
+    opens com.udacity.catpoint.security.journal;
 }
\ No newline at end of file
@@ -0,0 +1,244 @@
+package com.udacity.catpoint.security.data;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LogStructuredSecurityRepositoryImplTest {
+
+    @TempDir
+    Path directory;
+
+    private LogStructuredSecurityRepositoryImpl openRepository(int compactionThreshold) {
+        return new LogStructuredSecurityRepositoryImpl(directory, 10_000, compactionThreshold);
+    }
+
+    private Map<UUID, Sensor> sensorsById(SecurityRepository repository) {
+        return repository.getSensors().stream().collect(Collectors.toMap(Sensor::getSensorId, Function.identity()));
+    }
+
+    @Test
+    void reopen_afterMutations_stateReplayedFromLog() throws IOException {
+        Sensor door = new Sensor("front", SensorType.DOOR);
+        Sensor window = new Sensor("kitchen", SensorType.WINDOW);
+        Sensor motion = new Sensor("hall", SensorType.MOTION);
+
+        try (LogStructuredSecurityRepositoryImpl repository = openRepository(1_000)) {
+            repository.addSensor(door);
+            repository.addSensor(window);
+            repository.addSensor(motion);
+            window.setActive(true);
+            repository.updateSensor(window);
+            repository.removeSensor(motion);
+            repository.setArmingStatus(ArmingStatus.ARMED_AWAY);
+            repository.setAlarmStatus(AlarmStatus.PENDING_ALARM);
+        }
+
+        try (LogStructuredSecurityRepositoryImpl repository = openRepository(1_000)) {
+            Map<UUID, Sensor> sensors = sensorsById(repository);
+            assertEquals(2, sensors.size());
+            assertEquals("front", sensors.get(door.getSensorId()).getName());
+            assertFalse(sensors.get(door.getSensorId()).getActive());
+            assertEquals(SensorType.WINDOW, sensors.get(window.getSensorId()).getSensorType());
+            assertTrue(sensors.get(window.getSensorId()).getActive());
+            assertEquals(Set.of(window), repository.getActiveSensors());
+            assertEquals(1, repository.getActiveSensorCount());
+            assertEquals(Set.of(door), repository.getSensorsByType(SensorType.DOOR));
+            assertEquals(ArmingStatus.ARMED_AWAY, repository.getArmingStatus());
+            assertEquals(AlarmStatus.PENDING_ALARM, repository.getAlarmStatus());
+        }
+    }
+
+    @Test
+    void flush_logPastCompactionThreshold_logFoldedIntoSnapshot() throws IOException {
+        Sensor sensor = new Sensor("front", SensorType.DOOR);
+
+        try (LogStructuredSecurityRepositoryImpl repository = openRepository(10)) {
+            repository.addSensor(sensor);
+            repository.setArmingStatus(ArmingStatus.ARMED_HOME);
+            for (int i = 0; i < 20; i++) {
+                sensor.setActive(i % 2 == 0);
+                repository.updateSensor(sensor);
+            }
+            repository.flush();
+            //only the 17 byte record naming the new log generation is left
+            assertEquals(17, Files.size(directory.resolve("sensors.log")));
+            assertTrue(Files.size(directory.resolve("sensors.snapshot")) > 0);
+            assertEquals(1, SensorSnapshot.open(directory.resolve("sensors.snapshot")).getLogGeneration());
+
+            sensor.setActive(true);
+            repository.updateSensor(sensor);
+        }
+
+        try (LogStructuredSecurityRepositoryImpl repository = openRepository(10)) {
+            assertEquals(ArmingStatus.ARMED_HOME, repository.getArmingStatus());
+            assertTrue(sensorsById(repository).get(sensor.getSensorId()).getActive());
+        }
+    }
+
+    @Test
+    void open_snapshotConvertedFromSensors_sensorsReadFromSnapshot() throws IOException {
+        Sensor sensor = new Sensor("kitchen", SensorType.WINDOW);
+        sensor.setActive(true);
+        SensorSnapshot.write(directory.resolve(LogStructuredSecurityRepositoryImpl.SNAPSHOT_FILE),
+                SensorSnapshot.encode(Set.of(sensor), AlarmStatus.ALARM, ArmingStatus.ARMED_AWAY));
+
+        SensorSnapshot snapshot = SensorSnapshot.open(directory.resolve(LogStructuredSecurityRepositoryImpl.SNAPSHOT_FILE));
+        assertEquals(1, snapshot.size());
+        assertEquals(sensor.getSensorId(), snapshot.getSensorId(0));
+        assertEquals("kitchen", snapshot.getName(0));
+
+        try (LogStructuredSecurityRepositoryImpl repository = openRepository(1_000)) {
+            assertEquals(AlarmStatus.ALARM, repository.getAlarmStatus());
+            Sensor loaded = sensorsById(repository).get(sensor.getSensorId());
+            assertEquals(SensorType.WINDOW, loaded.getSensorType());
+            assertTrue(loaded.getActive());
+        }
+    }
+
+    @Test
+    void getActiveSensorCount_snapshotOnly_countedFromHeaderWithoutMaterializing() throws IOException {
+        Sensor door = new Sensor("front", SensorType.DOOR);
+        Sensor window = new Sensor("kitchen", SensorType.WINDOW);
+        Sensor motion = new Sensor("hall", SensorType.MOTION);
+        door.setActive(true);
+        motion.setActive(true);
+        SensorSnapshot.write(directory.resolve(LogStructuredSecurityRepositoryImpl.SNAPSHOT_FILE),
+                SensorSnapshot.encode(Set.of(door, window, motion), AlarmStatus.NO_ALARM, ArmingStatus.ARMED_HOME));
+
+        SensorSnapshot snapshot = SensorSnapshot.open(directory.resolve(LogStructuredSecurityRepositoryImpl.SNAPSHOT_FILE));
+        assertEquals(1, snapshot.getActiveCount(SensorType.DOOR));
+        assertEquals(0, snapshot.getActiveCount(SensorType.WINDOW));
+        assertEquals(2, snapshot.getActiveCount());
+
+        try (LogStructuredSecurityRepositoryImpl repository = openRepository(1_000)) {
+            repository.setAlarmStatus(AlarmStatus.PENDING_ALARM);
+            assertEquals(2, repository.getActiveSensorCount());
+            assertEquals(3, repository.getSensorCount());
+            assertFalse(repository.isMaterialized());
+
+            window.setActive(true);
+            repository.updateSensor(window);
+            assertEquals(3, repository.getActiveSensorCount());
+        }
+
+        //the log now changes a sensor, so the header alone is out of date
+        try (LogStructuredSecurityRepositoryImpl repository = openRepository(1_000)) {
+            assertEquals(3, repository.getActiveSensorCount());
+        }
+    }
+
+    @Test
+    void reopen_tornRecordAtEndOfLog_intactRecordsKept() throws IOException {
+        Sensor sensor = new Sensor("front", SensorType.DOOR);
+        try (LogStructuredSecurityRepositoryImpl repository = openRepository(1_000)) {
+            repository.addSensor(sensor);
+        }
+        Files.write(directory.resolve("sensors.log"), new byte[]{0, 0, 0, 40, 1, 2}, StandardOpenOption.APPEND);
+
+        try (LogStructuredSecurityRepositoryImpl repository = openRepository(1_000)) {
+            assertEquals(1, repository.getSensors().size());
+            repository.setAlarmStatus(AlarmStatus.ALARM);
+        }
+
+        try (LogStructuredSecurityRepositoryImpl repository = openRepository(1_000)) {
+            assertEquals(1, repository.getSensors().size());
+            assertEquals(AlarmStatus.ALARM, repository.getAlarmStatus());
+        }
+    }
+
+    @Test
+    void flush_snapshotWriteFails_recordsKeptForNextFlush() throws IOException {
+        Sensor sensor = new Sensor("front", SensorType.DOOR);
+        //a directory where the temporary snapshot goes makes writing the snapshot fail
+        Path blocker = Files.createDirectories(directory.resolve("sensors.snapshot.tmp"));
+        Files.createFile(blocker.resolve("in-the-way"));
+
+        try (LogStructuredSecurityRepositoryImpl repository = openRepository(10)) {
+            repository.addSensor(sensor);
+            repository.setArmingStatus(ArmingStatus.ARMED_HOME);
+            for (int i = 0; i < 20; i++) {
+                sensor.setActive(i % 2 == 0);
+                repository.updateSensor(sensor);
+            }
+            assertThrows(IOException.class, repository::flush);
+
+            Files.delete(blocker.resolve("in-the-way"));
+            Files.delete(blocker);
+        }
+
+        try (LogStructuredSecurityRepositoryImpl repository = openRepository(10)) {
+            assertEquals(ArmingStatus.ARMED_HOME, repository.getArmingStatus());
+            assertFalse(sensorsById(repository).get(sensor.getSensorId()).getActive());
+        }
+    }
+
+    @Test
+    void reopen_crashBeforeLogTruncatedAfterCompaction_olderLogSkipped() throws IOException {
+        Sensor sensor = new Sensor("front", SensorType.DOOR);
+        Path logFile = directory.resolve("sensors.log");
+        byte[] olderLog;
+
+        try (LogStructuredSecurityRepositoryImpl repository = openRepository(4)) {
+            repository.addSensor(sensor);
+            repository.setArmingStatus(ArmingStatus.ARMED_HOME);
+            repository.flush();
+            olderLog = Files.readAllBytes(logFile);
+
+            sensor.setActive(true);
+            repository.updateSensor(sensor);
+            repository.setArmingStatus(ArmingStatus.ARMED_AWAY);
+        }
+        //put back the log as it was before the compaction on close truncated it
+        Files.write(logFile, olderLog);
+
+        try (LogStructuredSecurityRepositoryImpl repository = openRepository(1_000)) {
+            assertEquals(ArmingStatus.ARMED_AWAY, repository.getArmingStatus());
+            assertTrue(sensorsById(repository).get(sensor.getSensorId()).getActive());
+            repository.setAlarmStatus(AlarmStatus.ALARM);
+        }
+
+        //changes made after skipping the older log are kept
+        try (LogStructuredSecurityRepositoryImpl repository = openRepository(1_000)) {
+            assertEquals(AlarmStatus.ALARM, repository.getAlarmStatus());
+            assertEquals(ArmingStatus.ARMED_AWAY, repository.getArmingStatus());
+            assertTrue(sensorsById(repository).get(sensor.getSensorId()).getActive());
+        }
+    }
+
+    @Test
+    void getSensors_repositoryChangedAfterwards_returnedSetsUnchanged() throws IOException {
+        Sensor door = new Sensor("front", SensorType.DOOR);
+        Sensor window = new Sensor("kitchen", SensorType.WINDOW);
+        window.setActive(true);
+
+        try (LogStructuredSecurityRepositoryImpl repository = openRepository(1_000)) {
+            repository.addSensor(door);
+            repository.addSensor(window);
+            Set<Sensor> sensors = repository.getSensors();
+            Set<Sensor> active = repository.getActiveSensors();
+            Set<Sensor> doors = repository.getSensorsByType(SensorType.DOOR);
+
+            //removing the first sensor moves the last one into its row
+            repository.removeSensor(door);
+            window.setActive(false);
+            repository.updateSensor(window);
+
+            assertEquals(Set.of(door, window), sensors);
+            assertEquals(Set.of(window), active);
+            assertEquals(Set.of(door), doors);
+            assertTrue(repository.getActiveSensors().isEmpty());
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.udacity.catpoint.security.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SensorTableTest {
+
+    @Test
+    void put_existingSensor_rowReplacedAndCountsAdjusted() {
+        SensorTable table = new SensorTable();
+        Sensor sensor = new Sensor("front", SensorType.DOOR);
+        int row = table.put(sensor);
+
+        sensor.setActive(true);
+        sensor.setSensorType(SensorType.WINDOW);
+        assertEquals(row, table.put(sensor));
+
+        assertEquals(1, table.size());
+        assertEquals(1, table.getActiveCount());
+        assertEquals(Set.of(sensor), table.sensorsOfType(SensorType.WINDOW));
+        assertTrue(table.sensorsOfType(SensorType.DOOR).isEmpty());
+    }
+
+    @Test
+    void setActive_sameState_notChanged() {
+        SensorTable table = new SensorTable();
+        int row = table.put(new Sensor("front", SensorType.DOOR));
+
+        assertTrue(table.setActive(row, true));
+        assertFalse(table.setActive(row, true));
+        assertEquals(1, table.getActiveCount());
+    }
+
+    @Test
+    void randomAddsAndRemoves_tableMatchesMap() {
+        Random random = new Random(42);
+        SensorTable table = new SensorTable();
+        Map<UUID, Sensor> expected = new HashMap<>();
+        List<Sensor> added = new ArrayList<>();
+
+        for (int i = 0; i < 20_000; i++) {
+            if (added.isEmpty() || random.nextInt(3) > 0) {
+                Sensor sensor = new Sensor("sensor" + i, SensorType.values()[random.nextInt(3)]);
+                sensor.setActive(random.nextBoolean());
+                table.put(sensor);
+                expected.put(sensor.getSensorId(), sensor);
+                added.add(sensor);
+            } else {
+                Sensor sensor = added.remove(random.nextInt(added.size()));
+                assertTrue(table.remove(sensor.getSensorId()));
+                expected.remove(sensor.getSensorId());
+            }
+        }
+
+        assertEquals(expected.size(), table.size());
+        for (Sensor sensor : expected.values()) {
+            int row = table.indexOf(sensor.getSensorId());
+            assertSame(sensor, table.getSensor(row));
+            assertEquals(sensor.getActive(), table.isActive(row));
+        }
+        assertEquals(expected.values().stream().filter(Sensor::getActive).collect(Collectors.toSet()), table.activeSensors());
+        assertEquals(expected.values().stream().filter(Sensor::getActive).count(), table.getActiveCount());
+        assertEquals(SensorTable.NO_ROW, table.indexOf(UUID.randomUUID()));
+    }
+}
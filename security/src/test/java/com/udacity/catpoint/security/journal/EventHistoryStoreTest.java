@@ -0,0 +1,136 @@
+package com.udacity.catpoint.security.journal;
+
+import com.udacity.catpoint.security.data.AlarmStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EventHistoryStoreTest {
+
+    private static final Instant START = Instant.parse("2021-01-01T00:00:00Z");
+    private static final UUID FRONT_DOOR = UUID.randomUUID();
+    private static final UUID BACK_DOOR = UUID.randomUUID();
+
+    @TempDir
+    Path directory;
+
+    private final JournalEvent event = new JournalEvent();
+    private final Clock clock = Clock.fixed(START.plus(Duration.ofHours(3)), ZoneOffset.UTC);
+
+    private EventHistoryStore openStore(long maxBytes) {
+        return new EventHistoryStore(directory, Duration.ofHours(1), Duration.ofDays(1), maxBytes, clock);
+    }
+
+    //one event a second for three hours, alternating between the two doors, every tenth an alarm change
+    private void writeThreeHours(EventHistoryStore store) throws IOException {
+        for (int second = 0; second < 3 * 3600; second++) {
+            long timestamp = START.toEpochMilli() + second * 1000L;
+            if (second % 10 == 0) {
+                event.fill(second, timestamp, JournalEventType.ALARM_STATUS_CHANGED, null, null,
+                        AlarmStatus.NO_ALARM, AlarmStatus.PENDING_ALARM);
+            } else {
+                event.fill(second, timestamp, JournalEventType.SENSOR_ACTIVATED, second % 2 == 0 ? FRONT_DOOR : BACK_DOOR,
+                        "door", null, null);
+            }
+            store.write(event);
+        }
+        store.flush();
+    }
+
+    private static List<HistoryEvent> collect(Stream<HistoryEvent> events) {
+        try (events) {
+            return events.collect(Collectors.toList());
+        }
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    @Test
+    void query_rangeAcrossSegments_onlyEventsInRangeInOrder() throws IOException {
+        EventHistoryStore store = openStore(Long.MAX_VALUE);
+        writeThreeHours(store);
+
+        List<HistoryEvent> events = collect(store.query(START.plusSeconds(3000), START.plusSeconds(5000)));
+
+        assertEquals(2000, events.size());
+        assertEquals(3000, events.get(0).getSequence());
+        assertEquals(4999, events.get(events.size() - 1).getSequence());
+        assertEquals(AlarmStatus.PENDING_ALARM, events.get(0).getStatus());
+        assertEquals(3, segmentCount());
+    }
+
+    @Test
+    void querySensor_rangeWithinSegment_onlyThatSensorsEvents() throws IOException {
+        EventHistoryStore store = openStore(Long.MAX_VALUE);
+        writeThreeHours(store);
+
+        List<HistoryEvent> events = collect(store.querySensor(FRONT_DOOR, START.plusSeconds(100), START.plusSeconds(200)));
+
+        assertEquals(40, events.size());
+        assertTrue(events.stream().allMatch(e -> FRONT_DOOR.equals(e.getSensorId())
+                && e.getType() == JournalEventType.SENSOR_ACTIVATED));
+    }
+
+    @Test
+    void open_incompleteRecordAtEnd_recordDiscardedAndWritingContinues() throws IOException {
+        EventHistoryStore store = openStore(Long.MAX_VALUE);
+        writeThreeHours(store);
+        store.close();
+        Path lastSegment = directory.resolve("events-" + START.plus(Duration.ofHours(2)).toEpochMilli() + ".seg");
+        Files.write(lastSegment, new byte[7], StandardOpenOption.APPEND);
+
+        EventHistoryStore reopened = openStore(Long.MAX_VALUE);
+        event.fill(3 * 3600, START.toEpochMilli() + 3 * 3600 * 1000L - 1, JournalEventType.SENSOR_DEACTIVATED, FRONT_DOOR,
+                "door", null, null);
+        reopened.write(event);
+        reopened.flush();
+
+        List<HistoryEvent> events = collect(reopened.query(START.plus(Duration.ofHours(2)), START.plus(Duration.ofHours(3))));
+        assertEquals(3601, events.size());
+        assertEquals(JournalEventType.SENSOR_DEACTIVATED, events.get(3600).getType());
+    }
+
+    @Test
+    void applyRetention_storeTooLarge_oldestSegmentsDeleted() throws IOException {
+        long segmentBytes = 3600L * EventHistoryStore.RECORD_BYTES;
+        EventHistoryStore store = openStore(segmentBytes);
+        writeThreeHours(store);
+
+        store.applyRetention();
+
+        assertEquals(segmentBytes, store.size());
+        assertTrue(collect(store.query(START, START.plus(Duration.ofHours(2)))).isEmpty());
+        assertEquals(3600, collect(store.query(START, START.plus(Duration.ofHours(3)))).size());
+    }
+
+    @Test
+    void applyRetention_segmentsOlderThanMaxAge_deleted() throws IOException {
+        EventHistoryStore store = openStore(Long.MAX_VALUE);
+        writeThreeHours(store);
+        store.close();
+
+        Clock dayLater = Clock.offset(clock, Duration.ofHours(23));
+        EventHistoryStore reopened = new EventHistoryStore(directory, Duration.ofHours(1), Duration.ofDays(1), Long.MAX_VALUE, dayLater);
+
+        assertEquals(1, segmentCount());
+        assertEquals(3600L * EventHistoryStore.RECORD_BYTES, reopened.size());
+    }
+}
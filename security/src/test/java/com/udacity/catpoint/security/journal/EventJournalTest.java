@@ -0,0 +1,87 @@
+package com.udacity.catpoint.security.journal;
+
+import com.udacity.catpoint.security.data.AlarmStatus;
+import com.udacity.catpoint.security.data.Sensor;
+import com.udacity.catpoint.security.data.SensorType;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EventJournalTest {
+
+    private static final int THREADS = 4;
+    private static final int EVENTS_PER_THREAD = 10_000;
+
+    @Test
+    void sensorActivated_manyThreads_everyEventWrittenInSequence() throws InterruptedException {
+        List<Long> sequences = new ArrayList<>();
+        EventJournal journal = new EventJournal(THREADS * EVENTS_PER_THREAD, event -> sequences.add(event.getSequence()));
+        Sensor sensor = new Sensor("Front door", SensorType.DOOR);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < EVENTS_PER_THREAD; i++) {
+                    journal.sensorActivated(sensor);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        journal.close();
+
+        assertEquals(THREADS * EVENTS_PER_THREAD, sequences.size());
+        for (int i = 0; i < sequences.size(); i++) {
+            assertEquals(i, (long) sequences.get(i));
+        }
+        assertEquals(0, journal.getDroppedCount());
+    }
+
+    @Test
+    void sensorActivated_ringFull_eventsDropped() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        EventJournal journal = new EventJournal(4, event -> {
+            try {
+                release.await();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Sensor sensor = new Sensor("Front door", SensorType.DOOR);
+
+        for (int i = 0; i < 10; i++) {
+            journal.sensorActivated(sensor);
+        }
+        release.countDown();
+        journal.close();
+
+        assertEquals(6, journal.getDroppedCount());
+        assertEquals(4, journal.getWrittenCount());
+    }
+
+    @Test
+    void jsonLinesSink_sensorAndAlarmEvents_oneLinePerEvent() {
+        StringWriter output = new StringWriter();
+        EventJournal journal = new EventJournal(new JsonLinesJournalSink(output));
+        Sensor sensor = new Sensor("Front \"main\" door", SensorType.DOOR);
+
+        journal.sensorActivated(sensor);
+        journal.alarmStatusChanged(AlarmStatus.NO_ALARM, AlarmStatus.PENDING_ALARM);
+        journal.close();
+
+        String[] lines = output.toString().split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{\"sequence\":0,"));
+        assertTrue(lines[0].endsWith(",\"type\":\"SENSOR_ACTIVATED\",\"sensorId\":\"" + sensor.getSensorId()
+                + "\",\"sensorName\":\"Front \\\"main\\\" door\"}"));
+        assertTrue(lines[1].endsWith(",\"type\":\"ALARM_STATUS_CHANGED\",\"previousStatus\":\"NO_ALARM\",\"status\":\"PENDING_ALARM\"}"));
+    }
+}
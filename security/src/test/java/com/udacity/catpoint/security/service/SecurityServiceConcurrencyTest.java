@@ -0,0 +1,172 @@
+package com.udacity.catpoint.security.service;
+
+import com.udacity.catpoint.security.application.SensorChangeType;
+import com.udacity.catpoint.security.application.StatusListener;
+import com.udacity.catpoint.security.data.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SecurityServiceConcurrencyTest {
+
+    //two activations take an armed system from no alarm to alarm, unless one of the steps is lost,
+    //and two deactivations clear a pending alarm, unless each thread thinks the other's sensor is still active.
+    //Likewise two cameras losing sight of the cat clear the alarm, unless one acts on the other's stale count
+    private static final int THREADS = 2;
+    private static final BufferedImage CAT = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
+    private static final BufferedImage NO_CAT = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
+    private static final int ROUNDS = 1_000;
+    private static final long WRITE_NANOS = 100_000;
+
+    @TempDir
+    Path directory;
+
+    private LogStructuredSecurityRepositoryImpl securityRepository;
+    private SecurityService securityService;
+    private final Queue<AlarmStatus> notifications = new ConcurrentLinkedQueue<>();
+
+    @BeforeEach
+    void setUp() {
+        securityRepository = new LogStructuredSecurityRepositoryImpl(directory) {
+            //a slow write gives the other threads a chance to run between a change and its storage, even on one processor
+            @Override
+            public void updateSensor(Sensor sensor) {
+                LockSupport.parkNanos(WRITE_NANOS);
+                super.updateSensor(sensor);
+            }
+        };
+        securityService = new SecurityService(securityRepository, (image, confidenceThreshold) -> image == CAT, Runnable::run);
+        securityService.addStatusListener(new StatusListener() {
+            @Override
+            public void notify(AlarmStatus status) {
+                notifications.add(status);
+            }
+
+            @Override
+            public void catDetected(boolean catDetected) {
+            }
+
+            @Override
+            public void sensorStatusChanged() {
+            }
+
+            @Override
+            public void sensorChanged(Sensor sensor, SensorChangeType changeType) {
+            }
+        });
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        securityRepository.close();
+    }
+
+    private List<Sensor> addSensors() {
+        List<Sensor> sensors = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            Sensor sensor = new Sensor("sensor" + i, SensorType.values()[i % 3]);
+            securityService.addSensor(sensor);
+            sensors.add(sensor);
+        }
+        return sensors;
+    }
+
+    /**
+     * Starts a thread for each item, lines them up and lets them all run the action at once.
+     */
+    private static <T> void race(List<T> items, Consumer<T> action) throws InterruptedException {
+        CyclicBarrier barrier = new CyclicBarrier(items.size());
+        List<Thread> threads = new ArrayList<>();
+        for (T item : items) {
+            Thread thread = new Thread(() -> {
+                try {
+                    barrier.await();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+                action.accept(item);
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    @Test
+    void changeSensorActivationStatus_concurrentActivations_noAlarmStepLost() throws Exception {
+        List<Sensor> sensors = addSensors();
+
+        for (int round = 0; round < ROUNDS; round++) {
+            securityService.setArmingStatus(ArmingStatus.DISARMED);
+            securityService.setArmingStatus(ArmingStatus.ARMED_AWAY);
+            notifications.clear();
+
+            race(sensors, sensor -> securityService.changeSensorActivationStatus(sensor, true));
+
+            //the pending alarm may be coalesced away, but the listener must end up seeing the alarm
+            List<AlarmStatus> notified = new ArrayList<>(notifications);
+            assertTrue(notified.equals(List.of(AlarmStatus.PENDING_ALARM, AlarmStatus.ALARM))
+                    || notified.equals(List.of(AlarmStatus.ALARM)), notified.toString());
+            assertEquals(AlarmStatus.ALARM, securityService.getAlarmStatus());
+            assertEquals(AlarmStatus.ALARM, securityRepository.getAlarmStatus());
+            assertEquals(THREADS, securityRepository.getActiveSensorCount());
+        }
+    }
+
+    @Test
+    void changeSensorActivationStatus_lastSensorsDeactivatedConcurrently_pendingAlarmCleared() throws Exception {
+        List<Sensor> sensors = addSensors();
+
+        for (int round = 0; round < ROUNDS; round++) {
+            securityService.setArmingStatus(ArmingStatus.DISARMED);
+            securityService.setArmingStatus(ArmingStatus.ARMED_AWAY);
+            sensors.forEach(sensor -> securityService.changeSensorActivationStatus(sensor, true));
+            securityService.setAlarmStatus(AlarmStatus.PENDING_ALARM);
+
+            race(sensors, sensor -> securityService.changeSensorActivationStatus(sensor, false));
+
+            assertEquals(AlarmStatus.NO_ALARM, securityService.getAlarmStatus(), "round " + round);
+            assertEquals(AlarmStatus.NO_ALARM, securityRepository.getAlarmStatus());
+            assertEquals(0, securityRepository.getActiveSensorCount());
+        }
+    }
+
+    @Test
+    void processImage_camerasLoseSightOfCatConcurrently_alarmCleared() throws Exception {
+        List<Camera> cameras = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            Camera camera = new Camera("camera" + i);
+            securityService.addCamera(camera);
+            cameras.add(camera);
+        }
+
+        for (int round = 0; round < ROUNDS; round++) {
+            securityService.setArmingStatus(ArmingStatus.DISARMED);
+            securityService.setArmingStatus(ArmingStatus.ARMED_HOME);
+            cameras.forEach(camera -> securityService.processImage(camera.getCameraId(), CAT));
+            assertEquals(AlarmStatus.ALARM, securityService.getAlarmStatus());
+
+            race(cameras, camera -> securityService.processImage(camera.getCameraId(), NO_CAT));
+
+            assertEquals(0, securityService.getCamerasSeeingCat());
+            assertEquals(AlarmStatus.NO_ALARM, securityService.getAlarmStatus(), "round " + round);
+            assertEquals(AlarmStatus.NO_ALARM, securityRepository.getAlarmStatus());
+        }
+    }
+}
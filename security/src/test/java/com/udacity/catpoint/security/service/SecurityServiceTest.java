@@ -1,6 +1,8 @@
 package com.udacity.catpoint.security.service;
 
+import com.udacity.catpoint.image.metrics.SimpleMeterRegistry;
 import com.udacity.catpoint.image.service.ImageService;
+import com.udacity.catpoint.image.service.MotionGatingImageService;
 import com.udacity.catpoint.security.data.*;
 import static org.junit.jupiter.api.Assertions.*;
 import org.junit.jupiter.api.BeforeEach;
@@ -18,6 +20,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.awt.image.BufferedImage;
 import java.util.*;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 @ExtendWith(MockitoExtension.class)
@@ -47,6 +50,11 @@ public class SecurityServiceTest {
         sensor = getNewSensor();
     }
 
+    //the service reads the statuses and active sensor count from the repository when created, so recreate it after stubbing them
+    private void reloadSecurityService() {
+        securityService = new SecurityService(securityRepository, imageService);
+    }
+
     static Stream<Arguments> booleanMethodSource(){
         return Stream.of(
                 Arguments.of(false, true),
@@ -68,8 +76,9 @@ public class SecurityServiceTest {
     @ParameterizedTest //covers 1
     @EnumSource(value = ArmingStatus.class, names = {"ARMED_HOME", "ARMED_AWAY"})
     void changeAlarmStatus_alarmArmedAndSensorActivated_alarmStatusPending(ArmingStatus armingStatus){
-        when(securityService.getArmingStatus()).thenReturn(armingStatus);
-        when(securityService.getAlarmStatus()).thenReturn(AlarmStatus.NO_ALARM);
+        when(securityRepository.getArmingStatus()).thenReturn(armingStatus);
+        when(securityRepository.getAlarmStatus()).thenReturn(AlarmStatus.NO_ALARM);
+        reloadSecurityService();
         securityService.changeSensorActivationStatus(sensor, true);
         ArgumentCaptor<AlarmStatus> captor = ArgumentCaptor.forClass(AlarmStatus.class);
         verify(securityRepository, atMostOnce()).setAlarmStatus(captor.capture());
@@ -78,7 +87,8 @@ public class SecurityServiceTest {
 
     @Test //covers 2
     void changeAlarmStatus_alarmAlreadyPendingAndSensorActivated_alarmStatusAlarm(){
-        when(securityService.getAlarmStatus()).thenReturn(AlarmStatus.PENDING_ALARM);
+        when(securityRepository.getAlarmStatus()).thenReturn(AlarmStatus.PENDING_ALARM);
+        reloadSecurityService();
         securityService.changeSensorActivationStatus(sensor, true);
         verify(securityRepository, atMost(2)).setAlarmStatus(AlarmStatus.ALARM); //first call up
     }
@@ -88,8 +98,9 @@ public class SecurityServiceTest {
         Set<Sensor> allSensors = getSensors(false, 4);
         Sensor last = allSensors.iterator().next();
         last.setActive(true);
-        when(securityRepository.getSensors()).thenReturn(allSensors);
+        when(securityRepository.getActiveSensorCount()).thenReturn(1);
         when(securityRepository.getAlarmStatus()).thenReturn(AlarmStatus.PENDING_ALARM);
+        reloadSecurityService();
         //deactivate this sensor
         securityService.changeSensorActivationStatus(last, false);
         ArgumentCaptor<AlarmStatus> captor = ArgumentCaptor.forClass(AlarmStatus.class);
@@ -101,6 +112,7 @@ public class SecurityServiceTest {
     void changeAlarmState_alarmActiveAndSensorStateChanges_stateNotAffected() {
         sensor.setActive(false);
         when(securityRepository.getAlarmStatus()).thenReturn(AlarmStatus.ALARM);
+        reloadSecurityService();
         securityService.changeSensorActivationStatus(sensor, true);
         verify(securityRepository, never()).setAlarmStatus(any(AlarmStatus.class));
         ArgumentCaptor<Sensor> captor = ArgumentCaptor.forClass(Sensor.class);
@@ -120,6 +132,7 @@ public class SecurityServiceTest {
     void changeAlarmStatus_sensorStatusChangeAndSystemIsAlreadyDisarmed_stateNotAffected(Boolean b1, Boolean b2){
         sensor.setActive(b1);
         when(securityRepository.getArmingStatus()).thenReturn(ArmingStatus.DISARMED);
+        reloadSecurityService();
         securityService.changeSensorActivationStatus(sensor, b2);
         verify(securityRepository, never()).setAlarmStatus(any(AlarmStatus.class));
         verify(securityRepository, atMostOnce()).updateSensor(sensor);
@@ -128,6 +141,7 @@ public class SecurityServiceTest {
     @Test //tests 5
     void changeAlarmState_systemActivatedWhileAlreadyActiveAndAlarmPending_changeToAlarmState(){
         when(securityRepository.getAlarmStatus()).thenReturn(AlarmStatus.PENDING_ALARM);
+        reloadSecurityService();
         securityService.changeSensorActivationStatus(sensor, true);
         ArgumentCaptor<AlarmStatus> captor = ArgumentCaptor.forClass(AlarmStatus.class);
         verify(securityRepository, atMostOnce()).setAlarmStatus(captor.capture());
@@ -144,6 +158,7 @@ public class SecurityServiceTest {
     @Test //tests 7
     void changeAlarmState_imageContainingCatDetectedAndSystemArmed_changeToAlarmStatus(){
         when(securityRepository.getArmingStatus()).thenReturn(ArmingStatus.ARMED_HOME);
+        reloadSecurityService();
         when(imageService.imageContainsCat(any(), anyFloat())).thenReturn(true);
         securityService.processImage(mock(BufferedImage.class));
         ArgumentCaptor<AlarmStatus> captor = ArgumentCaptor.forClass(AlarmStatus.class);
@@ -153,8 +168,8 @@ public class SecurityServiceTest {
 
     @Test //tests 8
     void changeAlarmState_noCatImageIdentifiedAndSensorsAreInactive_changeToAlarmStatus(){
-        Set<Sensor> inactiveSensors = getSensors(false, 4);
-        when(securityRepository.getSensors()).thenReturn(inactiveSensors);
+        when(securityRepository.getActiveSensorCount()).thenReturn(0);
+        reloadSecurityService();
         when(imageService.imageContainsCat(any(), anyFloat())).thenReturn(false);
         securityService.processImage(mock(BufferedImage.class));
         ArgumentCaptor<AlarmStatus> captor = ArgumentCaptor.forClass(AlarmStatus.class);
@@ -175,22 +190,97 @@ public class SecurityServiceTest {
     @EnumSource(value = ArmingStatus.class, names = {"ARMED_AWAY", "ARMED_HOME"})
     void updateSensors_systemArmed_deactivateAllSensors(ArmingStatus armingStatus){
         Set<Sensor> sensors = getSensors(true, 4);
-        when(securityRepository.getSensors()).thenReturn(sensors);
+        when(securityRepository.getActiveSensors()).thenReturn(sensors);
         securityService.setArmingStatus(armingStatus);
         List<Executable> executables = new ArrayList<>();
         sensors.forEach(it -> executables.add(() -> assertEquals(it.getActive(), false)));
         assertAll(executables);
     }
 
+    @Test
+    void setArmingStatus_manyActiveSensors_storedWithSingleWrite(){
+        Set<Sensor> sensors = getSensors(true, 100);
+        when(securityRepository.getActiveSensors()).thenReturn(sensors);
+        securityService.setArmingStatus(ArmingStatus.ARMED_AWAY);
+        verify(securityRepository, times(1)).updateSensors(any());
+        verify(securityRepository, never()).updateSensor(any());
+    }
+
+    @Test
+    void applySensorChanges_alarmPendingAndAllSensorsDeactivated_changeToNoAlarm(){
+        Set<Sensor> sensors = getSensors(true, 2);
+        when(securityRepository.getAlarmStatus()).thenReturn(AlarmStatus.PENDING_ALARM);
+        when(securityRepository.getActiveSensorCount()).thenReturn(sensors.size());
+        reloadSecurityService();
+        securityService.applySensorChanges(sensors.stream().map(s -> new SensorChange(s, false)).collect(Collectors.toList()));
+        verify(securityRepository, times(1)).setAlarmStatus(AlarmStatus.NO_ALARM);
+        verify(securityRepository, times(1)).updateSensors(any());
+    }
+
+    @Test
+    void processImage_catLeavesOneOfTwoCameras_alarmNotReset(){
+        when(securityRepository.getArmingStatus()).thenReturn(ArmingStatus.ARMED_HOME);
+        reloadSecurityService();
+        Camera backyard = new Camera("Backyard");
+        securityService.addCamera(backyard);
+        BufferedImage catImage = mock(BufferedImage.class);
+        BufferedImage emptyImage = mock(BufferedImage.class);
+        when(imageService.imageContainsCat(eq(catImage), anyFloat())).thenReturn(true);
+        when(imageService.imageContainsCat(eq(emptyImage), anyFloat())).thenReturn(false);
+
+        securityService.processImage(catImage);
+        securityService.processImage(backyard.getCameraId(), catImage);
+        securityService.processImage(emptyImage);
+
+        //the backyard camera still sees the cat
+        assertEquals(1, securityService.getCamerasSeeingCat());
+        verify(securityRepository).setAlarmStatus(AlarmStatus.ALARM);
+        verify(securityRepository, never()).setAlarmStatus(AlarmStatus.NO_ALARM);
+    }
+
+    @Test
+    void processImage_motionGatedCameras_eachCameraComparedWithItsOwnFrames(){
+        securityService = new SecurityService(securityRepository, new MotionGatingImageService(imageService));
+        Camera backyard = new Camera("Backyard");
+        securityService.addCamera(backyard);
+        BufferedImage image = new BufferedImage(64, 48, BufferedImage.TYPE_INT_RGB);
+
+        securityService.processImage(image);
+        securityService.processImage(backyard.getCameraId(), image);
+        securityService.processImage(image);
+
+        //the backyard's first frame is new to the backyard camera, the default camera's second frame is not
+        verify(imageService, times(2)).imageContainsCat(any(), anyFloat());
+    }
+
+    @Test
+    void processImage_confidenceThresholdSet_thresholdPassedToImageService(){
+        securityService.setCatConfidenceThreshold(80.0f);
+        securityService.processImage(mock(BufferedImage.class));
+        verify(imageService).imageContainsCat(any(), eq(80.0f));
+    }
+
     @Test
     void changeAlarmStatus_systemArmedHomeAndCatDetected_changeToAlarmStatus(){
         when(imageService.imageContainsCat(any(), anyFloat())).thenReturn(true);
         when(securityRepository.getArmingStatus()).thenReturn(ArmingStatus.ARMED_HOME);
+        reloadSecurityService();
         securityService.processImage(mock(BufferedImage.class));
         ArgumentCaptor<AlarmStatus> captor = ArgumentCaptor.forClass(AlarmStatus.class);
         verify(securityRepository, atMostOnce()).setAlarmStatus(captor.capture());
         assertEquals(captor.getValue(), AlarmStatus.ALARM);
     }
 
+    @Test
+    void changeSensorActivationStatus_systemArmed_activationAndAlarmTransitionCounted(){
+        when(securityRepository.getArmingStatus()).thenReturn(ArmingStatus.ARMED_HOME);
+        when(securityRepository.getAlarmStatus()).thenReturn(AlarmStatus.NO_ALARM);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        securityService = new SecurityService(securityRepository, imageService, Runnable::run, meterRegistry);
+        securityService.changeSensorActivationStatus(sensor, true);
+        assertEquals(1, meterRegistry.counter("catpoint.sensor.activations").getCount());
+        assertEquals(1, meterRegistry.counter("catpoint.alarm.transitions", "from", "NO_ALARM", "to", "PENDING_ALARM").getCount());
+    }
+
 
 }
\ No newline at end of file
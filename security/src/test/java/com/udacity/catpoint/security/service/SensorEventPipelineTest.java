@@ -0,0 +1,231 @@
+package com.udacity.catpoint.security.service;
+
+import com.udacity.catpoint.security.data.LogStructuredSecurityRepositoryImpl;
+import com.udacity.catpoint.security.data.Sensor;
+import com.udacity.catpoint.security.data.SensorType;
+import com.udacity.catpoint.security.service.SensorEventPipeline.BackpressurePolicy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SensorEventPipelineTest {
+
+    private static final long TIMEOUT_SECONDS = 10;
+
+    @TempDir
+    Path directory;
+
+    private LogStructuredSecurityRepositoryImpl securityRepository;
+    private SecurityService securityService;
+    private final Queue<String> applied = new ConcurrentLinkedQueue<>();
+    private final CountDownLatch firstEventTaken = new CountDownLatch(1);
+    private final CountDownLatch worker = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        securityRepository = new LogStructuredSecurityRepositoryImpl(directory) {
+            //records each event the worker applies, and holds the worker in the first until released
+            @Override
+            public void updateSensor(Sensor sensor) {
+                firstEventTaken.countDown();
+                try {
+                    worker.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                applied.add(sensor.getName() + (sensor.getActive() ? " on" : " off"));
+                super.updateSensor(sensor);
+            }
+        };
+        securityService = new SecurityService(securityRepository, (image, confidenceThreshold) -> false, Runnable::run);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        worker.countDown();
+        securityRepository.close();
+    }
+
+    private List<Sensor> addSensors(int count) {
+        List<Sensor> sensors = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Sensor sensor = new Sensor("sensor" + i, SensorType.DOOR);
+            securityRepository.addSensor(sensor);
+            sensors.add(sensor);
+        }
+        return sensors;
+    }
+
+    /**
+     * Submits an event and waits until the worker is held in it, so later events stay queued.
+     */
+    private void holdWorker(SensorEventPipeline pipeline, Sensor sensor) throws InterruptedException {
+        pipeline.submit(sensor, true);
+        assertTrue(firstEventTaken.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void submit_manyEvents_appliedInSubmissionOrder() throws InterruptedException {
+        List<Sensor> sensors = addSensors(3);
+        worker.countDown();
+        List<String> expected = new ArrayList<>();
+
+        try (SensorEventPipeline pipeline = new SensorEventPipeline(securityService, 2, BackpressurePolicy.BLOCK)) {
+            for (int round = 0; round < 10; round++) {
+                for (Sensor sensor : sensors) {
+                    boolean active = round % 2 == 0;
+                    pipeline.submit(sensor, active);
+                    expected.add(sensor.getName() + (active ? " on" : " off"));
+                }
+            }
+        }
+
+        assertEquals(expected, new ArrayList<>(applied));
+    }
+
+    @Test
+    void submit_bufferFullWithBlockPolicy_producerWaitsForRoom() throws InterruptedException {
+        List<Sensor> sensors = addSensors(4);
+        try (SensorEventPipeline pipeline = new SensorEventPipeline(securityService, 2, BackpressurePolicy.BLOCK)) {
+            holdWorker(pipeline, sensors.get(0));
+            pipeline.submit(sensors.get(1), true);
+            pipeline.submit(sensors.get(2), true);
+            CountDownLatch submitted = new CountDownLatch(1);
+            Thread producer = new Thread(() -> {
+                try {
+                    pipeline.submit(sensors.get(3), true);
+                    submitted.countDown();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            producer.start();
+
+            assertFalse(submitted.await(200, TimeUnit.MILLISECONDS));
+            assertEquals(2, pipeline.getQueueDepth());
+
+            worker.countDown();
+            assertTrue(submitted.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            producer.join();
+        }
+
+        assertEquals(List.of("sensor0 on", "sensor1 on", "sensor2 on", "sensor3 on"), new ArrayList<>(applied));
+    }
+
+    @Test
+    void submit_bufferFullWithDropOldestPolicy_oldestQueuedEventDropped() throws InterruptedException {
+        List<Sensor> sensors = addSensors(4);
+        try (SensorEventPipeline pipeline = new SensorEventPipeline(securityService, 2, BackpressurePolicy.DROP_OLDEST)) {
+            holdWorker(pipeline, sensors.get(0));
+            pipeline.submit(sensors.get(1), true);
+            pipeline.submit(sensors.get(2), true);
+            pipeline.submit(sensors.get(3), true);
+
+            assertEquals(2, pipeline.getQueueDepth());
+            assertEquals(1, pipeline.getDroppedCount());
+            worker.countDown();
+        }
+
+        assertEquals(List.of("sensor0 on", "sensor2 on", "sensor3 on"), new ArrayList<>(applied));
+    }
+
+    @Test
+    void submit_sensorAlreadyQueuedWithCoalescePolicy_mergedWithoutLosingActivation() throws InterruptedException {
+        List<Sensor> sensors = addSensors(3);
+        try (SensorEventPipeline pipeline = new SensorEventPipeline(securityService, 2, BackpressurePolicy.COALESCE)) {
+            holdWorker(pipeline, sensors.get(0));
+            pipeline.submit(sensors.get(1), true);
+            pipeline.submit(sensors.get(2), true);
+            //the buffer is full, but these merge into queued events rather than wait for room
+            pipeline.submit(sensors.get(1), false);
+            pipeline.submit(sensors.get(2), false);
+            pipeline.submit(sensors.get(2), true);
+
+            assertEquals(2, pipeline.getQueueDepth());
+            assertEquals(3, pipeline.getCoalescedCount());
+            worker.countDown();
+        }
+
+        //sensor1's pulse is kept, while sensor2's flapping ends where it started
+        assertEquals(List.of("sensor0 on", "sensor1 on", "sensor1 off", "sensor2 on"), new ArrayList<>(applied));
+    }
+
+    @Test
+    void submit_pulseMergedIntoQueuedDeactivation_activationStillApplied() throws InterruptedException {
+        List<Sensor> sensors = addSensors(2);
+        try (SensorEventPipeline pipeline = new SensorEventPipeline(securityService, 2, BackpressurePolicy.COALESCE)) {
+            holdWorker(pipeline, sensors.get(0));
+            pipeline.submit(sensors.get(1), false);
+            pipeline.submit(sensors.get(1), true);
+            pipeline.submit(sensors.get(1), false);
+
+            assertEquals(1, pipeline.getQueueDepth());
+            worker.countDown();
+        }
+
+        assertEquals(List.of("sensor0 on", "sensor1 off", "sensor1 on", "sensor1 off"), new ArrayList<>(applied));
+    }
+
+    @Test
+    void submit_manySensorsCoalesced_eachSensorAppliedOnceWithLatestState() throws InterruptedException {
+        List<Sensor> sensors = addSensors(65);
+        List<String> expected = new ArrayList<>();
+        expected.add("sensor0 on");
+        try (SensorEventPipeline pipeline = new SensorEventPipeline(securityService, 64, BackpressurePolicy.COALESCE)) {
+            holdWorker(pipeline, sensors.get(0));
+            for (int round = 0; round < 3; round++) {
+                for (Sensor sensor : sensors.subList(1, 65)) {
+                    pipeline.submit(sensor, round != 1);
+                }
+            }
+            worker.countDown();
+        }
+
+        for (Sensor sensor : sensors.subList(1, 65)) {
+            expected.add(sensor.getName() + " on");
+        }
+        assertEquals(expected, new ArrayList<>(applied));
+    }
+
+    @Test
+    void close_eventsQueued_queuedEventsAppliedAndLaterSubmissionsRejected() throws InterruptedException {
+        List<Sensor> sensors = addSensors(3);
+        SensorEventPipeline pipeline = new SensorEventPipeline(securityService, 4, BackpressurePolicy.BLOCK);
+        holdWorker(pipeline, sensors.get(0));
+        pipeline.submit(sensors.get(1), true);
+        pipeline.submit(sensors.get(2), true);
+        Thread closer = new Thread(() -> {
+            try {
+                pipeline.close();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        closer.start();
+
+        //once closed, nothing more is accepted, but what was queued is still applied
+        while (closer.getState() != Thread.State.WAITING && closer.isAlive()) {
+            Thread.onSpinWait();
+        }
+        assertThrows(IllegalStateException.class, () -> pipeline.submit(sensors.get(0), false));
+        worker.countDown();
+        closer.join(TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS));
+
+        assertFalse(closer.isAlive());
+        assertEquals(List.of("sensor0 on", "sensor1 on", "sensor2 on"), new ArrayList<>(applied));
+        assertEquals(3, pipeline.getAppliedCount());
+        assertEquals(0, pipeline.getQueueDepth());
+    }
+}
@@ -0,0 +1,153 @@
+package com.udacity.catpoint.security.service;
+
+import com.udacity.catpoint.security.application.SensorChangeType;
+import com.udacity.catpoint.security.application.StatusListener;
+import com.udacity.catpoint.security.data.AlarmStatus;
+import com.udacity.catpoint.security.data.Sensor;
+import com.udacity.catpoint.security.data.SensorType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StatusListenerDispatcherTest {
+
+    @Test
+    void alarmStatusChanged_listenerBlocked_intermediateStatusesSkipped() throws InterruptedException {
+        AtomicReference<AlarmStatus> alarmStatus = new AtomicReference<>(AlarmStatus.NO_ALARM);
+        CountDownLatch firstDelivered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch lastDelivered = new CountDownLatch(2);
+        List<AlarmStatus> notified = new CopyOnWriteArrayList<>();
+
+        try (StatusListenerDispatcher dispatcher = new StatusListenerDispatcher(alarmStatus::get, () -> false)) {
+            dispatcher.addStatusListener(new StatusListener() {
+                @Override
+                public void notify(AlarmStatus status) {
+                    notified.add(status);
+                    firstDelivered.countDown();
+                    lastDelivered.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+
+                @Override
+                public void catDetected(boolean catDetected) {
+                }
+
+                @Override
+                public void sensorStatusChanged() {
+                }
+
+                @Override
+                public void sensorChanged(Sensor sensor, SensorChangeType changeType) {
+                }
+            });
+
+            dispatcher.alarmStatusChanged();
+            assertTrue(firstDelivered.await(5, TimeUnit.SECONDS));
+
+            //the listener is stuck, which must not hold up posting
+            for (int i = 0; i < 1_000; i++) {
+                alarmStatus.set(AlarmStatus.values()[i % 3]);
+                dispatcher.alarmStatusChanged();
+            }
+            alarmStatus.set(AlarmStatus.ALARM);
+            dispatcher.alarmStatusChanged();
+            release.countDown();
+
+            assertTrue(lastDelivered.await(5, TimeUnit.SECONDS));
+            assertEquals(List.of(AlarmStatus.NO_ALARM, AlarmStatus.ALARM), notified);
+            assertEquals(1_000, dispatcher.getCoalescedCount());
+        }
+    }
+
+    @Test
+    void sensorChanged_manyChangesToSameSensors_oneMergedChangePerSensor() {
+        Sensor kept = new Sensor("kept", SensorType.DOOR);
+        Sensor addedThenRemoved = new Sensor("gone", SensorType.WINDOW);
+        Map<Sensor, SensorChangeType> delivered = new LinkedHashMap<>();
+        List<Runnable> drains = new ArrayList<>();
+
+        try (StatusListenerDispatcher dispatcher = new StatusListenerDispatcher(() -> AlarmStatus.NO_ALARM, () -> false, drains::add)) {
+            dispatcher.addStatusListener(new StatusListener() {
+                @Override
+                public void notify(AlarmStatus status) {
+                }
+
+                @Override
+                public void catDetected(boolean catDetected) {
+                }
+
+                @Override
+                public void sensorStatusChanged() {
+                }
+
+                @Override
+                public void sensorChanged(Sensor sensor, SensorChangeType changeType) {
+                    assertNull(delivered.put(sensor, changeType));
+                }
+            });
+
+            dispatcher.sensorChanged(kept, SensorChangeType.ADDED);
+            dispatcher.sensorChanged(addedThenRemoved, SensorChangeType.ADDED);
+            for (int i = 0; i < 100; i++) {
+                dispatcher.sensorChanged(kept, SensorChangeType.UPDATED);
+            }
+            dispatcher.sensorChanged(addedThenRemoved, SensorChangeType.REMOVED);
+            assertEquals(1, drains.size());
+            drains.get(0).run();
+        }
+
+        assertEquals(Map.of(kept, SensorChangeType.ADDED), delivered);
+    }
+
+    @Test
+    void catDetectionChanged_olderResultPostedLast_currentResultDelivered() {
+        AtomicBoolean catDetected = new AtomicBoolean(true);
+        List<Boolean> delivered = new ArrayList<>();
+        List<Runnable> drains = new ArrayList<>();
+
+        try (StatusListenerDispatcher dispatcher = new StatusListenerDispatcher(() -> AlarmStatus.NO_ALARM, catDetected::get, drains::add)) {
+            dispatcher.addStatusListener(new StatusListener() {
+                @Override
+                public void notify(AlarmStatus status) {
+                }
+
+                @Override
+                public void catDetected(boolean catDetected) {
+                    delivered.add(catDetected);
+                }
+
+                @Override
+                public void sensorStatusChanged() {
+                }
+
+                @Override
+                public void sensorChanged(Sensor sensor, SensorChangeType changeType) {
+                }
+            });
+
+            //the camera that saw the cat posts after the camera that lost it has already cleared the count
+            dispatcher.catDetectionChanged();
+            catDetected.set(false);
+            dispatcher.catDetectionChanged();
+            assertEquals(1, drains.size());
+            drains.get(0).run();
+        }
+
+        assertEquals(List.of(false), delivered);
+    }
+}
@@ -0,0 +1,12 @@
+package com.udacity.catpoint.simulator;
+
+/**
+ * Source of sensor changes, in the order they are due. Patterns are used by a single thread.
+ */
+interface ActivationPattern {
+
+    /**
+     * @return The next change, due no earlier than the one before
+     */
+    ScheduledChange next();
+}
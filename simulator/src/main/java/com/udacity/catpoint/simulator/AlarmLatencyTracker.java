@@ -0,0 +1,49 @@
+package com.udacity.catpoint.simulator;
+
+import com.udacity.catpoint.image.metrics.Histogram;
+import com.udacity.catpoint.image.metrics.MeterRegistry;
+import com.udacity.catpoint.security.application.StatusListener;
+import com.udacity.catpoint.security.data.AlarmStatus;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures how long the system takes to raise the alarm: the time from when the latest input that
+ * could raise it was due, a sensor activating or a frame with a cat, to a listener being told of
+ * the pending or full alarm.
+ */
+class AlarmLatencyTracker implements StatusListener {
+
+    private final AtomicLong latestInputDue = new AtomicLong();
+    private final Histogram pendingLatency;
+    private final Histogram alarmLatency;
+
+    AlarmLatencyTracker(MeterRegistry meterRegistry) {
+        this.pendingLatency = meterRegistry.histogram("simulator.alarm.latency", "status", AlarmStatus.PENDING_ALARM.name());
+        this.alarmLatency = meterRegistry.histogram("simulator.alarm.latency", "status", AlarmStatus.ALARM.name());
+    }
+
+    void inputDue(long nanoTime) {
+        latestInputDue.accumulateAndGet(nanoTime, Math::max);
+    }
+
+    @Override
+    public void notify(AlarmStatus status) {
+        long latency = System.nanoTime() - latestInputDue.get();
+        if (status == AlarmStatus.PENDING_ALARM) {
+            pendingLatency.record(latency);
+        } else if (status == AlarmStatus.ALARM) {
+            alarmLatency.record(latency);
+        }
+    }
+
+    @Override
+    public void catDetected(boolean catDetected) {
+        //no behavior necessary
+    }
+
+    @Override
+    public void sensorStatusChanged() {
+        //no behavior necessary
+    }
+}
@@ -0,0 +1,55 @@
+package com.udacity.catpoint.simulator;
+
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Steady random toggles with periodic bursts on top, when many sensors trip within a moment of
+ * each other, like windows rattling in a storm.
+ */
+class BurstPattern implements ActivationPattern {
+
+    private final SensorPopulation sensors;
+    private final PoissonPattern background;
+    private final Random random;
+    private final long burstIntervalNanos;
+    private final long burstDurationNanos;
+    private final int burstSize;
+
+    private final PriorityQueue<ScheduledChange> burst = new PriorityQueue<>((a, b) -> Long.compare(a.atNanos, b.atNanos));
+    private ScheduledChange nextBackground;
+    private long nextBurstNanos;
+
+    /**
+     * @param eventsPerSecond Rate of the steady toggles between bursts
+     * @param burstSize Number of toggles in each burst
+     */
+    BurstPattern(SensorPopulation sensors, double eventsPerSecond, Random random,
+                 long burstIntervalNanos, long burstDurationNanos, int burstSize) {
+        this.sensors = sensors;
+        this.background = new PoissonPattern(sensors, eventsPerSecond, random);
+        this.random = random;
+        this.burstIntervalNanos = burstIntervalNanos;
+        this.burstDurationNanos = burstDurationNanos;
+        this.burstSize = burstSize;
+        this.nextBackground = background.next();
+        this.nextBurstNanos = burstIntervalNanos;
+    }
+
+    @Override
+    public ScheduledChange next() {
+        while (burst.isEmpty() && nextBurstNanos <= nextBackground.atNanos) {
+            for (int i = 0; i < burstSize; i++) {
+                long at = nextBurstNanos + (long) (random.nextDouble() * burstDurationNanos);
+                burst.add(new ScheduledChange(at, sensors.pick(random), null));
+            }
+            nextBurstNanos += burstIntervalNanos;
+        }
+        if (!burst.isEmpty() && burst.peek().atNanos <= nextBackground.atNanos) {
+            return burst.poll();
+        }
+        ScheduledChange change = nextBackground;
+        nextBackground = background.next();
+        return change;
+    }
+}
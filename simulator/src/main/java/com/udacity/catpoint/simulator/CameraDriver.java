@@ -0,0 +1,84 @@
+package com.udacity.catpoint.simulator;
+
+import com.udacity.catpoint.image.metrics.Counter;
+import com.udacity.catpoint.image.metrics.Histogram;
+import com.udacity.catpoint.image.metrics.MeterRegistry;
+import com.udacity.catpoint.security.data.Camera;
+import com.udacity.catpoint.security.service.SecurityService;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Sends frames from every camera at a fixed rate, without waiting for earlier frames to be
+ * classified. Each camera watches a scene that changes every few seconds, with a cat in some
+ * share of the scenes.
+ */
+class CameraDriver implements Runnable {
+
+    private static final long SCENE_NANOS = 5_000_000_000L;
+
+    private final SecurityService securityService;
+    private final List<Camera> cameras;
+    private final FrameLibrary frames;
+    private final AlarmLatencyTracker alarmLatency;
+    private final long intervalNanos;
+    private final double catShare;
+    private final long startNanos;
+    private final long endNanos;
+    private final Random random;
+
+    private final Histogram responseTime;
+    private final Counter framesSent;
+    private final Counter framesFailed;
+
+    /**
+     * @param framesPerSecond Frames sent by each camera every second
+     * @param catShare Share of the scenes with a cat in
+     */
+    CameraDriver(SecurityService securityService, List<Camera> cameras, FrameLibrary frames,
+                 AlarmLatencyTracker alarmLatency, double framesPerSecond, double catShare,
+                 long startNanos, long endNanos, Random random, MeterRegistry meterRegistry) {
+        this.securityService = securityService;
+        this.cameras = cameras;
+        this.frames = frames;
+        this.alarmLatency = alarmLatency;
+        this.intervalNanos = (long) (1e9 / (framesPerSecond * cameras.size()));
+        this.catShare = catShare;
+        this.startNanos = startNanos;
+        this.endNanos = endNanos;
+        this.random = random;
+        this.responseTime = meterRegistry.histogram("simulator.frame.response");
+        this.framesSent = meterRegistry.counter("simulator.frame.sent");
+        this.framesFailed = meterRegistry.counter("simulator.frame.failed");
+    }
+
+    @Override
+    public void run() {
+        boolean[] catInScene = new boolean[cameras.size()];
+        long[] sceneEnds = new long[cameras.size()];
+        for (long frame = 0; !Thread.currentThread().isInterrupted(); frame++) {
+            long due = startNanos + frame * intervalNanos;
+            if (due >= endNanos) {
+                return;
+            }
+            int index = (int) (frame % cameras.size());
+            if (due >= sceneEnds[index]) {
+                catInScene[index] = random.nextDouble() < catShare;
+                sceneEnds[index] = due + (long) (PoissonPattern.exponential(random, SCENE_NANOS));
+            }
+            Pacing.waitUntil(due);
+            if (catInScene[index]) {
+                alarmLatency.inputDue(due);
+            }
+            securityService.processImageAsync(cameras.get(index).getCameraId(), frames.frame(catInScene[index], random))
+                    .whenComplete((cat, e) -> {
+                        responseTime.record(System.nanoTime() - due);
+                        if (e != null) {
+                            framesFailed.increment();
+                        }
+                    });
+            framesSent.increment();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.udacity.catpoint.simulator;
+
+import com.udacity.catpoint.security.data.Sensor;
+import com.udacity.catpoint.security.data.SensorType;
+
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * People walking through the site: a door opens, one to three motion sensors along the way
+ * trip a second or two apart, the door closes a few seconds later and each motion sensor
+ * clears five seconds after it tripped. Visits start at random times, so they overlap at high
+ * rates.
+ */
+class CorrelatedPattern implements ActivationPattern {
+
+    private static final long SECOND = 1_000_000_000L;
+    private static final double EVENTS_PER_VISIT = 6; //a door and two motion sensors on average, each on and off
+
+    private final List<Sensor> doors;
+    private final List<Sensor> motionSensors;
+    private final double meanVisitIntervalNanos;
+    private final Random random;
+
+    private final PriorityQueue<ScheduledChange> pending = new PriorityQueue<>((a, b) -> Long.compare(a.atNanos, b.atNanos));
+    private double nextVisitNanos;
+
+    /**
+     * @param eventsPerSecond Average rate of sensor changes, from which the rate of visits follows
+     */
+    CorrelatedPattern(SensorPopulation sensors, double eventsPerSecond, Random random) {
+        List<Sensor> doors = sensors.ofType(SensorType.DOOR);
+        List<Sensor> motionSensors = sensors.ofType(SensorType.MOTION);
+        //a site without one kind of sensor uses whatever it has in its place
+        this.doors = doors.isEmpty() ? sensors.getSensors() : doors;
+        this.motionSensors = motionSensors.isEmpty() ? sensors.getSensors() : motionSensors;
+        this.meanVisitIntervalNanos = 1e9 * EVENTS_PER_VISIT / eventsPerSecond;
+        this.random = random;
+        this.nextVisitNanos = PoissonPattern.exponential(random, meanVisitIntervalNanos);
+    }
+
+    @Override
+    public ScheduledChange next() {
+        while (pending.isEmpty() || pending.peek().atNanos > nextVisitNanos) {
+            scheduleVisit((long) nextVisitNanos);
+            nextVisitNanos += PoissonPattern.exponential(random, meanVisitIntervalNanos);
+        }
+        return pending.poll();
+    }
+
+    private void scheduleVisit(long start) {
+        Sensor door = doors.get(random.nextInt(doors.size()));
+        pending.add(new ScheduledChange(start, door, true));
+        pending.add(new ScheduledChange(start + 3 * SECOND, door, false));
+
+        long at = start;
+        int rooms = 1 + random.nextInt(3);
+        for (int i = 0; i < rooms; i++) {
+            at += SECOND / 2 + (long) (random.nextDouble() * 1.5 * SECOND);
+            Sensor motion = motionSensors.get(random.nextInt(motionSensors.size()));
+            pending.add(new ScheduledChange(at, motion, true));
+            pending.add(new ScheduledChange(at + 5 * SECOND, motion, false));
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.udacity.catpoint.simulator;
+
+import com.udacity.catpoint.image.service.ImageService;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Camera frames rendered once before the simulation, half of them with a cat in, so sending a
+ * frame costs nothing. Its {@link #detector()} knows which frames show a cat.
+ */
+class FrameLibrary {
+
+    private static final int FRAMES_OF_EACH_KIND = 8;
+
+    private final BufferedImage[] empty = new BufferedImage[FRAMES_OF_EACH_KIND];
+    private final BufferedImage[] withCat = new BufferedImage[FRAMES_OF_EACH_KIND];
+    private final Set<BufferedImage> catFrames = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    FrameLibrary(int width, int height, Random random) {
+        for (int i = 0; i < FRAMES_OF_EACH_KIND; i++) {
+            empty[i] = render(width, height, random, false);
+            withCat[i] = render(width, height, random, true);
+            catFrames.add(withCat[i]);
+        }
+    }
+
+    private static BufferedImage render(int width, int height, Random random, boolean cat) {
+        BufferedImage frame = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+        Graphics2D g = frame.createGraphics();
+        try {
+            g.setColor(new Color(60 + random.nextInt(40), 60 + random.nextInt(40), 60 + random.nextInt(40)));
+            g.fillRect(0, 0, width, height);
+            //furniture, so the frames differ
+            for (int i = 0; i < 5; i++) {
+                g.setColor(new Color(random.nextInt(256), random.nextInt(256), random.nextInt(256)));
+                g.fillRect(random.nextInt(width), random.nextInt(height), width / 8, height / 8);
+            }
+            if (cat) {
+                g.setColor(Color.ORANGE);
+                g.fillOval(random.nextInt(width * 3 / 4), random.nextInt(height * 3 / 4), width / 5, height / 6);
+            }
+        } finally {
+            g.dispose();
+        }
+        return frame;
+    }
+
+    BufferedImage frame(boolean cat, Random random) {
+        BufferedImage[] frames = cat ? withCat : empty;
+        return frames[random.nextInt(frames.length)];
+    }
+
+    /**
+     * @return Image service that recognises the frames with a cat in, instantly
+     */
+    ImageService detector() {
+        return (image, confidenceThreshhold) -> catFrames.contains(image);
+    }
+}
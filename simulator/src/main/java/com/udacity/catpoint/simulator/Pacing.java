@@ -0,0 +1,26 @@
+package com.udacity.catpoint.simulator;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Waits for the time an event is due, parking for long waits and spinning for the last moment,
+ * as parking alone overshoots by tens of microseconds.
+ */
+final class Pacing {
+
+    private static final long SPIN_NANOS = 50_000;
+
+    private Pacing() {
+    }
+
+    static void waitUntil(long nanoTime) {
+        long remaining;
+        while ((remaining = nanoTime - System.nanoTime()) > 0) {
+            if (remaining > SPIN_NANOS) {
+                LockSupport.parkNanos(remaining - SPIN_NANOS);
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.udacity.catpoint.simulator;
+
+import java.util.Random;
+
+/**
+ * Toggles random sensors at random times, at a steady average rate, as independent sensors do.
+ */
+class PoissonPattern implements ActivationPattern {
+
+    private final SensorPopulation sensors;
+    private final double meanIntervalNanos;
+    private final Random random;
+    private double nextNanos;
+
+    PoissonPattern(SensorPopulation sensors, double eventsPerSecond, Random random) {
+        this.sensors = sensors;
+        this.meanIntervalNanos = 1e9 / eventsPerSecond;
+        this.random = random;
+    }
+
+    @Override
+    public ScheduledChange next() {
+        nextNanos += exponential(random, meanIntervalNanos);
+        return new ScheduledChange((long) nextNanos, sensors.pick(random), null);
+    }
+
+    static double exponential(Random random, double mean) {
+        return -Math.log(1 - random.nextDouble()) * mean;
+    }
+}
@@ -0,0 +1,22 @@
+package com.udacity.catpoint.simulator;
+
+import com.udacity.catpoint.security.data.Sensor;
+
+/**
+ * Change to a sensor that a pattern wants made at a given time.
+ */
+final class ScheduledChange {
+    final long atNanos;
+    final Sensor sensor;
+    final Boolean active; //null to toggle the sensor
+
+    /**
+     * @param atNanos Time of the change, counted from the start of the simulation
+     * @param active Status to set, or null to toggle whatever the sensor's status is then
+     */
+    ScheduledChange(long atNanos, Sensor sensor, Boolean active) {
+        this.atNanos = atNanos;
+        this.sensor = sensor;
+        this.active = active;
+    }
+}
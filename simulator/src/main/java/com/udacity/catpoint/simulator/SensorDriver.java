@@ -0,0 +1,71 @@
+package com.udacity.catpoint.simulator;
+
+import com.udacity.catpoint.image.metrics.Counter;
+import com.udacity.catpoint.image.metrics.Histogram;
+import com.udacity.catpoint.image.metrics.MeterRegistry;
+import com.udacity.catpoint.security.service.SecurityService;
+import com.udacity.catpoint.security.service.SensorEventPipeline;
+
+/**
+ * Makes the changes of one activation pattern at the times they are due.
+ *
+ * Response times are measured from when a change was due rather than when it was made, so a
+ * service that falls behind shows up as growing response times instead of the generator quietly
+ * slowing down to match it. With a pipeline, a change is only queued, so its response time is
+ * how long it took to be accepted, and a toggle is decided from the last state the pipeline
+ * applied rather than from changes still queued.
+ */
+class SensorDriver implements Runnable {
+
+    private final SecurityService securityService;
+    private final SensorEventPipeline pipeline;
+    private final ActivationPattern pattern;
+    private final AlarmLatencyTracker alarmLatency;
+    private final long startNanos;
+    private final long endNanos;
+    private final Histogram responseTime;
+    private final Counter changes;
+
+    /**
+     * @param pipeline Pipeline to queue changes in, or null to make them on this thread
+     */
+    SensorDriver(SecurityService securityService, SensorEventPipeline pipeline, ActivationPattern pattern,
+                 AlarmLatencyTracker alarmLatency, long startNanos, long endNanos, MeterRegistry meterRegistry) {
+        this.securityService = securityService;
+        this.pipeline = pipeline;
+        this.pattern = pattern;
+        this.alarmLatency = alarmLatency;
+        this.startNanos = startNanos;
+        this.endNanos = endNanos;
+        this.responseTime = meterRegistry.histogram("simulator.sensor.response");
+        this.changes = meterRegistry.counter("simulator.sensor.changes");
+    }
+
+    @Override
+    public void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            ScheduledChange change = pattern.next();
+            long due = startNanos + change.atNanos;
+            if (due >= endNanos) {
+                return;
+            }
+            Pacing.waitUntil(due);
+            boolean active = change.active == null ? !change.sensor.getActive() : change.active;
+            if (active) {
+                alarmLatency.inputDue(due);
+            }
+            if (pipeline == null) {
+                securityService.changeSensorActivationStatus(change.sensor, active);
+            } else {
+                try {
+                    pipeline.submit(change.sensor, active);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            responseTime.record(System.nanoTime() - due);
+            changes.increment();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.udacity.catpoint.simulator;
+
+import com.udacity.catpoint.security.data.Sensor;
+import com.udacity.catpoint.security.data.SensorType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Sensors of a simulated site, with a given mix of doors, windows and motion sensors.
+ */
+class SensorPopulation {
+
+    private final List<Sensor> sensors;
+
+    private SensorPopulation(List<Sensor> sensors) {
+        this.sensors = sensors;
+    }
+
+    /**
+     * @param doorShare Share of the sensors that are doors
+     * @param windowShare Share of the sensors that are windows. The rest are motion sensors.
+     */
+    static SensorPopulation create(int count, double doorShare, double windowShare, Random random) {
+        List<Sensor> sensors = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            double kind = random.nextDouble();
+            SensorType type = kind < doorShare ? SensorType.DOOR
+                    : kind < doorShare + windowShare ? SensorType.WINDOW : SensorType.MOTION;
+            sensors.add(new Sensor(type.name().toLowerCase() + "-" + i, type));
+        }
+        return new SensorPopulation(sensors);
+    }
+
+    List<Sensor> getSensors() {
+        return Collections.unmodifiableList(sensors);
+    }
+
+    List<Sensor> ofType(SensorType type) {
+        List<Sensor> matching = new ArrayList<>();
+        for (Sensor sensor : sensors) {
+            if (sensor.getSensorType() == type) {
+                matching.add(sensor);
+            }
+        }
+        return matching;
+    }
+
+    /**
+     * Splits the sensors into parts of about the same size, so each part can be driven by its own
+     * thread without two threads changing the same sensor.
+     */
+    List<SensorPopulation> split(int parts) {
+        List<SensorPopulation> split = new ArrayList<>(parts);
+        for (int part = 0; part < parts; part++) {
+            split.add(new SensorPopulation(new ArrayList<>(
+                    sensors.subList(part * sensors.size() / parts, (part + 1) * sensors.size() / parts))));
+        }
+        return split;
+    }
+
+    Sensor pick(Random random) {
+        return sensors.get(random.nextInt(sensors.size()));
+    }
+
+    int size() {
+        return sensors.size();
+    }
+}
@@ -0,0 +1,144 @@
+package com.udacity.catpoint.simulator;
+
+import com.udacity.catpoint.security.service.SensorEventPipeline.BackpressurePolicy;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Settings of a simulation run, read from {@code --name=value} arguments.
+ */
+class SimulationConfig {
+
+    static final String USAGE = String.join("\n",
+            "Usage: java -jar simulator.jar [--name=value]...",
+            "  --sensors=1000            number of sensors",
+            "  --door-share=0.3          share of the sensors that are doors",
+            "  --window-share=0.4        share of the sensors that are windows, the rest being motion sensors",
+            "  --pattern=poisson         sensor activity: poisson, burst or correlated",
+            "  --rate=1000               sensor changes per second, on average",
+            "  --burst-size=500          changes in each burst of the burst pattern",
+            "  --burst-interval=10       seconds between bursts",
+            "  --threads=2               threads changing sensors",
+            "  --pipeline=none           queue sensor changes for a single worker to apply: none, block, drop_oldest or coalesce",
+            "  --pipeline-capacity=1024  changes the queue holds",
+            "  --cameras=4               number of cameras",
+            "  --fps=5                   frames sent by each camera every second",
+            "  --frame-width=640         width of the frames",
+            "  --frame-height=480        height of the frames",
+            "  --cat-share=0.1           share of camera scenes with a cat in",
+            "  --classifier-latency=50   milliseconds taken to classify a frame",
+            "  --rearm-interval=10       seconds between the system being disarmed and armed again",
+            "  --duration=30             seconds to run for",
+            "  --seed=1                  seed for the random choices, so runs can be repeated",
+            "  --metrics=FILE            also write all the metrics to FILE, as JSON if it ends in .json");
+
+    enum Pattern { POISSON, BURST, CORRELATED }
+
+    int sensors = 1000;
+    double doorShare = 0.3;
+    double windowShare = 0.4;
+    Pattern pattern = Pattern.POISSON;
+    double rate = 1000;
+    int burstSize = 500;
+    double burstIntervalSeconds = 10;
+    int threads = 2;
+    BackpressurePolicy pipeline; //null to change sensors on the driver threads
+    int pipelineCapacity = 1024;
+    int cameras = 4;
+    double framesPerSecond = 5;
+    int frameWidth = 640;
+    int frameHeight = 480;
+    double catShare = 0.1;
+    long classifierLatencyMillis = 50;
+    double rearmIntervalSeconds = 10;
+    double durationSeconds = 30;
+    long seed = 1;
+    Path metricsFile;
+
+    /**
+     * @throws IllegalArgumentException If an argument is unknown or its value is invalid
+     */
+    static SimulationConfig parse(String[] args) {
+        SimulationConfig config = new SimulationConfig();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            String name = arg.substring(2, equals);
+            String value = arg.substring(equals + 1);
+            try {
+                config.set(name, value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid value for --" + name + ": " + value);
+            }
+        }
+        if (config.sensors < config.threads || config.threads < 1) {
+            throw new IllegalArgumentException("Need at least one thread and one sensor for each thread");
+        }
+        //a zero or negative rate or interval would make the simulation wait forever or never pause
+        requirePositive("rate", config.rate);
+        requirePositive("burst-size", config.burstSize);
+        requirePositive("burst-interval", config.burstIntervalSeconds);
+        requirePositive("fps", config.framesPerSecond);
+        requirePositive("frame-width", config.frameWidth);
+        requirePositive("frame-height", config.frameHeight);
+        requirePositive("rearm-interval", config.rearmIntervalSeconds);
+        requirePositive("duration", config.durationSeconds);
+        requirePositive("pipeline-capacity", config.pipelineCapacity);
+        if (config.cameras < 0 || config.classifierLatencyMillis < 0) {
+            throw new IllegalArgumentException("--cameras and --classifier-latency can't be negative");
+        }
+        if (!(config.doorShare >= 0 && config.windowShare >= 0 && config.doorShare + config.windowShare <= 1
+                && config.catShare >= 0 && config.catShare <= 1)) {
+            throw new IllegalArgumentException("Shares must be between 0 and 1, and doors and windows together no more than 1");
+        }
+        return config;
+    }
+
+    private static void requirePositive(String name, double value) {
+        //also rejects NaN
+        if (!(value > 0) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException("--" + name + " must be a positive number");
+        }
+    }
+
+    private void set(String name, String value) {
+        switch (name) {
+            case "sensors": sensors = Integer.parseInt(value); break;
+            case "door-share": doorShare = Double.parseDouble(value); break;
+            case "window-share": windowShare = Double.parseDouble(value); break;
+            case "pattern":
+                try {
+                    pattern = Pattern.valueOf(value.toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Unknown pattern " + value);
+                }
+                break;
+            case "rate": rate = Double.parseDouble(value); break;
+            case "burst-size": burstSize = Integer.parseInt(value); break;
+            case "burst-interval": burstIntervalSeconds = Double.parseDouble(value); break;
+            case "threads": threads = Integer.parseInt(value); break;
+            case "pipeline":
+                try {
+                    pipeline = value.equalsIgnoreCase("none") ? null : BackpressurePolicy.valueOf(value.toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Unknown pipeline policy " + value);
+                }
+                break;
+            case "pipeline-capacity": pipelineCapacity = Integer.parseInt(value); break;
+            case "cameras": cameras = Integer.parseInt(value); break;
+            case "fps": framesPerSecond = Double.parseDouble(value); break;
+            case "frame-width": frameWidth = Integer.parseInt(value); break;
+            case "frame-height": frameHeight = Integer.parseInt(value); break;
+            case "cat-share": catShare = Double.parseDouble(value); break;
+            case "classifier-latency": classifierLatencyMillis = Long.parseLong(value); break;
+            case "rearm-interval": rearmIntervalSeconds = Double.parseDouble(value); break;
+            case "duration": durationSeconds = Double.parseDouble(value); break;
+            case "seed": seed = Long.parseLong(value); break;
+            case "metrics": metricsFile = Paths.get(value); break;
+            default: throw new IllegalArgumentException("Unknown option --" + name);
+        }
+    }
+}
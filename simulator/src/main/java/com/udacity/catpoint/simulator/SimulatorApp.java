@@ -0,0 +1,220 @@
+package com.udacity.catpoint.simulator;
+
+import com.udacity.catpoint.image.metrics.MetricsExporter;
+import com.udacity.catpoint.image.metrics.SimpleMeterRegistry;
+import com.udacity.catpoint.image.service.ImageService;
+import com.udacity.catpoint.image.service.InstrumentedImageService;
+import com.udacity.catpoint.image.service.LatencyInjectingImageService;
+import com.udacity.catpoint.security.data.ArmingStatus;
+import com.udacity.catpoint.security.data.Camera;
+import com.udacity.catpoint.security.data.InstrumentedSecurityRepository;
+import com.udacity.catpoint.security.data.LogStructuredSecurityRepositoryImpl;
+import com.udacity.catpoint.security.data.Sensor;
+import com.udacity.catpoint.security.service.SecurityService;
+import com.udacity.catpoint.security.service.SensorEventPipeline;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Drives a real {@link SecurityService} without the GUI, with a simulated site's sensors and
+ * cameras, to find out how much load it sustains before deploying it. The service stores its
+ * state in a log-structured repository in a temporary directory and classifies frames with a
+ * stand-in classifier that takes a fixed time. Sensor changes are either made on the threads that
+ * generate them or queued in a {@link SensorEventPipeline} for a single worker to apply.
+ *
+ * Changes and frames are sent when they are due whether or not the service has kept up, and
+ * response times are measured from when they were due. The report gives the rates achieved,
+ * response times, how long the alarm took to be raised and what the garbage collector did.
+ */
+public class SimulatorApp {
+
+    private final SimulationConfig config;
+    private final PrintStream out;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    SimulatorApp(SimulationConfig config, PrintStream out) {
+        this.config = config;
+        this.out = out;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && (args[0].equals("--help") || args[0].equals("-h"))) {
+            System.out.println(SimulationConfig.USAGE);
+            return;
+        }
+        SimulationConfig config;
+        try {
+            config = SimulationConfig.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(SimulationConfig.USAGE);
+            System.exit(2);
+            return;
+        }
+        new SimulatorApp(config, System.out).run();
+    }
+
+    void run() throws IOException, InterruptedException {
+        Random random = new Random(config.seed);
+        Path directory = Files.createTempDirectory("catpoint-simulator");
+        LogStructuredSecurityRepositoryImpl repository = new LogStructuredSecurityRepositoryImpl(directory);
+        try {
+            simulate(random, repository);
+        } finally {
+            repository.close();
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+            }
+        }
+    }
+
+    private void simulate(Random random, LogStructuredSecurityRepositoryImpl repository) throws IOException, InterruptedException {
+        FrameLibrary frames = new FrameLibrary(config.frameWidth, config.frameHeight, random);
+        ImageService imageService = new InstrumentedImageService(
+                new LatencyInjectingImageService(frames.detector(), Duration.ofMillis(config.classifierLatencyMillis)), meterRegistry);
+        SecurityService securityService = new SecurityService(new InstrumentedSecurityRepository(repository, meterRegistry),
+                imageService, null, meterRegistry);
+        AlarmLatencyTracker alarmLatency = new AlarmLatencyTracker(meterRegistry);
+        securityService.addStatusListener(alarmLatency);
+
+        SensorPopulation population = SensorPopulation.create(config.sensors, config.doorShare, config.windowShare, random);
+        for (Sensor sensor : population.getSensors()) {
+            securityService.addSensor(sensor);
+        }
+        List<Camera> cameras = new ArrayList<>();
+        for (int i = 0; i < config.cameras; i++) {
+            Camera camera = new Camera("camera-" + i);
+            securityService.addCamera(camera);
+            cameras.add(camera);
+        }
+        securityService.setArmingStatus(ArmingStatus.ARMED_AWAY);
+
+        out.printf(Locale.ROOT, "Simulating %d sensors (%s, %.0f changes/s on %d threads) and %d cameras at %.1f fps for %.0f s%n",
+                config.sensors, config.pattern.name().toLowerCase(), config.rate, config.threads,
+                config.cameras, config.framesPerSecond, config.durationSeconds);
+
+        GcSnapshot gcBefore = new GcSnapshot();
+        ManagementFactory.getMemoryPoolMXBeans().forEach(MemoryPoolMXBean::resetPeakUsage);
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+        long end = start + (long) (config.durationSeconds * 1e9);
+
+        SensorEventPipeline pipeline = config.pipeline == null ? null
+                : new SensorEventPipeline(securityService, config.pipelineCapacity, config.pipeline);
+        List<Thread> drivers = new ArrayList<>();
+        List<SensorPopulation> parts = population.split(config.threads);
+        for (int i = 0; i < parts.size(); i++) {
+            ActivationPattern pattern = createPattern(parts.get(i), config.rate / parts.size(), new Random(config.seed + i + 1));
+            drivers.add(new Thread(new SensorDriver(securityService, pipeline, pattern, alarmLatency, start, end, meterRegistry),
+                    "sensor-driver-" + i));
+        }
+        if (!cameras.isEmpty()) {
+            drivers.add(new Thread(new CameraDriver(securityService, cameras, frames, alarmLatency, config.framesPerSecond,
+                    config.catShare, start, end, new Random(config.seed), meterRegistry), "camera-driver"));
+        }
+        drivers.forEach(Thread::start);
+
+        //the operator disarms and rearms the system now and then, so the alarm can be raised again
+        long rearmInterval = (long) (config.rearmIntervalSeconds * 1e9);
+        for (long rearm = start + rearmInterval; rearm < end; rearm += rearmInterval) {
+            Pacing.waitUntil(rearm);
+            securityService.setArmingStatus(ArmingStatus.DISARMED);
+            securityService.setArmingStatus(ArmingStatus.ARMED_AWAY);
+            meterRegistry.counter("simulator.rearms").increment();
+        }
+        for (Thread driver : drivers) {
+            driver.join();
+        }
+        long elapsed = System.nanoTime() - start;
+        if (pipeline != null) {
+            //let the queued changes be applied
+            pipeline.close();
+            out.printf(Locale.ROOT, "Pipeline (%s): %d submitted, %d applied, %d dropped, %d coalesced, %.1f/s applied%n",
+                    config.pipeline.name().toLowerCase(), pipeline.getSubmittedCount(), pipeline.getAppliedCount(),
+                    pipeline.getDroppedCount(), pipeline.getCoalescedCount(), pipeline.getThroughput());
+        }
+        //let the last frames be classified
+        Thread.sleep(config.classifierLatencyMillis * 2 + 100);
+        GcSnapshot gcAfter = new GcSnapshot();
+
+        report(elapsed, gcBefore, gcAfter);
+    }
+
+    private ActivationPattern createPattern(SensorPopulation sensors, double rate, Random random) {
+        switch (config.pattern) {
+            case BURST:
+                return new BurstPattern(sensors, rate, random, (long) (config.burstIntervalSeconds * 1e9),
+                        TimeUnit.SECONDS.toNanos(1), Math.max(1, config.burstSize / config.threads));
+            case CORRELATED:
+                return new CorrelatedPattern(sensors, rate, random);
+            default:
+                return new PoissonPattern(sensors, rate, random);
+        }
+    }
+
+    private void report(long elapsedNanos, GcSnapshot gcBefore, GcSnapshot gcAfter) throws IOException {
+        double seconds = elapsedNanos / 1e9;
+        long changes = meterRegistry.counter("simulator.sensor.changes").getCount();
+        long framesSent = meterRegistry.counter("simulator.frame.sent").getCount();
+        long framesFailed = meterRegistry.counter("simulator.frame.failed").getCount();
+
+        out.printf(Locale.ROOT, "Ran for %.1f s%n", seconds);
+        out.printf(Locale.ROOT, "Sensor changes: %d, %.1f/s sustained%n", changes, changes / seconds);
+        out.printf(Locale.ROOT, "Frames: %d, %.1f/s sustained, %d failed or rejected%n", framesSent, framesSent / seconds, framesFailed);
+
+        long gcMillis = 0;
+        for (String collector : gcAfter.counts.keySet()) {
+            long count = gcAfter.counts.get(collector) - gcBefore.counts.getOrDefault(collector, 0L);
+            long millis = gcAfter.times.get(collector) - gcBefore.times.getOrDefault(collector, 0L);
+            gcMillis += millis;
+            out.printf(Locale.ROOT, "GC %s: %d collections, %d ms%n", collector, count, millis);
+        }
+        out.printf(Locale.ROOT, "GC time: %.2f%% of the run%n", 100.0 * gcMillis / (elapsedNanos / 1e6));
+        long peakHeap = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) {
+                peakHeap += pool.getPeakUsage().getUsed();
+            }
+        }
+        out.printf(Locale.ROOT, "Peak heap used: %d MB%n", peakHeap / (1024 * 1024));
+
+        out.println("Metrics (times in nanoseconds):");
+        MetricsExporter exporter = new MetricsExporter(meterRegistry);
+        exporter.writeText(new OutputStreamWriter(out));
+        if (config.metricsFile != null) {
+            exporter.writeTo(config.metricsFile);
+        }
+    }
+
+    /**
+     * Collection counts and times of every garbage collector at one moment.
+     */
+    private static class GcSnapshot {
+        private final Map<String, Long> counts = new LinkedHashMap<>();
+        private final Map<String, Long> times = new LinkedHashMap<>();
+
+        GcSnapshot() {
+            for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+                counts.put(collector.getName(), Math.max(0, collector.getCollectionCount()));
+                times.put(collector.getName(), Math.max(0, collector.getCollectionTime()));
+            }
+        }
+    }
+}
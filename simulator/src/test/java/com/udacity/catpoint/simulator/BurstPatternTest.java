@@ -0,0 +1,39 @@
+package com.udacity.catpoint.simulator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BurstPatternTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void next_burstsAndSteadyChanges_mergedInTimeOrder() {
+        SensorPopulation sensors = SensorPopulation.create(100, 0.3, 0.4, new Random(1));
+        BurstPattern pattern = new BurstPattern(sensors, 20, new Random(2), SECOND, SECOND / 10, 50);
+        int[] inBursts = new int[10];
+        int total = 0;
+
+        long previous = 0;
+        ScheduledChange change;
+        while ((change = pattern.next()).atNanos < 10 * SECOND + SECOND / 2) {
+            assertTrue(change.atNanos >= previous, "changes out of order");
+            previous = change.atNanos;
+            total++;
+            long intoSecond = change.atNanos % SECOND;
+            int second = (int) (change.atNanos / SECOND);
+            if (second >= 1 && intoSecond < SECOND / 10) {
+                inBursts[second - 1]++;
+            }
+        }
+
+        //each burst lands in the tenth of a second after its start, on top of the steady changes
+        for (int count : inBursts) {
+            assertTrue(count >= 50, "burst has " + count + " changes");
+        }
+        assertEquals(10 * 50 + 210, total, 60);
+    }
+}
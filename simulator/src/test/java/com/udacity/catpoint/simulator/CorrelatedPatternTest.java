@@ -0,0 +1,67 @@
+package com.udacity.catpoint.simulator;
+
+import com.udacity.catpoint.security.data.SensorType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CorrelatedPatternTest {
+
+    private static final long SECOND = 1_000_000_000L;
+    private static final long END = 60 * SECOND;
+
+    @Test
+    void next_visits_eachSensorSwitchedOffAfterItWasSwitchedOn() {
+        SensorPopulation sensors = SensorPopulation.create(20, 0.3, 0.4, new Random(1));
+        assertFalse(sensors.ofType(SensorType.DOOR).isEmpty());
+        assertFalse(sensors.ofType(SensorType.MOTION).isEmpty());
+        CorrelatedPattern pattern = new CorrelatedPattern(sensors, 50, new Random(2));
+        List<ScheduledChange> changes = new ArrayList<>();
+
+        long previous = 0;
+        ScheduledChange change;
+        while ((change = pattern.next()).atNanos < END) {
+            assertTrue(change.atNanos >= previous, "changes out of order");
+            assertNotNull(change.active);
+            previous = change.atNanos;
+            changes.add(change);
+        }
+
+        //doors close three seconds after they open, and motion sensors clear five seconds after they trip
+        Map<String, Integer> unmatchedOffs = new HashMap<>();
+        for (ScheduledChange off : changes) {
+            if (!off.active) {
+                unmatchedOffs.merge(off.sensor.getName() + "@" + off.atNanos, 1, Integer::sum);
+            }
+        }
+        int visits = 0;
+        for (ScheduledChange on : changes) {
+            if (!on.active) {
+                continue;
+            }
+            long delay = on.sensor.getSensorType() == SensorType.DOOR ? 3 * SECOND : 5 * SECOND;
+            if (on.atNanos + delay >= END) {
+                continue;
+            }
+            String key = on.sensor.getName() + "@" + (on.atNanos + delay);
+            Integer offs = unmatchedOffs.get(key);
+            assertNotNull(offs, "no off for " + key);
+            if (offs == 1) {
+                unmatchedOffs.remove(key);
+            } else {
+                unmatchedOffs.put(key, offs - 1);
+            }
+            if (on.sensor.getSensorType() == SensorType.DOOR) {
+                visits++;
+            }
+        }
+        //six changes a visit, so about one visit every 120 ms
+        assertEquals(57 * 50 / 6.0, visits, 70);
+    }
+}
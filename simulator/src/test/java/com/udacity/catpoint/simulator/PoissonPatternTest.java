@@ -0,0 +1,28 @@
+package com.udacity.catpoint.simulator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PoissonPatternTest {
+
+    @Test
+    void next_manyChanges_meanIntervalMatchesRate() {
+        SensorPopulation sensors = SensorPopulation.create(100, 0.3, 0.4, new Random(1));
+        PoissonPattern pattern = new PoissonPattern(sensors, 1000, new Random(2));
+        int count = 100_000;
+
+        long previous = 0;
+        for (int i = 0; i < count; i++) {
+            ScheduledChange change = pattern.next();
+            assertTrue(change.atNanos >= previous);
+            assertNull(change.active);
+            previous = change.atNanos;
+        }
+
+        //a millisecond apart on average, to within a few standard errors of the mean
+        assertEquals(1_000_000, (double) previous / count, 20_000);
+    }
+}
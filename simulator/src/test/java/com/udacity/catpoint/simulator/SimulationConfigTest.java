@@ -0,0 +1,56 @@
+package com.udacity.catpoint.simulator;
+
+import com.udacity.catpoint.security.service.SensorEventPipeline.BackpressurePolicy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SimulationConfigTest {
+
+    @Test
+    void parse_noArguments_defaults() {
+        SimulationConfig config = SimulationConfig.parse(new String[0]);
+
+        assertEquals(1000, config.sensors);
+        assertEquals(SimulationConfig.Pattern.POISSON, config.pattern);
+        assertEquals(1000, config.rate);
+        assertNull(config.pipeline);
+        assertNull(config.metricsFile);
+    }
+
+    @Test
+    void parse_options_valuesSet() {
+        SimulationConfig config = SimulationConfig.parse(new String[] {
+                "--sensors=50", "--pattern=Burst", "--rate=12.5", "--threads=5", "--cameras=0",
+                "--fps=0.5", "--pipeline=drop_oldest", "--pipeline-capacity=16", "--metrics=out.json"});
+
+        assertEquals(50, config.sensors);
+        assertEquals(SimulationConfig.Pattern.BURST, config.pattern);
+        assertEquals(12.5, config.rate);
+        assertEquals(5, config.threads);
+        assertEquals(0, config.cameras);
+        assertEquals(0.5, config.framesPerSecond);
+        assertEquals(BackpressurePolicy.DROP_OLDEST, config.pipeline);
+        assertEquals(16, config.pipelineCapacity);
+        assertEquals(Paths.get("out.json"), config.metricsFile);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"--rate=0", "--rate=-5", "--rate=NaN", "--fps=0", "--rearm-interval=0", "--duration=0",
+            "--burst-interval=0", "--burst-size=0", "--frame-width=0", "--pipeline-capacity=0", "--rate=Infinity"})
+    void parse_zeroOrNegativeRateOrInterval_rejected(String arg) {
+        assertThrows(IllegalArgumentException.class, () -> SimulationConfig.parse(new String[] {arg}));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"--cameras=-1", "--classifier-latency=-1", "--door-share=0.7", "--cat-share=1.5",
+            "--threads=0", "--sensors=1", "--pattern=wave", "--pipeline=fifo", "--colour=red", "rate=5", "--rate",
+            "--rate=fast"})
+    void parse_invalidArgument_rejected(String arg) {
+        assertThrows(IllegalArgumentException.class, () -> SimulationConfig.parse(new String[] {arg}));
+    }
+}